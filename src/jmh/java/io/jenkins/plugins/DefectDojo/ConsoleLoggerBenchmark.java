@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the messages logged to the build console and of the lines
+ * forwarded from agents, which get the prefix added in
+ * {@link ConsoleLogger#eol}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ConsoleLoggerBenchmark {
+
+    private ConsoleLogger logger;
+    private byte[] lines;
+
+    @Setup
+    public void createLogger() {
+        logger = new ConsoleLogger(new PrintStream(OutputStream.nullOutputStream(), false, StandardCharsets.UTF_8));
+        final StringBuilder output = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            output.append("Uploaded \"reports/report-").append(i).append(".json\" as Trivy Scan in 1234 ms\n");
+        }
+        lines = output.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void logMessage() {
+        logger.log("Uploading \"reports/zap.xml\" as ZAP Scan (1048576 bytes)");
+    }
+
+    @Benchmark
+    public void logMultiLineMessage() {
+        logger.log("{\"detail\": \"Invalid scan type\",\n\"code\": 400,\n\"message\": \"Bad Request\"}");
+    }
+
+    /**
+     * forwards 100 lines
+     */
+    @Benchmark
+    public void forwardLines() throws IOException {
+        logger.write(lines);
+    }
+}
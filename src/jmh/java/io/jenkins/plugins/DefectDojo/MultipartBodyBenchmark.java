@@ -0,0 +1,92 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import hudson.FilePath;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Builds the multipart body of an import and streams it like OkHttp does,
+ * with the report read from a file through {@link FilePathRequestBody}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class MultipartBodyBenchmark {
+
+    /**
+     * the size of the report: 1 MB, 100 MB and 1 GB
+     */
+    @Param({"1048576", "104857600", "1073741824"})
+    public long size;
+
+    private Path report;
+
+    private final Map<String, String> fields = new LinkedHashMap<>();
+
+    @Setup(Level.Trial)
+    public void createReport() throws IOException {
+        report = Files.createTempFile("defectdojo-benchmark", ".report");
+        try (RandomAccessFile file = new RandomAccessFile(report.toFile(), "rw")) {
+            // sparse, so even the largest report needs no disk space
+            file.setLength(size);
+        }
+        fields.put("engagement", "42");
+        fields.put("scan_type", "ZAP Scan");
+        fields.put("test", "4711");
+        fields.put("branch_tag", "main");
+        fields.put("commit_hash", "0123456789abcdef0123456789abcdef01234567");
+        fields.put("close_old_findings", "true");
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteReport() throws IOException {
+        Files.deleteIfExists(report);
+    }
+
+    @Benchmark
+    public long writeMultipartBody() throws IOException {
+        final RequestBody body =
+                ApiClient.createMultipartBody(fields, new FilePathRequestBody(new FilePath(report.toFile()), size));
+        try (BufferedSink sink = Okio.buffer(Okio.blackhole())) {
+            body.writeTo(sink);
+        }
+        return body.contentLength();
+    }
+}
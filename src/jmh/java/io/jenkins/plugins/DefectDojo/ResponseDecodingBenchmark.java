@@ -0,0 +1,90 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Decodes synthetic DefectDojo responses: a page of 500 products as fetched
+ * for the selection lists and the response of an id lookup by name.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ResponseDecodingBenchmark {
+
+    private byte[] productPage;
+    private byte[] idLookup;
+
+    @Setup
+    public void createResponses() {
+        final StringBuilder page = new StringBuilder("{\"count\": 1500, ")
+                .append("\"next\": \"http://host.tld/api/v2/products/?limit=500&offset=500\", ")
+                .append("\"previous\": null, \"results\": [");
+        for (int i = 0; i < ApiClient.DEFAULT_PAGE_SIZE; i++) {
+            if (i > 0) {
+                page.append(", ");
+            }
+            page.append(product(i));
+        }
+        productPage = page.append("], \"prefetch\": {}}").toString().getBytes(StandardCharsets.UTF_8);
+        idLookup = ("{\"count\": 1, \"next\": null, \"previous\": null, \"results\": [" + product(42) + "]}")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return a product with the fields DefectDojo sends, most of them ignored
+     */
+    private static String product(final int id) {
+        return String.format(
+                "{\"id\": %d, \"findings_count\": 17, \"findings_list\": [1, 2, 3], "
+                        + "\"tags\": [\"team-a\", \"java\"], \"product_meta\": [], \"name\": \"product-%d\", "
+                        + "\"description\": \"Product number %d, \\\"quoted\\\" for good measure\", "
+                        + "\"created\": \"2024-05-01T10:00:00.000000Z\", \"prod_numeric_grade\": null, "
+                        + "\"business_criticality\": \"high\", \"platform\": \"web service\", "
+                        + "\"lifecycle\": \"production\", \"origin\": \"internal\", \"user_records\": 1000, "
+                        + "\"revenue\": null, \"external_audience\": false, \"internet_accessible\": true, "
+                        + "\"enable_simple_risk_acceptance\": false, \"enable_full_risk_acceptance\": true, "
+                        + "\"product_manager\": 3, \"technical_contact\": 4, \"team_manager\": null, "
+                        + "\"prod_type\": 1, \"sla_configuration\": 1, \"members\": [5, 6], "
+                        + "\"authorization_groups\": [], \"regulations\": []}",
+                id, id, id);
+    }
+
+    @Benchmark
+    public Object readProductPage() throws IOException {
+        return JsonResponseParser.readIdNamePage(new ByteArrayInputStream(productPage), 0);
+    }
+
+    @Benchmark
+    public String readIdLookup() throws IOException {
+        return JsonResponseParser.readFirstResultId(new ByteArrayInputStream(idLookup));
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Overhead of the {@link RetryEngine} wrapped around every call, without
+ * backing off.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class RetryBenchmark {
+
+    private static final ConnectException FAILURE = new ConnectException("refused");
+
+    private final RetryEngine engine = new RetryEngine(new RetryEngine.Settings(3, 5, 30), backOff -> {});
+
+    @Benchmark
+    public Boolean succeedAtOnce() throws IOException {
+        return engine.execute(lastAttempt -> Boolean.TRUE);
+    }
+
+    @Benchmark
+    public Boolean succeedOnLastAttempt() throws IOException {
+        return engine.execute(lastAttempt -> {
+            if (!lastAttempt) {
+                throw FAILURE;
+            }
+            return Boolean.TRUE;
+        });
+    }
+}
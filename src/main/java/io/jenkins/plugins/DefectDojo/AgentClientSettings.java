@@ -0,0 +1,156 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.ProxyConfiguration;
+import hudson.util.Secret;
+import java.io.Serializable;
+import java.time.Duration;
+import jenkins.model.Jenkins;
+import lombok.Value;
+import okhttp3.Credentials;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import org.apache.commons.lang.StringUtils;
+import org.springframework.retry.backoff.ThreadWaitSleeper;
+
+/**
+ * The settings of the controller a client uploading from an agent is created
+ * with, as the global configuration is not available there: the timeouts, the
+ * retry policy, the rate limit and the proxy.
+ * <p>
+ * The circuit breaker and the rate limiter of such a client only see the calls
+ * of a single upload. The controller therefore checks its own before handing
+ * an upload to an agent and records the outcome afterwards, but retries on the
+ * agent are only paced by the agent's limiter.
+ */
+@Value
+class AgentClientSettings implements Serializable {
+
+    private static final long serialVersionUID = 5902713648021937165L;
+
+    private static final String PROXY_AUTHORIZATION = "Proxy-Authorization";
+
+    int connectionTimeout;
+    int readTimeout;
+
+    @NonNull
+    RetryEngine.Settings retry;
+
+    /**
+     * requests per second, 0 for no limit
+     */
+    int rateLimit;
+
+    /**
+     * the proxy configured on the controller, if any
+     */
+    @CheckForNull
+    String proxyName;
+
+    int proxyPort;
+
+    @CheckForNull
+    String proxyUserName;
+
+    @CheckForNull
+    Secret proxyPassword;
+
+    @CheckForNull
+    String noProxyHost;
+
+    /**
+     * @return the settings of the global configuration, to be called on the
+     * controller
+     */
+    @NonNull
+    static AgentClientSettings current(final int connectionTimeout, final int readTimeout) {
+        final DescriptorImpl descriptor = PluginUtil.getGlobalConfig();
+        final int rateLimit = descriptor != null ? descriptor.getDefectDojoRateLimit() : RateLimiter.DEFAULT_LIMIT;
+        final ProxyConfiguration proxy = Jenkins.get().getProxy();
+        if (proxy == null) {
+            return new AgentClientSettings(
+                    connectionTimeout,
+                    readTimeout,
+                    RetryEngine.currentSettings(),
+                    rateLimit,
+                    null,
+                    0,
+                    null,
+                    null,
+                    null);
+        }
+        return new AgentClientSettings(
+                connectionTimeout,
+                readTimeout,
+                RetryEngine.currentSettings(),
+                rateLimit,
+                proxy.getName(),
+                proxy.getPort(),
+                proxy.getUserName(),
+                proxy.getSecretPassword(),
+                proxy.getNoProxyHost());
+    }
+
+    /**
+     * Creates a client with a retry policy, circuit breaker and rate limiter
+     * of its own, recording its calls in the given metrics.
+     */
+    @NonNull
+    ApiClient createClient(
+            @NonNull final String baseUrl,
+            @NonNull final Secret apiKey,
+            @NonNull final ConsoleLogger logger,
+            @NonNull final ApiMetrics metrics) {
+        final RateLimiter rateLimiter = new RateLimiter(baseUrl, System::nanoTime);
+        rateLimiter.setLimit(rateLimit);
+        return new ApiClient(
+                baseUrl,
+                apiKey,
+                logger,
+                () -> createHttpClient(baseUrl, metrics),
+                new RetryEngine(retry, new ThreadWaitSleeper()),
+                new CircuitBreaker(baseUrl, System::nanoTime),
+                rateLimiter,
+                metrics);
+    }
+
+    @NonNull
+    private OkHttpClient createHttpClient(final String baseUrl, final ApiMetrics metrics) {
+        final OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectTimeout(Duration.ofSeconds(connectionTimeout))
+                .readTimeout(Duration.ofSeconds(readTimeout))
+                .addInterceptor(new MetricsInterceptor(metrics));
+        if (StringUtils.isNotBlank(proxyName)) {
+            builder.proxy(
+                    ProxyConfiguration.createProxy(HttpUrl.get(baseUrl).host(), proxyName, proxyPort, noProxyHost));
+            if (StringUtils.isNotBlank(proxyUserName)) {
+                final String credentials = Credentials.basic(proxyUserName, Secret.toString(proxyPassword));
+                builder.proxyAuthenticator((route, response) -> {
+                    if (response.request().header(PROXY_AUTHORIZATION) != null) {
+                        // the credentials were rejected already
+                        return null;
+                    }
+                    return response.request()
+                            .newBuilder()
+                            .header(PROXY_AUTHORIZATION, credentials)
+                            .build();
+                });
+            }
+        }
+        return builder.build();
+    }
+}
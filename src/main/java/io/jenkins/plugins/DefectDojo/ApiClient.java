@@ -22,39 +22,59 @@ import static java.net.HttpURLConnection.HTTP_UNAUTHORIZED;
 import static org.springframework.http.HttpHeaders.ACCEPT;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import hudson.FilePath;
 import hudson.util.Secret;
-import io.jenkins.plugins.okhttp.api.JenkinsOkHttpClient;
-import java.io.File;
 import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
 import java.net.URI;
-import java.time.Duration;
+import java.net.UnknownHostException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
-import net.sf.json.JSONArray;
+import java.util.stream.Stream;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.Value;
 import net.sf.json.JSONObject;
 import okhttp3.MultipartBody;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
 import org.apache.commons.lang.StringUtils;
 import org.springframework.http.HttpStatus;
-import org.springframework.retry.RetryPolicy;
-import org.springframework.retry.backoff.UniformRandomBackOffPolicy;
-import org.springframework.retry.policy.BinaryExceptionClassifierRetryPolicy;
-import org.springframework.retry.policy.CompositeRetryPolicy;
-import org.springframework.retry.policy.MaxAttemptsRetryPolicy;
-import org.springframework.retry.support.RetryTemplate;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.support.RetrySynchronizationManager;
 import org.springframework.web.util.UriComponentsBuilder;
 
 public class ApiClient {
 
+    private static final Logger LOGGER = Logger.getLogger(ApiClient.class.getName());
+
     private static final String API_URL = "/api/v2";
     static final String API_KEY_HEADER = "Authorization";
     static final String ENGAGEMENT_URL = API_URL + "/engagements/";
@@ -69,6 +89,15 @@ public class ApiClient {
     static final String LOOKUP_NAME_EXACT_PARAM = "name_exact";
     static final String LOOKUP_BY_PRODUCT_ID_PARAM = "product";
     static final String LOOKUP_ID_PARAM = "id";
+    static final String AUTO_CREATE_CONTEXT_PARAM = "auto_create_context";
+    static final int DEFAULT_PAGE_SIZE = 500;
+    static final int DEFAULT_PAGE_PARALLELISM = 4;
+    static final okhttp3.MediaType OCTET_STREAM = okhttp3.MediaType.get("application/octet-stream");
+
+    /**
+     * the maximum number of bytes of a response body logged to the console
+     */
+    static final int MAX_LOGGED_BODY_SIZE = 8 * 1024;
 
     /**
      * the base url to DD instance without trailing slashes, e.g.
@@ -81,9 +110,67 @@ public class ApiClient {
      */
     private final Secret apiKey;
 
+    /**
+     * digest of {@link #apiKey}, so cached ids never leak across credentials
+     */
+    private final String credentialDigest;
+
     private final ConsoleLogger logger;
+
+    @Getter(AccessLevel.PACKAGE)
     private final OkHttpClient httpClient;
 
+    private final ResolutionCache resolutionCache;
+
+    /**
+     * the tests listed by {@link #resolveTests} by engagement and scan type,
+     * kept for the lifetime of the client, i.e. a single step. Scan types
+     * without a test map to an empty id, so they are not looked up again.
+     */
+    private final Map<String, String> listedTests = new ConcurrentHashMap<>();
+
+    @Getter(AccessLevel.PACKAGE)
+    private final RetryEngine retryEngine;
+
+    @Getter(AccessLevel.PACKAGE)
+    private final CircuitBreaker circuitBreaker;
+
+    @Getter(AccessLevel.PACKAGE)
+    private final RateLimiter rateLimiter;
+
+    /**
+     * the metrics retries are recorded in, the calls themselves are recorded
+     * by the {@link MetricsInterceptor} of the HTTP client
+     */
+    @Getter(AccessLevel.PACKAGE)
+    private final ApiMetrics metrics;
+
+    /**
+     * the number of entities to fetch per request from list endpoints
+     */
+    @Setter
+    private int pageSize = DEFAULT_PAGE_SIZE;
+
+    /**
+     * the maximum number of pages fetched concurrently from list endpoints
+     */
+    @Setter
+    private int pageParallelism = DEFAULT_PAGE_PARALLELISM;
+
+    /**
+     * how the progress of uploads is reported and stalled uploads are detected
+     */
+    @Setter
+    @NonNull
+    private ProgressRequestBody.Settings uploadProgress = ProgressRequestBody.Settings.current();
+
+    /**
+     * notified of the statistics of every accepted import
+     */
+    @Setter
+    @CheckForNull
+    private ImportListener importListener;
+
     /**
      *
      * @param baseUrl the base url to DD instance without trailing slashes, e.g.
@@ -100,10 +187,7 @@ public class ApiClient {
             @NonNull final ConsoleLogger logger,
             final int connectionTimeout,
             final int readTimeout) {
-        this(baseUrl, apiKey, logger, () -> JenkinsOkHttpClient.newClientBuilder(new OkHttpClient())
-                .connectTimeout(Duration.ofSeconds(connectionTimeout))
-                .readTimeout(Duration.ofSeconds(readTimeout))
-                .build());
+        this(baseUrl, apiKey, logger, HttpClientFactory.shared(baseUrl, connectionTimeout, readTimeout));
     }
 
     ApiClient(
@@ -111,24 +195,54 @@ public class ApiClient {
             @NonNull final Secret apiKey,
             @NonNull final ConsoleLogger logger,
             @NonNull final HttpClientFactory factory) {
+        this(
+                baseUrl,
+                apiKey,
+                logger,
+                factory,
+                RetryEngine.get(),
+                CircuitBreaker.forInstance(baseUrl),
+                RateLimiter.forInstance(baseUrl),
+                ApiMetrics.get());
+    }
+
+    /**
+     * Creates a client not sharing the controller-wide retry policy, circuit
+     * breaker, rate limit and metrics, e.g. on an agent.
+     */
+    ApiClient(
+            @NonNull final String baseUrl,
+            @NonNull final Secret apiKey,
+            @NonNull final ConsoleLogger logger,
+            @NonNull final HttpClientFactory factory,
+            @NonNull final RetryEngine retryEngine,
+            @NonNull final CircuitBreaker circuitBreaker,
+            @NonNull final RateLimiter rateLimiter,
+            @NonNull final ApiMetrics metrics) {
         this.baseUrl = baseUrl;
         this.apiKey = apiKey;
         this.logger = logger;
         httpClient = factory.create();
+        credentialDigest = PluginUtil.digestOf(apiKey);
+        resolutionCache = ResolutionCache.get();
+        this.retryEngine = retryEngine;
+        this.circuitBreaker = circuitBreaker;
+        this.rateLimiter = rateLimiter;
+        this.metrics = metrics;
     }
 
     @NonNull
     @SuppressFBWarnings("NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE")
     public boolean testConnection() throws ApiClientException {
         final var request = createRequest(URI.create(PRODUCT_URL));
-        return executeWithRetry(() -> {
-            try (var response = httpClient.newCall(request).execute()) {
+        return executeWithRetry(lastAttempt -> {
+            try (var response = send(request, lastAttempt)) {
                 logger.log(response.toString());
                 if (response.isSuccessful()) {
                     return true;
                 } else {
                     final int status = response.code();
-                    logger.log(response.body().string());
+                    logger.log(excerptOf(response.body()));
                     throw new ApiClientException(Messages.ApiClient_Error_Connection(
                             status, HttpStatus.valueOf(status).getReasonPhrase()));
                 }
@@ -142,44 +256,46 @@ public class ApiClient {
     }
 
     @NonNull
-    public List<JSONObject> getProducts() throws ApiClientException {
+    public IdNameList getProducts() throws ApiClientException {
         return getData(PRODUCT_URL);
     }
 
     @NonNull
-    public List<JSONObject> getEngagements(final String productId) throws ApiClientException {
+    public IdNameList getEngagements(final String productId) throws ApiClientException {
         String url = ENGAGEMENT_URL + "?product=" + productId;
         return getData(url);
     }
 
     @NonNull
-    public List<JSONObject> getScanTypes() throws ApiClientException {
+    public IdNameList getScanTypes() throws ApiClientException {
         return getData(SCAN_TYPE_URL);
     }
 
+    /**
+     * @return an {@link AsyncApiClient} sharing this client's connection,
+     * credentials and caches
+     */
+    @NonNull
+    public AsyncApiClient async() {
+        return new AsyncApiClient(this);
+    }
+
     @NonNull
     public String getProductId(final String productName) throws ApiClientException {
-        final var uri = UriComponentsBuilder.fromUriString(PRODUCT_URL)
-                .queryParam(LOOKUP_NAME_EXACT_PARAM, "{productName}")
-                .build(productName);
-        return getIdFromDojo(createRequest(uri));
+        return resolve(ResolutionCache.Kind.PRODUCT, null, productName, productIdRequest(productName));
     }
 
     @NonNull
     public String getEngagementId(@Nullable final String productId, final String engagementName)
             throws ApiClientException {
-        final var uriBuilder =
-                UriComponentsBuilder.fromUriString(ENGAGEMENT_URL).queryParam(LOOKUP_NAME_PARAM, "{engagementName}");
-        var uri = uriBuilder.build(engagementName);
-        if (productId != null) {
-            uriBuilder.queryParam(LOOKUP_BY_PRODUCT_ID_PARAM, "{productId}");
-            uri = uriBuilder.build(engagementName, productId);
-        }
-        return getIdFromDojo(createRequest(uri));
+        return resolve(
+                ResolutionCache.Kind.ENGAGEMENT,
+                productId,
+                engagementName,
+                engagementIdRequest(productId, engagementName));
     }
 
     @NonNull
-    @SuppressFBWarnings("NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE")
     public Boolean upload(
             final String projectId,
             final String engagementId,
@@ -194,79 +310,305 @@ public class ApiClient {
             logger.log(Messages.Builder_Error_Processing(artifact.getRemote()));
             return false;
         }
-        String scanId = null;
+        final ImportScanRequest request =
+                prepareImport(projectId, engagementId, sourceCodeUri, branchTag, commitHash, scanType, reuploadScan);
+        return importScan(request, new FilePathRequestBody(artifact));
+    }
+
+    /**
+     * Resolves everything needed to upload a report, except the report itself.
+     * The returned request may be sent by {@link #importScan} from any node.
+     *
+     * @return the resolved import-scan or reimport-scan request
+     * @throws ApiClientException if the test to reupload to could not be looked
+     * up
+     */
+    @NonNull
+    public ImportScanRequest prepareImport(
+            final String projectId,
+            final String engagementId,
+            @Nullable final String sourceCodeUri,
+            @Nullable String branchTag,
+            @Nullable String commitHash,
+            @NonNull final String scanType,
+            boolean reuploadScan)
+            throws ApiClientException {
+        final String scanId = StringUtils.isNotBlank(engagementId) ? getScanId(engagementId, scanType) : null;
+        return createImportScanRequest(
+                projectId, engagementId, sourceCodeUri, branchTag, commitHash, scanType, reuploadScan, scanId);
+    }
+
+    /**
+     * @param scanId the test to reupload to, if any
+     */
+    @NonNull
+    ImportScanRequest createImportScanRequest(
+            final String projectId,
+            final String engagementId,
+            @Nullable final String sourceCodeUri,
+            @Nullable String branchTag,
+            @Nullable String commitHash,
+            @NonNull final String scanType,
+            boolean reuploadScan,
+            @Nullable final String scanId) {
         String url = UPLOAD_URL;
-        JSONObject jsonBody = new JSONObject();
+        final Map<String, String> fields = new LinkedHashMap<>();
 
-        jsonBody.put("scan_type", scanType);
-        jsonBody.put("engagement", engagementId);
-        jsonBody.put("product_id", projectId);
+        fields.put("scan_type", scanType);
+        fields.put("engagement", engagementId);
+        fields.put("product_id", projectId);
 
         if (StringUtils.isNotBlank(sourceCodeUri)) {
-            jsonBody.put("source_code_management_uri", sourceCodeUri);
+            fields.put("source_code_management_uri", sourceCodeUri);
         }
         if (StringUtils.isNotBlank(branchTag)) {
-            jsonBody.put("branch_tag", branchTag);
+            fields.put("branch_tag", branchTag);
         }
         if (StringUtils.isNotBlank(commitHash)) {
-            jsonBody.put("commit_hash", commitHash);
+            fields.put("commit_hash", commitHash);
         }
 
-        jsonBody.put("do_not_reactivate", "true");
-        jsonBody.put("active", "false");
-        jsonBody.put("verified", "false");
-        jsonBody.put("environment", "");
-        jsonBody.put("minimum_severity", "Low");
+        fields.put("do_not_reactivate", "true");
+        fields.put("active", "false");
+        fields.put("verified", "false");
+        fields.put("environment", "");
+        fields.put("minimum_severity", "Low");
 
-        RequestBody fileRequestBody =
-                RequestBody.create(new File(artifact.getRemote()), okhttp3.MediaType.parse("application/octet-stream"));
+        if (reuploadScan && StringUtils.isNotBlank(scanId)) {
+            url = REUPLOAD_URL;
 
-        if (StringUtils.isNotBlank(engagementId)) {
-            scanId = getScanId(engagementId, scanType);
+            fields.put("test", scanId);
+            fields.remove("active");
+            fields.remove("verified");
         }
+        return new ImportScanRequest(url, fields);
+    }
 
-        if (reuploadScan && StringUtils.isNotBlank(scanId)) {
-            url = REUPLOAD_URL;
+    /**
+     * Prepares an import that leaves resolving product, engagement and test by
+     * name to DefectDojo, so the report is published with a single request.
+     * Requires {@link #supportsAutoCreateContext()}.
+     *
+     * @param autoCreateContext whether DefectDojo creates a missing engagement
+     * or test, otherwise the import is rejected if one of them is missing
+     * @return the import-scan or reimport-scan request
+     */
+    @NonNull
+    public ImportScanRequest prepareContextImport(
+            final String productName,
+            final String engagementName,
+            @Nullable final String sourceCodeUri,
+            @Nullable String branchTag,
+            @Nullable String commitHash,
+            @NonNull final String scanType,
+            boolean reuploadScan,
+            boolean autoCreateContext) {
+        final Map<String, String> fields = new LinkedHashMap<>(
+                createImportScanRequest(null, null, sourceCodeUri, branchTag, commitHash, scanType, false, null)
+                        .getFields());
+        fields.remove(LOOKUP_TEST_BY_EGAGEMENT_ID_PARAM);
+        fields.remove("product_id");
+        fields.put("product_name", productName);
+        fields.put("engagement_name", engagementName);
+        fields.put(AUTO_CREATE_CONTEXT_PARAM, Boolean.toString(autoCreateContext));
+        if (!reuploadScan) {
+            return new ImportScanRequest(UPLOAD_URL, fields);
+        }
+        // reimports into the test of the scan type, imported anew if there is none
+        fields.remove("active");
+        fields.remove("verified");
+        return new ImportScanRequest(REUPLOAD_URL, fields);
+    }
 
-            jsonBody.put("test", scanId);
-            jsonBody.remove("active");
-            jsonBody.remove("verified");
-        }
-
-        RequestBody uploadBody = createMultipartBody(jsonBody, fileRequestBody);
-        final var request = createRequest(URI.create(url), "POST", uploadBody);
-        return executeWithRetry(() -> {
-            try (var response = httpClient.newCall(request).execute()) {
-                final var body = response.body().string();
-                final int status = response.code();
-                // Checks the server response
-                switch (status) {
-                    case HTTP_OK:
-                    case HTTP_ACCEPTED:
-                    case HTTP_CREATED:
-                        return true;
-                    case HTTP_BAD_REQUEST:
-                        logger.log(Messages.Builder_Payload_Invalid());
-                        break;
-                    case HTTP_UNAUTHORIZED:
-                        logger.log(Messages.Builder_Unauthorized());
-                        break;
-                    case HTTP_NOT_FOUND:
-                        logger.log(Messages.Builder_Product_NotFound());
-                        break;
-                    default:
-                        logger.log(Messages.ApiClient_Error_Connection(
-                                status, HttpStatus.valueOf(status).getReasonPhrase()));
-                        break;
+    /**
+     * Asks DefectDojo whether import-scan resolves product and engagement by
+     * name and creates them on demand, i.e. accepts
+     * {@value #AUTO_CREATE_CONTEXT_PARAM}. The answer is remembered in
+     * {@link ServerCapabilities} for a while, so not every publication to an
+     * instance sends the probe. Only a successful response is a definitive
+     * answer. Otherwise, e.g. if the probe is not permitted or filtered by a
+     * proxy, the capability is assumed to be missing and probed again next
+     * time.
+     *
+     * @return whether {@link #prepareContextImport} may be used
+     */
+    @SuppressFBWarnings("NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE")
+    public boolean supportsAutoCreateContext() {
+        final Boolean known = ServerCapabilities.lookupAutoCreateContext(baseUrl, credentialDigest);
+        if (known != null) {
+            return known;
+        }
+        final var request = createRequest(URI.create(UPLOAD_URL), "OPTIONS", null);
+        try {
+            final Boolean supported = executeWithRetry(lastAttempt -> {
+                try (var response = send(request, lastAttempt)) {
+                    if (RetryableStatusException.isRetryable(response.code())) {
+                        // unavailable even after retries, so nothing is learned
+                        throw RetryableStatusException.of(response);
+                    }
+                    final ResponseBody body = response.body();
+                    if (!response.isSuccessful() || body == null) {
+                        // not definitive, e.g. 403 or a proxy filtering OPTIONS
+                        return null;
+                    }
+                    return JsonResponseParser.hasActionField(body.byteStream(), "POST", AUTO_CREATE_CONTEXT_PARAM);
                 }
-                logger.log(body);
+            });
+            if (supported == null) {
                 return false;
             }
+            ServerCapabilities.recordAutoCreateContext(baseUrl, credentialDigest, supported);
+            return supported;
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, e, () -> "Could not probe " + baseUrl + " for " + AUTO_CREATE_CONTEXT_PARAM);
+            return false;
+        }
+    }
+
+    /**
+     * Sends a prepared request together with the report to DefectDojo.
+     *
+     * @param importRequest the request prepared by {@link #prepareImport}
+     * @param report the content of the report
+     * @return {@code true} if DefectDojo accepted the report
+     * @throws IOException if the upload failed even after retries
+     */
+    @NonNull
+    @SuppressFBWarnings("NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE")
+    public Boolean importScan(@NonNull final ImportScanRequest importRequest, @NonNull final RequestBody report)
+            throws IOException {
+        final var request = createImportRequest(importRequest, report);
+        return executeWithRetry(lastAttempt -> {
+            try (var response = send(request, lastAttempt)) {
+                return readImportResult(importRequest, response);
+            }
         });
     }
 
+    @NonNull
+    Request createImportRequest(@NonNull final ImportScanRequest importRequest, @NonNull final RequestBody report) {
+        final String name = importRequest.getFields().get(LOOKUP_TEST_PARAM);
+        RequestBody uploadBody = createMultipartBody(
+                importRequest.getFields(), new ProgressRequestBody(report, name, logger, uploadProgress));
+        return createRequest(URI.create(importRequest.getUrl()), "POST", uploadBody);
+    }
+
+    /**
+     * @return {@code true} if DefectDojo accepted the report
+     * @throws RetryableStatusException if DefectDojo was unavailable or
+     * throttled the upload, so the report might be accepted later on
+     * @throws UnconfirmedCreationException if a gateway failed after it
+     * might have passed an import on, which is not to be repeated then
+     */
+    @NonNull
+    @SuppressFBWarnings("NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE")
+    Boolean readImportResult(@NonNull final ImportScanRequest importRequest, @NonNull final Response response)
+            throws IOException {
+        final int status = response.code();
+        if (RetryableStatusException.isRetryable(status)) {
+            logger.log(excerptOf(response.body()));
+            final RetryableStatusException e = RetryableStatusException.of(response);
+            if (e.isUnprocessed() || !isCreation(response.request())) {
+                throw e;
+            }
+            throw new UnconfirmedCreationException(
+                    Messages.ApiClient_Error_CreationUnconfirmed(response.request().url(), e.getMessage()), e);
+        }
+        // Checks the server response
+        switch (status) {
+            case HTTP_OK:
+            case HTTP_ACCEPTED:
+            case HTTP_CREATED:
+                readImported(importRequest, response);
+                return true;
+            case HTTP_BAD_REQUEST:
+                logger.log(Messages.Builder_Payload_Invalid());
+                evictResolved(importRequest);
+                break;
+            case HTTP_UNAUTHORIZED:
+                logger.log(Messages.Builder_Unauthorized());
+                break;
+            case HTTP_NOT_FOUND:
+                logger.log(Messages.Builder_Product_NotFound());
+                evictResolved(importRequest);
+                break;
+            default:
+                logger.log(Messages.ApiClient_Error_Connection(status, HttpStatus.valueOf(status).getReasonPhrase()));
+                break;
+        }
+        logger.log(excerptOf(response.body()));
+        return false;
+    }
+
+    /**
+     * Decodes the test and the statistics of an accepted import and passes
+     * them on to the {@link #importListener}. The test is remembered, so the
+     * next reimport of the scan type skips looking it up. The response is
+     * streamed, everything else in it is skipped without materializing it.
+     */
+    private void readImported(@NonNull final ImportScanRequest importRequest, @NonNull final Response response) {
+        final String engagementId = importRequest.getFields().get(LOOKUP_TEST_BY_EGAGEMENT_ID_PARAM);
+        final ResponseBody body = response.body();
+        ImportStatistics statistics = ImportStatistics.EMPTY;
+        if (body != null && body.contentLength() != 0) {
+            try {
+                statistics = JsonResponseParser.readImportStatistics(body.byteStream());
+            } catch (IOException e) {
+                // the report was accepted nonetheless, the test is looked up next time
+                LOGGER.log(Level.FINE, e, () -> "Could not read the import into engagement " + engagementId);
+            }
+        }
+        if (StringUtils.isNotBlank(engagementId)) {
+            final String scanType = importRequest.getFields().get(LOOKUP_TEST_PARAM);
+            cacheResolved(ResolutionCache.Kind.TEST, engagementId, scanType, statistics.getTest());
+            if (statistics.getTest() != null) {
+                // a test created by the import is reimported into from now on
+                listedTests.replace(testKey(engagementId, scanType), statistics.getTest());
+            }
+        }
+        if (importListener != null) {
+            importListener.imported(importRequest, statistics);
+        }
+    }
+
+    /**
+     * Drops the cached ids an import request was prepared with, e.g. because
+     * DefectDojo rejected it and one of the entities might be gone.
+     *
+     * @param importRequest the request prepared by {@link #prepareImport}
+     */
+    public void evictResolved(@NonNull final ImportScanRequest importRequest) {
+        final Map<String, String> fields = importRequest.getFields();
+        final List<String> ids = Stream.of("product_id", "engagement", "test")
+                .map(fields::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        resolutionCache.invalidateIds(baseUrl, credentialDigest, ids);
+    }
+
     public String createEngagement(String engagementName, String productId, @Nullable String sourceCodeUrl)
             throws IOException {
+        invalidateResolved(ResolutionCache.Kind.ENGAGEMENT, productId, engagementName);
+        final var request = createEngagementRequest(engagementName, productId, sourceCodeUrl);
+        return executeWithRetry(lastAttempt -> {
+            try (var response = send(request, lastAttempt)) {
+                return readCreatedId(response);
+            }
+        });
+    }
+
+    public String createProduct(String productName, @Nullable String origin) throws IOException {
+        invalidateResolved(ResolutionCache.Kind.PRODUCT, null, productName);
+        final var request = createProductRequest(productName, origin);
+        return executeWithRetry(lastAttempt -> {
+            try (var response = send(request, lastAttempt)) {
+                return readCreatedId(response);
+            }
+        });
+    }
+
+    @NonNull
+    Request createEngagementRequest(String engagementName, String productId, @Nullable String sourceCodeUrl) {
         final String defaultValues =
                 "{\"description\": \"Auto-created via Jenkins\",\"engagement_type\":\"Interactive\",\"status\": \"In Progress\",\"deduplication_on_engagement\": \"true\"}";
         JSONObject jsonBody = JSONObject.fromObject(defaultValues);
@@ -282,36 +624,14 @@ public class ApiClient {
             jsonBody.put("source_code_management_uri", sourceCodeUrl);
         }
 
-        final var request = createRequest(
+        return createRequest(
                 URI.create(ENGAGEMENT_URL),
                 "POST",
                 RequestBody.create(jsonBody.toString(), okhttp3.MediaType.parse(APPLICATION_JSON_VALUE)));
-        return executeWithRetry(() -> {
-            try (var response = httpClient.newCall(request).execute()) {
-                final var body = response.body().string();
-                final int status = response.code();
-                // Checks the server response
-                switch (status) {
-                    case HTTP_CREATED:
-                        return (JSONObject.fromObject(body).get("id")).toString();
-                    case HTTP_BAD_REQUEST:
-                        logger.log(Messages.Builder_Payload_Invalid());
-                        break;
-                    case HTTP_UNAUTHORIZED:
-                        logger.log(Messages.Builder_Unauthorized());
-                        break;
-                    default:
-                        logger.log(Messages.ApiClient_Error_Connection(
-                                status, HttpStatus.valueOf(status).getReasonPhrase()));
-                        break;
-                }
-                logger.log(body);
-                return null;
-            }
-        });
     }
 
-    public String createProduct(String productName, @Nullable String origin) throws IOException {
+    @NonNull
+    Request createProductRequest(String productName, @Nullable String origin) {
         final String defaultValues = "{\"description\": \"Auto-created via Jenkins\",\"prod_type\":\"1\"}";
         JSONObject jsonBody = JSONObject.fromObject(defaultValues);
 
@@ -321,64 +641,142 @@ public class ApiClient {
             jsonBody.put("origin", origin);
         }
 
-        final var request = createRequest(
+        return createRequest(
                 URI.create(PRODUCT_URL),
                 "POST",
                 RequestBody.create(jsonBody.toString(), okhttp3.MediaType.parse(APPLICATION_JSON_VALUE)));
-        return executeWithRetry(() -> {
-            try (var response = httpClient.newCall(request).execute()) {
-                final var body = response.body().string();
-                final int status = response.code();
-                // Checks the server response
-                switch (status) {
-                    case HTTP_CREATED:
-                        return (JSONObject.fromObject(body).get("id")).toString();
-                    case HTTP_BAD_REQUEST:
-                        logger.log(Messages.Builder_Payload_Invalid());
-                        break;
-                    case HTTP_UNAUTHORIZED:
-                        logger.log(Messages.Builder_Unauthorized());
-                        break;
-                    default:
-                        logger.log(Messages.ApiClient_Error_Connection(
-                                status, HttpStatus.valueOf(status).getReasonPhrase()));
-                        break;
-                }
-                logger.log(body);
-                return null;
-            }
-        });
     }
 
+    /**
+     * @return the id of the created entity or {@code null} if DefectDojo
+     * refused to create it
+     */
+    @Nullable
+    @SuppressFBWarnings("NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE")
+    String readCreatedId(@NonNull final Response response) throws IOException {
+        final int status = response.code();
+        // Checks the server response
+        switch (status) {
+            case HTTP_CREATED:
+                return (JSONObject.fromObject(response.body().string()).get("id")).toString();
+            case HTTP_BAD_REQUEST:
+                logger.log(Messages.Builder_Payload_Invalid());
+                break;
+            case HTTP_UNAUTHORIZED:
+                logger.log(Messages.Builder_Unauthorized());
+                break;
+            default:
+                logger.log(Messages.ApiClient_Error_Connection(status, HttpStatus.valueOf(status).getReasonPhrase()));
+                break;
+        }
+        logger.log(excerptOf(response.body()));
+        return null;
+    }
+
+    /**
+     * Fetches all entities of a list endpoint page by page. Pages are requested
+     * with a fixed {@link #pageSize} and the offset advances by the number of
+     * entities received. Paging stops as soon as DefectDojo reports no
+     * {@code next} page, so N entities cost ceil(N / pageSize) requests.
+     * <p>
+     * Once the first page reveals the total count, the remaining pages are
+     * fetched with up to {@link #pageParallelism} concurrent requests.
+     */
     @NonNull
-    private List<JSONObject> getData(final String URL) throws ApiClientException {
-        List<JSONObject> data = new ArrayList<>();
-        int offset = 0;
-        boolean fetchMore = true;
-        while (fetchMore) {
-            final JSONArray pagedData = (JSONArray) getPaged(offset, offset += 500, URL);
-            List<JSONObject> fetchedData =
-                    pagedData.stream().map(JSONObject.class::cast).collect(Collectors.toList());
-            fetchMore = !fetchedData.isEmpty();
-            data.addAll(fetchedData);
+    private IdNameList getData(final String URL) throws ApiClientException {
+        return getData(URL, LOOKUP_NAME_PARAM);
+    }
+
+    /**
+     * @param nameField the field of the entities kept as their name
+     * @see #getData(String)
+     */
+    @NonNull
+    private IdNameList getData(final String URL, final String nameField) throws ApiClientException {
+        final Page first = getPaged(0, pageSize, URL, nameField);
+        if (!first.isNextAvailable() || first.getResults().isEmpty()) {
+            return first.getResults();
+        }
+        final IdNameList.Builder data =
+                new IdNameList.Builder(Math.max(first.getCount(), first.getResults().size()));
+        data.addAll(first.getResults());
+        Page last = first;
+        if (first.getCount() > data.size() && pageParallelism > 1) {
+            last = getRemainingPages(URL, nameField, first, data);
+        }
+        // sequentially fetch whatever is left, e.g. if the count is unknown or has grown meanwhile
+        while (last.isNextAvailable() && !last.getResults().isEmpty()) {
+            last = getPaged(data.size(), pageSize, URL, nameField);
+            data.addAll(last.getResults());
+        }
+        return data.build();
+    }
+
+    /**
+     * Fetches all pages following {@code first} concurrently and appends them
+     * in order to {@code data}.
+     *
+     * @return the last page fetched
+     */
+    @NonNull
+    private Page getRemainingPages(
+            final String URL, final String nameField, final Page first, final IdNameList.Builder data)
+            throws ApiClientException {
+        // DefectDojo may cap the limit, so step by what was actually returned
+        final int step = first.getResults().size();
+        final int pageCount = (first.getCount() - 1) / step;
+        final Page[] pages = new Page[pageCount];
+        final AtomicInteger nextPage = new AtomicInteger();
+        final int workers = Math.min(pageParallelism, pageCount);
+        final CompletableFuture<?>[] futures = new CompletableFuture<?>[workers];
+        for (int i = 0; i < workers; i++) {
+            futures[i] = CompletableFuture.runAsync(
+                    () -> {
+                        int index;
+                        while ((index = nextPage.getAndIncrement()) < pageCount) {
+                            try {
+                                pages[index] = getPaged(step + index * step, pageSize, URL, nameField);
+                            } catch (ApiClientException e) {
+                                // let the other workers stop early
+                                nextPage.set(pageCount);
+                                throw new CompletionException(e);
+                            }
+                        }
+                    },
+                    PluginExecutors.io());
+        }
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof ApiClientException) {
+                throw (ApiClientException) e.getCause();
+            }
+            throw new ApiClientException(
+                    Messages.ApiClient_Error_Connection(StringUtils.EMPTY, StringUtils.EMPTY), e.getCause());
+        }
+        for (Page page : pages) {
+            data.addAll(page.getResults());
         }
-        return data;
+        return pages[pageCount - 1];
     }
 
     @NonNull
     @SuppressFBWarnings("NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE")
-    private List<Object> getPaged(final int offset, final int limit, final String URL) throws ApiClientException {
+    private Page getPaged(final int offset, final int limit, final String URL, final String nameField)
+            throws ApiClientException {
         final var uri = UriComponentsBuilder.fromUriString(URL)
                 .queryParam("limit", "{limit}")
                 .queryParam("offset", "{offset}")
                 .build(limit, offset);
         final var request = createRequest(uri);
-        return executeWithRetry(() -> {
-            try (var response = httpClient.newCall(request).execute()) {
+        return executeWithRetry(lastAttempt -> {
+            try (var response = send(request, lastAttempt)) {
                 if (response.isSuccessful()) {
-                    return getRequestResult(response.body().string());
+                    return JsonResponseParser.readIdNamePage(response.body().byteStream(), offset, nameField);
                 }
-                return new JSONArray();
+                return Page.EMPTY;
+            } catch (ApiClientException e) {
+                throw e;
             } catch (IOException e) {
                 throw new ApiClientException(
                         Messages.ApiClient_Error_Connection(StringUtils.EMPTY, StringUtils.EMPTY), e);
@@ -390,25 +788,147 @@ public class ApiClient {
     @SuppressFBWarnings("NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE")
     private String getScanId(@NonNull final String engagmentId, @NonNull final String scanType)
             throws ApiClientException {
+        final String listed = listedTests.get(testKey(engagmentId, scanType));
+        if (listed != null) {
+            return StringUtils.defaultIfEmpty(listed, null);
+        }
+        return resolve(ResolutionCache.Kind.TEST, engagmentId, scanType, scanIdRequest(engagmentId, scanType));
+    }
+
+    /**
+     * Resolves the tests of several scan types in an engagement with a single
+     * listing of its tests instead of a lookup per scan type. The tests are
+     * remembered by this client, so {@link #prepareImport} does not look them
+     * up again, and found ones are cached for later builds as well. Scan types
+     * already cached, or a single one left, are not listed.
+     *
+     * @return the ids of the tests by scan type, scan types without a test are
+     * missing
+     * @throws ApiClientException if the tests could not be listed
+     */
+    @NonNull
+    public Map<String, String> resolveTests(
+            @NonNull final String engagementId, @NonNull final Collection<String> scanTypes)
+            throws ApiClientException {
+        final Map<String, String> tests = new LinkedHashMap<>();
+        final Set<String> unresolved = new LinkedHashSet<>();
+        for (String scanType : scanTypes) {
+            final String listed = listedTests.get(testKey(engagementId, scanType));
+            final String id =
+                    listed != null ? listed : lookupResolved(ResolutionCache.Kind.TEST, engagementId, scanType);
+            if (id == null) {
+                unresolved.add(scanType);
+            } else if (!id.isEmpty()) {
+                tests.put(scanType, id);
+            }
+        }
+        if (unresolved.size() < 2) {
+            // a single lookup is as cheap as listing the engagement
+            return tests;
+        }
+        final IdNameList listing = getData(
+                TESTS_URL + "?" + LOOKUP_TEST_BY_EGAGEMENT_ID_PARAM + "=" + engagementId, LOOKUP_TEST_PARAM);
+        for (int i = 0; i < listing.size(); i++) {
+            final String scanType = listing.getName(i);
+            // the first test of a scan type, like a lookup by scan type
+            if (unresolved.remove(scanType)) {
+                final String id = Integer.toString(listing.getId(i));
+                tests.put(scanType, id);
+                listedTests.put(testKey(engagementId, scanType), id);
+                cacheResolved(ResolutionCache.Kind.TEST, engagementId, scanType, id);
+            }
+        }
+        for (String scanType : unresolved) {
+            listedTests.put(testKey(engagementId, scanType), StringUtils.EMPTY);
+        }
+        return tests;
+    }
+
+    private static String testKey(final String engagementId, final String scanType) {
+        return engagementId + '|' + scanType;
+    }
+
+    @NonNull
+    Request productIdRequest(final String productName) {
+        final var uri = UriComponentsBuilder.fromUriString(PRODUCT_URL)
+                .queryParam(LOOKUP_NAME_EXACT_PARAM, "{productName}")
+                .build(productName);
+        return createRequest(uri);
+    }
+
+    @NonNull
+    Request engagementIdRequest(@Nullable final String productId, final String engagementName) {
+        final var uriBuilder =
+                UriComponentsBuilder.fromUriString(ENGAGEMENT_URL).queryParam(LOOKUP_NAME_PARAM, "{engagementName}");
+        var uri = uriBuilder.build(engagementName);
+        if (productId != null) {
+            uriBuilder.queryParam(LOOKUP_BY_PRODUCT_ID_PARAM, "{productId}");
+            uri = uriBuilder.build(engagementName, productId);
+        }
+        return createRequest(uri);
+    }
+
+    @NonNull
+    Request scanIdRequest(@NonNull final String engagmentId, @NonNull final String scanType) {
         final var uri = UriComponentsBuilder.fromUriString(TESTS_URL)
                 .queryParam(LOOKUP_TEST_BY_EGAGEMENT_ID_PARAM, "{id}")
                 .queryParam(LOOKUP_TEST_PARAM, "{scanType}")
                 .build(engagmentId, scanType);
-        return getIdFromDojo(createRequest(uri));
+        return createRequest(uri);
+    }
+
+    /**
+     * Looks up an id in the {@link ResolutionCache} and falls back to asking
+     * DefectDojo. Only found ids are cached, so an entity created meanwhile is
+     * picked up by the next lookup.
+     */
+    private String resolve(
+            final ResolutionCache.Kind kind,
+            @Nullable final String parentId,
+            final String name,
+            final Request request)
+            throws ApiClientException {
+        String id = lookupResolved(kind, parentId, name);
+        if (id == null) {
+            id = getIdFromDojo(request);
+            cacheResolved(kind, parentId, name, id);
+        }
+        return id;
     }
 
+    @CheckForNull
+    String lookupResolved(final ResolutionCache.Kind kind, @Nullable final String parentId, final String name) {
+        return resolutionCache.lookup(cacheKey(kind, parentId, name));
+    }
+
+    void cacheResolved(
+            final ResolutionCache.Kind kind,
+            @Nullable final String parentId,
+            final String name,
+            @Nullable final String id) {
+        if (id != null) {
+            resolutionCache.put(cacheKey(kind, parentId, name), id);
+        }
+    }
+
+    void invalidateResolved(final ResolutionCache.Kind kind, @Nullable final String parentId, final String name) {
+        resolutionCache.invalidate(cacheKey(kind, parentId, name));
+    }
+
+    private ResolutionCache.Key cacheKey(
+            final ResolutionCache.Kind kind, @Nullable final String parentId, final String name) {
+        return new ResolutionCache.Key(baseUrl, credentialDigest, kind, parentId, name);
+    }
+
+    /**
+     * Looks up the id of the first entity matching the request. The response
+     * is only read up to that id, regardless of how large it is.
+     */
+    @SuppressFBWarnings("NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE")
     private String getIdFromDojo(final Request request) throws ApiClientException {
-        return executeWithRetry(() -> {
-            try (var response = httpClient.newCall(request).execute()) {
-                final var body = response.body().string();
-                if (!response.isSuccessful()) {
-                    logger.log(body);
-                }
-                final var results = getRequestResult(body);
-                if (results.size() > 0) {
-                    return ((JSONObject) results.get(0)).getString("id");
-                }
-                return null;
+        return executeWithRetry(lastAttempt -> {
+            try (var response = send(request, lastAttempt)) {
+                return readId(response);
             } catch (ApiClientException e) {
                 throw e;
             } catch (IOException e) {
@@ -418,18 +938,53 @@ public class ApiClient {
         });
     }
 
-    private JSONArray getRequestResult(final String response) {
-        return JSONObject.fromObject(response).getJSONArray("results");
+    /**
+     * @return the id of the first result or {@code null} if there are none
+     * @throws ApiClientException if DefectDojo responded with an error
+     */
+    @CheckForNull
+    @SuppressFBWarnings("NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE")
+    String readId(@NonNull final Response response) throws IOException {
+        if (!response.isSuccessful()) {
+            final int status = response.code();
+            logger.log(excerptOf(response.body()));
+            throw new ApiClientException(
+                    Messages.ApiClient_Error_Connection(status, HttpStatus.valueOf(status).getReasonPhrase()));
+        }
+        return JsonResponseParser.readFirstResultId(response.body().byteStream());
+    }
+
+    /**
+     * Reads no more than {@link #MAX_LOGGED_BODY_SIZE} bytes of a response
+     * body, so an error echoing a huge report does not flood the build log.
+     *
+     * @return the beginning of the body followed by a note, if it was
+     * truncated
+     */
+    @NonNull
+    static String excerptOf(@CheckForNull final ResponseBody body) throws IOException {
+        if (body == null) {
+            return StringUtils.EMPTY;
+        }
+        final BufferedSource source = body.source();
+        final boolean truncated = source.request(MAX_LOGGED_BODY_SIZE + 1L);
+        final okhttp3.MediaType contentType = body.contentType();
+        final Charset charset =
+                contentType != null ? contentType.charset(StandardCharsets.UTF_8) : StandardCharsets.UTF_8;
+        final Buffer buffer = source.getBuffer();
+        final String excerpt = buffer.readString(Math.min(buffer.size(), MAX_LOGGED_BODY_SIZE), charset);
+        return truncated ? excerpt + "\n" + Messages.ApiClient_Body_Truncated(MAX_LOGGED_BODY_SIZE) : excerpt;
     }
 
-    @SuppressWarnings("unchecked")
-    private RequestBody createMultipartBody(JSONObject json, @Nullable RequestBody filePart) {
+    @NonNull
+    static RequestBody createMultipartBody(Map<String, String> fields, @Nullable RequestBody filePart) {
         MultipartBody.Builder builder = new MultipartBody.Builder().setType(MultipartBody.FORM);
 
-        // Convert JSON string to form parts
-        json.keySet().forEach(key -> {
-            Object value = json.get(key);
-            builder.addFormDataPart(key.toString(), value.toString());
+        // fields without a value are omitted, like JSONObject used to do
+        fields.forEach((key, value) -> {
+            if (value != null) {
+                builder.addFormDataPart(key, value);
+            }
         });
 
         if (filePart != null) {
@@ -452,25 +1007,129 @@ public class ApiClient {
                 .build();
     }
 
-    private <T, E extends IOException> T executeWithRetry(RetryAction<T, E> action) throws E {
-        final var exceptionClassifier = new ApiClientExceptionClassifier();
-        final var retryPolicy = new CompositeRetryPolicy();
-        final var backOffPolicy = new UniformRandomBackOffPolicy();
-        final var template = new RetryTemplate();
+    private <T, E extends IOException> T executeWithRetry(RetryEngine.Attempt<T, E> attempt) throws E {
+        return retryEngine.execute(attempt);
+    }
 
-        backOffPolicy.setMinBackOffPeriod(50);
-        backOffPolicy.setMaxBackOffPeriod(500);
-        retryPolicy.setPolicies(new RetryPolicy[] {
-            new MaxAttemptsRetryPolicy(2), new BinaryExceptionClassifierRetryPolicy(exceptionClassifier)
-        });
-        template.setBackOffPolicy(backOffPolicy);
-        template.setRetryPolicy(retryPolicy);
+    /**
+     * Sends a request unless calls to the instance are suspended by its
+     * {@link CircuitBreaker}.
+     */
+    private Response send(final Request request, final boolean lastAttempt) throws IOException {
+        circuitBreaker.acquire();
+        rateLimiter.acquire();
+        final RetryContext retryContext = RetrySynchronizationManager.getContext();
+        if (retryContext != null && retryContext.getRetryCount() > 0) {
+            metrics.recordRetry(ApiMetrics.Endpoint.of(request.url()));
+        }
+        final Response response;
+        try {
+            response = httpClient.newCall(request).execute();
+        } catch (IOException e) {
+            retryEngine.recordFailure(circuitBreaker);
+            throw unlessRepeatable(request, e);
+        }
+        checkResponse(response, lastAttempt);
+        return response;
+    }
 
-        return template.execute(ctx -> action.executeWithRetry());
+    /**
+     * @return whether the request creates a product, an engagement or, by
+     * importing a report, a test, which DefectDojo would create twice if it
+     * is sent again after it was processed. A reimport into an existing test
+     * is safe to repeat.
+     */
+    static boolean isCreation(@NonNull final Request request) {
+        final String path = request.url().encodedPath();
+        return "POST".equals(request.method())
+                && (path.endsWith(PRODUCT_URL) || path.endsWith(ENGAGEMENT_URL) || path.endsWith(UPLOAD_URL));
     }
 
-    private interface RetryAction<T, E extends IOException> {
+    /**
+     * @return the failure or, if it might have occurred after DefectDojo
+     * received a creation, e.g. a read timeout, one that is never retried
+     */
+    @NonNull
+    IOException unlessRepeatable(@NonNull final Request request, @NonNull final IOException e) {
+        if (!isCreation(request)
+                || e instanceof ConnectException
+                || e instanceof NoRouteToHostException
+                || e instanceof UnknownHostException) {
+            return e;
+        }
+        return new UnconfirmedCreationException(
+                Messages.ApiClient_Error_CreationUnconfirmed(request.url(), e.getMessage()), e);
+    }
+
+    /**
+     * Tracks the outcome of a call in the {@link CircuitBreaker} and the
+     * {@link RateLimiter}. A status
+     * worth retrying fails the attempt, unless it is the last one and the
+     * response is left to the caller. So is a status of a creation DefectDojo
+     * might have processed, as a product, engagement or test must not be
+     * created twice.
+     *
+     * @throws RetryableStatusException if the attempt is to be retried, the
+     * response is closed then
+     */
+    void checkResponse(@NonNull final Response response, final boolean lastAttempt) throws RetryableStatusException {
+        if (!RetryableStatusException.isRetryable(response.code())) {
+            circuitBreaker.recordSuccess();
+            rateLimiter.recordSuccess();
+            return;
+        }
+        final RetryableStatusException e = RetryableStatusException.of(response);
+        if (e.isOutage()) {
+            retryEngine.recordFailure(circuitBreaker);
+        } else {
+            // throttling, so the instance is up
+            circuitBreaker.recordSuccess();
+            rateLimiter.recordThrottled();
+        }
+        if (!lastAttempt && (e.isUnprocessed() || !isCreation(response.request()))) {
+            response.close();
+            throw e;
+        }
+    }
+
+    /**
+     * a single page of a list endpoint, reduced to the ids and names
+     */
+    @Value
+    static class Page {
+
+        static final Page EMPTY = new Page(IdNameList.EMPTY, 0, false);
+
+        IdNameList results;
+
+        /**
+         * the total number of entities as reported by DefectDojo or -1 if
+         * unknown
+         */
+        int count;
+
+        boolean nextAvailable;
+    }
+
+    /**
+     * A creation failed after it might have reached DefectDojo. Never
+     * retried, as DefectDojo might have created the entity nonetheless.
+     */
+    static final class UnconfirmedCreationException extends ApiClientException {
+
+        private static final long serialVersionUID = 5472209718815341082L;
+
+        UnconfirmedCreationException(final String message, final Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    /**
+     * Notified of the statistics of an accepted import.
+     */
+    @FunctionalInterface
+    interface ImportListener {
 
-        T executeWithRetry() throws E;
+        void imported(@NonNull ImportScanRequest request, @NonNull ImportStatistics statistics);
     }
 }
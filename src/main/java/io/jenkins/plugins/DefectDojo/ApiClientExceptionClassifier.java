@@ -19,7 +19,9 @@ import org.springframework.classify.BinaryExceptionClassifier;
 
 /**
  * custom classifier that classifies only {@link IOException} but excludes
- * {@link ApiClientException}s without any cause.
+ * {@link ApiClientException}s without any cause. Statuses worth retrying are
+ * always classified, calls suspended by an open {@link CircuitBreaker} and
+ * creations that might have reached DefectDojo never.
  */
 class ApiClientExceptionClassifier extends BinaryExceptionClassifier {
 
@@ -29,6 +31,14 @@ class ApiClientExceptionClassifier extends BinaryExceptionClassifier {
 
     @Override
     public Boolean classify(Throwable classifiable) {
+        for (Throwable t = classifiable; t != null; t = t.getCause()) {
+            if (t instanceof CircuitBreaker.OpenException || t instanceof ApiClient.UnconfirmedCreationException) {
+                return false;
+            }
+        }
+        if (RetryableStatusException.find(classifiable) != null) {
+            return true;
+        }
         // pure ApiClientException without any cause will be classified as false
         return super.classify(classifiable)
                 && !(classifiable instanceof ApiClientException && classifiable.getCause() == null);
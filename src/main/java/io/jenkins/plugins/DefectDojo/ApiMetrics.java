@@ -0,0 +1,487 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import lombok.Getter;
+import lombok.Value;
+import okhttp3.HttpUrl;
+
+/**
+ * Controller-wide metrics of the calls to the DefectDojo API, per endpoint.
+ * Recording is lock-free, as it happens for every call. The metrics are
+ * exposed in the Prometheus text format by {@link MetricsRootAction} and, if
+ * installed, through the Metrics plugin.
+ * <p>
+ * An agent uploading a report records into an instance of its own, which is
+ * sent back and {@link #add added} to the controller's. It keeps every call, so
+ * the {@link Listener}s of the controller learn about their latencies, too.
+ */
+final class ApiMetrics implements Serializable {
+
+    private static final long serialVersionUID = 4170982536618724052L;
+
+    /**
+     * the upper bounds in seconds of the latency histogram buckets
+     */
+    static final double[] LATENCY_BUCKETS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60};
+
+    /**
+     * the status errors without a response are recorded with
+     */
+    static final String NO_RESPONSE = "none";
+
+    private static final Endpoint[] UPLOADS = {Endpoint.IMPORT_SCAN, Endpoint.REIMPORT_SCAN};
+
+    private static final ApiMetrics INSTANCE = new ApiMetrics();
+
+    /**
+     * notified of everything recorded in the controller-wide instance
+     */
+    private static final CopyOnWriteArrayList<Listener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    private final Map<Endpoint, EndpointMetrics> endpoints = new EnumMap<>(Endpoint.class);
+
+    /**
+     * the calls recorded, if kept to be added to the controller-wide
+     * instance later
+     */
+    @CheckForNull
+    private final Queue<Call> calls;
+
+    ApiMetrics() {
+        this(false);
+    }
+
+    private ApiMetrics(final boolean keepCalls) {
+        for (Endpoint endpoint : Endpoint.values()) {
+            endpoints.put(endpoint, new EndpointMetrics());
+        }
+        calls = keepCalls ? new ConcurrentLinkedQueue<>() : null;
+    }
+
+    @NonNull
+    static ApiMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return metrics keeping every call, e.g. on an agent, so they can be
+     * {@link #add added} to the controller-wide ones with their latencies
+     */
+    @NonNull
+    static ApiMetrics keepingCalls() {
+        return new ApiMetrics(true);
+    }
+
+    static void addListener(@NonNull final Listener listener) {
+        LISTENERS.addIfAbsent(listener);
+    }
+
+    static void removeListener(@NonNull final Listener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    @NonNull
+    EndpointMetrics of(@NonNull final Endpoint endpoint) {
+        return endpoints.get(endpoint);
+    }
+
+    /**
+     * Records a call DefectDojo responded to.
+     *
+     * @param nanos the time until the response headers arrived
+     * @param requestBytes the length of the request body
+     */
+    void recordCall(
+            @NonNull final Endpoint endpoint, final long nanos, final long requestBytes, final int status) {
+        final EndpointMetrics metrics = of(endpoint);
+        metrics.record(nanos, requestBytes);
+        if (status >= 400) {
+            metrics.recordError(String.valueOf(status));
+        } else if (endpoint.isUpload()) {
+            metrics.uploadBytes.add(requestBytes);
+            metrics.uploadNanos.add(nanos);
+        }
+        called(new Call(endpoint, nanos, requestBytes, status >= 400));
+    }
+
+    /**
+     * Records a call that failed without a response.
+     */
+    void recordFailure(@NonNull final Endpoint endpoint, final long nanos, final long requestBytes) {
+        final EndpointMetrics metrics = of(endpoint);
+        metrics.record(nanos, requestBytes);
+        metrics.recordError(NO_RESPONSE);
+        called(new Call(endpoint, nanos, requestBytes, true));
+    }
+
+    private void called(final Call call) {
+        if (calls != null) {
+            calls.add(call);
+        }
+        if (this == INSTANCE) {
+            LISTENERS.forEach(listener -> listener.onCall(call));
+        }
+    }
+
+    /**
+     * Records bytes read from a response body.
+     */
+    void recordResponseBytes(@NonNull final Endpoint endpoint, final long bytes) {
+        of(endpoint).responseBytes.add(bytes);
+        if (this == INSTANCE) {
+            LISTENERS.forEach(listener -> listener.onResponseBytes(endpoint, bytes));
+        }
+    }
+
+    void recordRetry(@NonNull final Endpoint endpoint) {
+        of(endpoint).retries.increment();
+        if (this == INSTANCE) {
+            LISTENERS.forEach(listener -> listener.onRetries(endpoint, 1));
+        }
+    }
+
+    void reset() {
+        endpoints.values().forEach(EndpointMetrics::reset);
+        if (calls != null) {
+            calls.clear();
+        }
+    }
+
+    /**
+     * Adds the metrics recorded by another instance to this one.
+     */
+    void add(@NonNull final ApiMetrics other) {
+        other.endpoints.forEach((endpoint, metrics) -> of(endpoint).add(metrics));
+        if (this != INSTANCE) {
+            return;
+        }
+        for (Listener listener : LISTENERS) {
+            if (other.calls != null) {
+                other.calls.forEach(listener::onCall);
+            }
+            other.endpoints.forEach((endpoint, metrics) -> {
+                listener.onResponseBytes(endpoint, metrics.getResponseBytes());
+                listener.onRetries(endpoint, metrics.getRetries());
+            });
+        }
+    }
+
+    /**
+     * Writes all metrics in the Prometheus text format 0.0.4.
+     */
+    void writePrometheus(@NonNull final Writer out) throws IOException {
+        writeHeader(
+                out,
+                "defectdojo_api_request_duration_seconds",
+                "histogram",
+                "Time until DefectDojo sent the response headers, including the upload of the request body.");
+        for (Map.Entry<Endpoint, EndpointMetrics> entry : endpoints.entrySet()) {
+            final String label = "endpoint=\"" + entry.getKey().getName() + "\"";
+            final EndpointMetrics metrics = entry.getValue();
+            long cumulative = 0;
+            for (int i = 0; i < LATENCY_BUCKETS.length; i++) {
+                cumulative += metrics.buckets.get(i);
+                out.write(String.format(
+                        Locale.ROOT,
+                        "defectdojo_api_request_duration_seconds_bucket{%s,le=\"%s\"} %d\n",
+                        label,
+                        LATENCY_BUCKETS[i],
+                        cumulative));
+            }
+            final long count = metrics.getRequests();
+            out.write(String.format(
+                    Locale.ROOT,
+                    "defectdojo_api_request_duration_seconds_bucket{%s,le=\"+Inf\"} %d\n",
+                    label,
+                    count));
+            out.write(String.format(
+                    Locale.ROOT,
+                    "defectdojo_api_request_duration_seconds_sum{%s} %s\n",
+                    label,
+                    seconds(metrics.latencyNanos.sum())));
+            out.write(String.format(
+                    Locale.ROOT, "defectdojo_api_request_duration_seconds_count{%s} %d\n", label, count));
+        }
+        writeCounter(out, "defectdojo_api_request_bytes_total", "Bytes of request bodies sent.", m -> m.requestBytes);
+        writeCounter(
+                out, "defectdojo_api_response_bytes_total", "Bytes of response bodies read.", m -> m.responseBytes);
+        writeCounter(out, "defectdojo_api_retries_total", "Calls retried.", m -> m.retries);
+        writeHeader(out, "defectdojo_api_errors_total", "counter", "Calls failed, by status.");
+        for (Map.Entry<Endpoint, EndpointMetrics> entry : endpoints.entrySet()) {
+            for (Map.Entry<String, Long> error : entry.getValue().getErrors().entrySet()) {
+                out.write(String.format(
+                        Locale.ROOT,
+                        "defectdojo_api_errors_total{endpoint=\"%s\",status=\"%s\"} %d\n",
+                        entry.getKey().getName(),
+                        error.getKey(),
+                        error.getValue()));
+            }
+        }
+        writeHeader(out, "defectdojo_upload_bytes_total", "counter", "Bytes of reports uploaded successfully.");
+        for (Endpoint endpoint : UPLOADS) {
+            out.write(String.format(
+                    Locale.ROOT,
+                    "defectdojo_upload_bytes_total{endpoint=\"%s\"} %d\n",
+                    endpoint.getName(),
+                    of(endpoint).uploadBytes.sum()));
+        }
+        writeHeader(
+                out,
+                "defectdojo_upload_duration_seconds_total",
+                "counter",
+                "Time spent on successful uploads, the throughput is the rate of bytes over this.");
+        for (Endpoint endpoint : UPLOADS) {
+            out.write(String.format(
+                    Locale.ROOT,
+                    "defectdojo_upload_duration_seconds_total{endpoint=\"%s\"} %s\n",
+                    endpoint.getName(),
+                    seconds(of(endpoint).uploadNanos.sum())));
+        }
+    }
+
+    private void writeCounter(
+            final Writer out,
+            final String name,
+            final String help,
+            final Function<EndpointMetrics, LongAdder> counter)
+            throws IOException {
+        writeHeader(out, name, "counter", help);
+        for (Map.Entry<Endpoint, EndpointMetrics> entry : endpoints.entrySet()) {
+            out.write(String.format(
+                    Locale.ROOT,
+                    "%s{endpoint=\"%s\"} %d\n",
+                    name,
+                    entry.getKey().getName(),
+                    counter.apply(entry.getValue()).sum()));
+        }
+    }
+
+    private static void writeHeader(final Writer out, final String name, final String type, final String help)
+            throws IOException {
+        out.write(String.format(Locale.ROOT, "# HELP %s %s\n# TYPE %s %s\n", name, help, name, type));
+    }
+
+    private static String seconds(final long nanos) {
+        return String.valueOf((double) nanos / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * a single call to DefectDojo
+     */
+    @Value
+    static class Call implements Serializable {
+
+        private static final long serialVersionUID = 6124580379014472931L;
+
+        Endpoint endpoint;
+
+        /**
+         * the time until the response headers arrived
+         */
+        long nanos;
+
+        long requestBytes;
+
+        /**
+         * whether the call failed with an error status or without a response
+         */
+        boolean error;
+    }
+
+    /**
+     * notified of everything recorded in the controller-wide metrics, e.g. to
+     * publish it through the Metrics plugin
+     */
+    interface Listener {
+
+        void onCall(@NonNull Call call);
+
+        void onResponseBytes(@NonNull Endpoint endpoint, long bytes);
+
+        void onRetries(@NonNull Endpoint endpoint, long retries);
+    }
+
+    /**
+     * the endpoints of the DefectDojo API the plugin calls
+     */
+    enum Endpoint {
+        IMPORT_SCAN("import-scan", ApiClient.UPLOAD_URL),
+        REIMPORT_SCAN("reimport-scan", ApiClient.REUPLOAD_URL),
+        PRODUCTS("products", ApiClient.PRODUCT_URL),
+        ENGAGEMENTS("engagements", ApiClient.ENGAGEMENT_URL),
+        TESTS("tests", ApiClient.TESTS_URL),
+        TEST_TYPES("test_types", ApiClient.SCAN_TYPE_URL),
+        OTHER("other", null);
+
+        @Getter
+        private final String name;
+
+        private final String path;
+
+        Endpoint(final String name, final String path) {
+            this.name = name;
+            this.path = path;
+        }
+
+        boolean isUpload() {
+            return this == IMPORT_SCAN || this == REIMPORT_SCAN;
+        }
+
+        @NonNull
+        static Endpoint of(@NonNull final HttpUrl url) {
+            final String urlPath = url.encodedPath();
+            for (Endpoint endpoint : values()) {
+                // the base URL may have a path of its own
+                if (endpoint.path != null && urlPath.contains(endpoint.path)) {
+                    return endpoint;
+                }
+            }
+            return OTHER;
+        }
+    }
+
+    /**
+     * the metrics of a single endpoint
+     */
+    static final class EndpointMetrics implements Serializable {
+
+        private static final long serialVersionUID = 2830157420961583704L;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(LATENCY_BUCKETS.length);
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder latencyNanos = new LongAdder();
+        private final LongAdder requestBytes = new LongAdder();
+
+        private final LongAdder responseBytes = new LongAdder();
+
+        private final LongAdder retries = new LongAdder();
+        private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+        private final LongAdder uploadBytes = new LongAdder();
+        private final LongAdder uploadNanos = new LongAdder();
+
+        private void record(final long nanos, final long bytes) {
+            requests.increment();
+            latencyNanos.add(nanos);
+            requestBytes.add(Math.max(bytes, 0));
+            final double seconds = (double) nanos / TimeUnit.SECONDS.toNanos(1);
+            for (int i = 0; i < LATENCY_BUCKETS.length; i++) {
+                if (seconds <= LATENCY_BUCKETS[i]) {
+                    buckets.incrementAndGet(i);
+                    break;
+                }
+            }
+        }
+
+        private void recordError(final String status) {
+            errors.computeIfAbsent(status, s -> new LongAdder()).increment();
+        }
+
+        private void add(final EndpointMetrics other) {
+            for (int i = 0; i < buckets.length(); i++) {
+                buckets.addAndGet(i, other.buckets.get(i));
+            }
+            requests.add(other.requests.sum());
+            latencyNanos.add(other.latencyNanos.sum());
+            requestBytes.add(other.requestBytes.sum());
+            responseBytes.add(other.responseBytes.sum());
+            retries.add(other.retries.sum());
+            uploadBytes.add(other.uploadBytes.sum());
+            uploadNanos.add(other.uploadNanos.sum());
+            for (Map.Entry<String, LongAdder> error : other.errors.entrySet()) {
+                errors.computeIfAbsent(error.getKey(), s -> new LongAdder()).add(error.getValue().sum());
+            }
+        }
+
+        private void reset() {
+            for (int i = 0; i < buckets.length(); i++) {
+                buckets.set(i, 0);
+            }
+            requests.reset();
+            latencyNanos.reset();
+            requestBytes.reset();
+            responseBytes.reset();
+            retries.reset();
+            uploadBytes.reset();
+            uploadNanos.reset();
+            errors.clear();
+        }
+
+        long getRequests() {
+            return requests.sum();
+        }
+
+        /**
+         * @return the total latency in milliseconds
+         */
+        long getLatency() {
+            return TimeUnit.NANOSECONDS.toMillis(latencyNanos.sum());
+        }
+
+        long getRequestBytes() {
+            return requestBytes.sum();
+        }
+
+        long getResponseBytes() {
+            return responseBytes.sum();
+        }
+
+        long getRetries() {
+            return retries.sum();
+        }
+
+        /**
+         * @return the number of errors by status
+         */
+        @NonNull
+        Map<String, Long> getErrors() {
+            final Map<String, Long> counts = new TreeMap<>();
+            errors.forEach((status, count) -> counts.put(status, count.sum()));
+            return Collections.unmodifiableMap(counts);
+        }
+
+        long getErrorCount() {
+            return errors.values().stream().mapToLong(LongAdder::sum).sum();
+        }
+
+        long getUploadBytes() {
+            return uploadBytes.sum();
+        }
+
+        /**
+         * @return the time in milliseconds spent on successful uploads
+         */
+        long getUploadTime() {
+            return TimeUnit.NANOSECONDS.toMillis(uploadNanos.sum());
+        }
+    }
+}
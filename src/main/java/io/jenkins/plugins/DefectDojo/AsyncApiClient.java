@@ -0,0 +1,234 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import jenkins.util.Timer;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Non-blocking variant of {@link ApiClient}. Calls are enqueued with OkHttp's
+ * dispatcher and completed from its callbacks, retries are scheduled instead
+ * of sleeping, so no thread waits for DefectDojo. Requests, responses, retries,
+ * the circuit breaker and the caching of resolved ids are handled exactly like
+ * by {@link ApiClient}. Requests waiting for their turn at the
+ * {@link RateLimiter} are scheduled as well.
+ * <p>
+ * Cancelling a returned future cancels the call in flight.
+ */
+public class AsyncApiClient {
+
+    private final ApiClient client;
+    private final ScheduledExecutorService scheduler;
+
+    AsyncApiClient(@NonNull final ApiClient client) {
+        this(client, Timer.get());
+    }
+
+    AsyncApiClient(@NonNull final ApiClient client, @NonNull final ScheduledExecutorService scheduler) {
+        this.client = client;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * @see ApiClient#getProductId(String)
+     */
+    @NonNull
+    public CompletableFuture<String> getProductId(final String productName) {
+        return resolve(ResolutionCache.Kind.PRODUCT, null, productName, client.productIdRequest(productName));
+    }
+
+    /**
+     * @see ApiClient#getEngagementId(String, String)
+     */
+    @NonNull
+    public CompletableFuture<String> getEngagementId(@Nullable final String productId, final String engagementName) {
+        return resolve(
+                ResolutionCache.Kind.ENGAGEMENT,
+                productId,
+                engagementName,
+                client.engagementIdRequest(productId, engagementName));
+    }
+
+    /**
+     * @see ApiClient#createProduct(String, String)
+     */
+    @NonNull
+    public CompletableFuture<String> createProduct(final String productName, @Nullable final String origin) {
+        client.invalidateResolved(ResolutionCache.Kind.PRODUCT, null, productName);
+        return call(client.createProductRequest(productName, origin), client::readCreatedId);
+    }
+
+    /**
+     * @see ApiClient#createEngagement(String, String, String)
+     */
+    @NonNull
+    public CompletableFuture<String> createEngagement(
+            final String engagementName, final String productId, @Nullable final String sourceCodeUrl) {
+        client.invalidateResolved(ResolutionCache.Kind.ENGAGEMENT, productId, engagementName);
+        return call(client.createEngagementRequest(engagementName, productId, sourceCodeUrl), client::readCreatedId);
+    }
+
+    /**
+     * @see ApiClient#prepareImport(String, String, String, String, String,
+     * String, boolean)
+     */
+    @NonNull
+    public CompletableFuture<ImportScanRequest> prepareImport(
+            final String projectId,
+            final String engagementId,
+            @Nullable final String sourceCodeUri,
+            @Nullable final String branchTag,
+            @Nullable final String commitHash,
+            @NonNull final String scanType,
+            final boolean reuploadScan) {
+        final CompletableFuture<String> scanId = StringUtils.isNotBlank(engagementId)
+                ? resolve(
+                        ResolutionCache.Kind.TEST,
+                        engagementId,
+                        scanType,
+                        client.scanIdRequest(engagementId, scanType))
+                : CompletableFuture.completedFuture(null);
+        return scanId.thenApply(id -> client.createImportScanRequest(
+                projectId, engagementId, sourceCodeUri, branchTag, commitHash, scanType, reuploadScan, id));
+    }
+
+    /**
+     * @see ApiClient#importScan(ImportScanRequest, RequestBody)
+     */
+    @NonNull
+    public CompletableFuture<Boolean> importScan(
+            @NonNull final ImportScanRequest importRequest, @NonNull final RequestBody report) {
+        return call(
+                client.createImportRequest(importRequest, report),
+                response -> client.readImportResult(importRequest, response));
+    }
+
+    private CompletableFuture<String> resolve(
+            final ResolutionCache.Kind kind,
+            @Nullable final String parentId,
+            final String name,
+            final Request request) {
+        final String cached = client.lookupResolved(kind, parentId, name);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return call(request, client::readId).thenApply(id -> {
+            client.cacheResolved(kind, parentId, name, id);
+            return id;
+        });
+    }
+
+    /**
+     * Enqueues the request and retries like {@link ApiClient} does.
+     */
+    private <T> CompletableFuture<T> call(final Request request, final ResponseHandler<T> handler) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        attempt(request, handler, result, 1);
+        return result;
+    }
+
+    private <T> void attempt(
+            final Request request, final ResponseHandler<T> handler, final CompletableFuture<T> result, final int n) {
+        if (result.isDone()) {
+            return;
+        }
+        try {
+            client.getCircuitBreaker().acquire();
+        } catch (CircuitBreaker.OpenException e) {
+            result.completeExceptionally(e);
+            return;
+        }
+        if (n > 1) {
+            client.getMetrics().recordRetry(ApiMetrics.Endpoint.of(request.url()));
+        }
+        final long wait = client.getRateLimiter().reserve();
+        if (wait > 0) {
+            scheduler.schedule(() -> enqueue(request, handler, result, n), wait, TimeUnit.NANOSECONDS);
+        } else {
+            enqueue(request, handler, result, n);
+        }
+    }
+
+    private <T> void enqueue(
+            final Request request, final ResponseHandler<T> handler, final CompletableFuture<T> result, final int n) {
+        if (result.isDone()) {
+            return;
+        }
+        final Call call = client.getHttpClient().newCall(request);
+        result.whenComplete((value, e) -> {
+            if (result.isCancelled()) {
+                call.cancel();
+            }
+        });
+        call.enqueue(new Callback() {
+            @Override
+            public void onResponse(@NonNull final Call call, @NonNull final Response response) {
+                try (response) {
+                    client.checkResponse(response, client.getRetryEngine().isLastAttempt(n));
+                    result.complete(handler.handle(response));
+                } catch (IOException e) {
+                    retryOrFail(request, handler, result, n, e);
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull final Call call, @NonNull final IOException e) {
+                client.getRetryEngine().recordFailure(client.getCircuitBreaker());
+                retryOrFail(request, handler, result, n, client.unlessRepeatable(request, e));
+            }
+        });
+    }
+
+    private <T> void retryOrFail(
+            final Request request,
+            final ResponseHandler<T> handler,
+            final CompletableFuture<T> result,
+            final int n,
+            final IOException e) {
+        final RetryEngine retryEngine = client.getRetryEngine();
+        if (retryEngine.shouldRetry(n, e) && !result.isDone()) {
+            scheduler.schedule(
+                    () -> attempt(request, handler, result, n + 1),
+                    retryEngine.backOff(n, e),
+                    TimeUnit.MILLISECONDS);
+        } else {
+            result.completeExceptionally(wrap(e));
+        }
+    }
+
+    private static ApiClientException wrap(final IOException e) {
+        return e instanceof ApiClientException
+                ? (ApiClientException) e
+                : new ApiClientException(Messages.ApiClient_Error_Connection(StringUtils.EMPTY, StringUtils.EMPTY), e);
+    }
+
+    @FunctionalInterface
+    private interface ResponseHandler<T> {
+
+        T handle(Response response) throws IOException;
+    }
+}
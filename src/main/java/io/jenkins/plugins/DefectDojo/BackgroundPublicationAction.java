@@ -0,0 +1,135 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Run;
+import jenkins.model.RunAction2;
+
+/**
+ * The outcome of the publications running in the background that the build
+ * did not collect with {@code defectDojoWait}. They complete after the
+ * build, so their outcome is shown on the build page rather than changing
+ * its result.
+ */
+public class BackgroundPublicationAction implements RunAction2 {
+
+    /**
+     * guards attaching the action, core locks on the build itself
+     */
+    private static final Object ATTACH_LOCK = new Object();
+
+    private transient Run<?, ?> run;
+
+    private int publications;
+
+    /**
+     * the number of failed publications or {@code null} while they are still
+     * running
+     */
+    @CheckForNull
+    private Integer failures;
+
+    /**
+     * the seconds after which the publications were cancelled, 0 if they
+     * completed in time
+     */
+    private int timeout;
+
+    /**
+     * @return the action of the build, attached if not yet present
+     */
+    @NonNull
+    static BackgroundPublicationAction of(@NonNull final Run<?, ?> run) {
+        synchronized (ATTACH_LOCK) {
+            BackgroundPublicationAction action = run.getAction(BackgroundPublicationAction.class);
+            if (action == null) {
+                action = new BackgroundPublicationAction();
+                action.run = run;
+                run.addAction(action);
+            }
+            return action;
+        }
+    }
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.Background_DisplayName();
+    }
+
+    @Override
+    public String getUrlName() {
+        return null;
+    }
+
+    @Override
+    public void onAttached(final Run<?, ?> r) {
+        run = r;
+    }
+
+    @Override
+    public void onLoad(final Run<?, ?> r) {
+        run = r;
+    }
+
+    /**
+     * Records publications left running when the build completed.
+     */
+    void started(final int count) {
+        synchronized (this) {
+            publications += count;
+            failures = null;
+        }
+        save();
+    }
+
+    /**
+     * Records the outcome of the publications once all of them are done.
+     *
+     * @param timeout the seconds after which they were cancelled, 0 if they
+     * completed in time
+     */
+    void completed(final int failures, final int timeout) {
+        synchronized (this) {
+            this.failures = failures;
+            this.timeout = timeout;
+        }
+        save();
+    }
+
+    public synchronized int getPublications() {
+        return publications;
+    }
+
+    @CheckForNull
+    public synchronized Integer getFailures() {
+        return failures;
+    }
+
+    public synchronized int getTimeout() {
+        return timeout;
+    }
+
+    private void save() {
+        if (run != null) {
+            PluginUtil.saveIfCompleted(run);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Takes over the background publications a build did not collect itself.
+ * The completing build does not wait for them, their outcome is recorded in
+ * a {@link BackgroundPublicationAction} once they are done. Publications
+ * still running after the global timeout are cancelled.
+ */
+@Extension
+public class BackgroundPublicationListener extends RunListener<Run<?, ?>> {
+
+    private static final Logger LOGGER = Logger.getLogger(BackgroundPublicationListener.class.getName());
+
+    @Override
+    public void onCompleted(final Run<?, ?> run, @NonNull final TaskListener listener) {
+        final List<CompletableFuture<Boolean>> results = BackgroundPublications.get().take(run);
+        if (results.isEmpty()) {
+            return;
+        }
+        new ConsoleLogger(listener.getLogger()).log(Messages.Background_Uncollected(results.size()));
+        final BackgroundPublicationAction action = BackgroundPublicationAction.of(run);
+        action.started(results.size());
+        final int timeout = getTimeout();
+        BackgroundPublications.countFailures(results)
+                .orTimeout(timeout, TimeUnit.SECONDS)
+                .whenComplete((failures, e) -> {
+                    if (e instanceof TimeoutException) {
+                        results.forEach(result -> result.cancel(true));
+                        action.completed(results.size(), timeout);
+                    } else {
+                        action.completed(e != null ? results.size() : failures, 0);
+                    }
+                    if (e != null || failures > 0) {
+                        LOGGER.log(Level.WARNING, e, () -> "Publications of " + run + " to DefectDojo failed");
+                    }
+                });
+    }
+
+    private static int getTimeout() {
+        final DescriptorImpl descriptor = PluginUtil.getGlobalConfig();
+        if (descriptor == null) {
+            return BackgroundPublications.DEFAULT_TIMEOUT;
+        }
+        return Math.max(descriptor.getDefectDojoBackgroundTimeout(), 1);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Run;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Controller-wide registry of the publications running in the background,
+ * per build. They are collected by {@link DefectDojoWaitStep} or, at the
+ * latest, when the build completes.
+ */
+final class BackgroundPublications {
+
+    /**
+     * the seconds publications not collected may run after their build
+     * completed
+     */
+    static final int DEFAULT_TIMEOUT = 1800;
+
+    private static final BackgroundPublications INSTANCE = new BackgroundPublications();
+
+    /**
+     * the pending publications by the externalizable id of their build
+     */
+    private final Map<String, List<CompletableFuture<Boolean>>> pending = new HashMap<>();
+
+    @NonNull
+    static BackgroundPublications get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param run the build the publication belongs to
+     * @param result completes with {@code true} if all reports were uploaded
+     */
+    synchronized void register(@NonNull final Run<?, ?> run, @NonNull final CompletableFuture<Boolean> result) {
+        pending.computeIfAbsent(run.getExternalizableId(), id -> new ArrayList<>()).add(result);
+    }
+
+    /**
+     * Removes the publications of a build, so each one is collected once.
+     *
+     * @return the publications started by the build since the last call
+     */
+    @NonNull
+    synchronized List<CompletableFuture<Boolean>> take(@NonNull final Run<?, ?> run) {
+        final List<CompletableFuture<Boolean>> results = pending.remove(run.getExternalizableId());
+        return results != null ? results : Collections.emptyList();
+    }
+
+    synchronized int size() {
+        return pending.values().stream().mapToInt(List::size).sum();
+    }
+
+    /**
+     * @return completes with the number of publications that failed, were
+     * cancelled or did not upload every report, once all are done
+     */
+    @NonNull
+    static CompletableFuture<Integer> countFailures(@NonNull final List<CompletableFuture<Boolean>> results) {
+        final List<CompletableFuture<Boolean>> outcomes = results.stream()
+                .map(result -> result.handle((success, e) -> e == null && Boolean.TRUE.equals(success)))
+                .collect(Collectors.toList());
+        return CompletableFuture.allOf(outcomes.toArray(new CompletableFuture<?>[0]))
+                .thenApply(done -> (int) outcomes.stream().filter(outcome -> !outcome.join()).count());
+    }
+}
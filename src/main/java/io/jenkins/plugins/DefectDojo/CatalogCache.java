@@ -0,0 +1,179 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import lombok.Value;
+
+/**
+ * Controller-wide stale-while-revalidate cache of the products, engagements
+ * and scan types shown in the job configuration. A list older than the max.
+ * age is still served right away, but refreshed in the background, so opening
+ * a job configuration does not wait for DefectDojo once the list is known.
+ */
+final class CatalogCache {
+
+    static final int DEFAULT_MAX_AGE = 300;
+
+    /**
+     * the maximum number of lists kept, there is one engagement list per
+     * product
+     */
+    static final int MAX_ENTRIES = 256;
+
+    private static final Logger LOGGER = Logger.getLogger(CatalogCache.class.getName());
+
+    private static final CatalogCache INSTANCE = new CatalogCache(System::nanoTime, PluginExecutors.io());
+
+    /**
+     * entries in access order, so the eldest one is the least recently used
+     */
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LongSupplier nanoClock;
+    private final ExecutorService executor;
+
+    CatalogCache(@NonNull final LongSupplier nanoClock, @NonNull final ExecutorService executor) {
+        this.nanoClock = nanoClock;
+        this.executor = executor;
+    }
+
+    @NonNull
+    static CatalogCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the cached list. A missing list is loaded right away, a stale
+     * one is returned and refreshed in the background.
+     *
+     * @param key the list to get
+     * @param maxAge the age in seconds after which a list is refreshed. The
+     * cache is bypassed if not positive.
+     * @param loader loads the list from DefectDojo
+     * @return the list
+     * @throws ApiClientException if a missing list could not be loaded
+     */
+    @NonNull
+    IdNameList get(@NonNull final Key key, final int maxAge, @NonNull final Loader loader) throws ApiClientException {
+        if (maxAge <= 0) {
+            return loader.load();
+        }
+        final Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null) {
+                if (nanoClock.getAsLong() - entry.loadedAt >= TimeUnit.SECONDS.toNanos(maxAge) && !entry.refreshing) {
+                    entry.refreshing = true;
+                    executor.execute(() -> refresh(key, entry, loader));
+                }
+                return entry.list;
+            }
+        }
+        final IdNameList list = loader.load();
+        store(key, list);
+        return list;
+    }
+
+    /**
+     * Drops all lists of a DefectDojo instance and credential, so they are
+     * loaded anew on the next request.
+     */
+    synchronized void invalidate(@NonNull final String baseUrl, @NonNull final String credential) {
+        entries.keySet().removeIf(key -> baseUrl.equals(key.getBaseUrl()) && credential.equals(key.getCredential()));
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private void refresh(final Key key, final Entry entry, final Loader loader) {
+        try {
+            store(key, loader.load());
+        } catch (ApiClientException | RuntimeException e) {
+            LOGGER.log(Level.FINE, e, () -> "Refreshing " + key.getKind() + " from " + key.getBaseUrl() + " failed");
+            synchronized (this) {
+                // serve the stale list and retry with the next request
+                entry.refreshing = false;
+            }
+        }
+    }
+
+    private synchronized void store(final Key key, final IdNameList list) {
+        entries.put(key, new Entry(list, nanoClock.getAsLong()));
+        final Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > MAX_ENTRIES) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    enum Kind {
+        PRODUCTS,
+        ENGAGEMENTS,
+        SCAN_TYPES
+    }
+
+    /**
+     * Identifies a list. The credential is only stored as a digest.
+     */
+    @Value
+    static class Key {
+
+        String baseUrl;
+        String credential;
+        Kind kind;
+
+        /**
+         * the id of the product engagements are listed for, if any
+         */
+        @Nullable
+        String parentId;
+    }
+
+    private static final class Entry {
+
+        final IdNameList list;
+        final long loadedAt;
+
+        /**
+         * whether a background refresh is pending, guarded by the cache
+         */
+        boolean refreshing;
+
+        Entry(final IdNameList list, final long loadedAt) {
+            this.list = list;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    @FunctionalInterface
+    interface Loader {
+
+        @NonNull
+        IdNameList load() throws ApiClientException;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import lombok.Getter;
+
+/**
+ * Circuit breaker per DefectDojo instance. Once a number of calls in a row
+ * failed because the instance was unreachable or unavailable, further calls
+ * fail right away for a while instead of each one waiting for its timeouts.
+ * Afterwards a single trial call is let through. Its success closes the
+ * circuit, its failure opens it anew. Should the trial end without either,
+ * e.g. because it was cancelled, another one is let through after the same
+ * time.
+ */
+final class CircuitBreaker {
+
+    static final int DEFAULT_THRESHOLD = 5;
+    static final int DEFAULT_OPEN_DURATION = 30;
+
+    private static final Map<String, CircuitBreaker> INSTANCES = new ConcurrentHashMap<>();
+
+    @Getter
+    private final String baseUrl;
+
+    private final LongSupplier nanoClock;
+
+    private int consecutiveFailures;
+
+    /**
+     * whether the circuit was opened and not closed by a successful call
+     * since
+     */
+    private boolean open;
+
+    private long openUntil;
+
+    private long openNanos;
+
+    CircuitBreaker(@NonNull final String baseUrl, @NonNull final LongSupplier nanoClock) {
+        this.baseUrl = baseUrl;
+        this.nanoClock = nanoClock;
+    }
+
+    @NonNull
+    static CircuitBreaker forInstance(@NonNull final String baseUrl) {
+        return INSTANCES.computeIfAbsent(baseUrl, url -> new CircuitBreaker(url, System::nanoTime));
+    }
+
+    @NonNull
+    static Collection<CircuitBreaker> all() {
+        return Collections.unmodifiableCollection(INSTANCES.values());
+    }
+
+    /**
+     * @throws OpenException if calls to the instance are suspended
+     */
+    synchronized void acquire() throws OpenException {
+        if (open) {
+            final long remaining = openUntil - nanoClock.getAsLong();
+            if (remaining > 0) {
+                throw new OpenException(Messages.ApiClient_Error_CircuitOpen(
+                        baseUrl, Math.max(TimeUnit.NANOSECONDS.toSeconds(remaining), 1)));
+            }
+            // this call is the trial, the others keep failing until its outcome
+            openUntil = nanoClock.getAsLong() + openNanos;
+        }
+    }
+
+    synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        open = false;
+    }
+
+    /**
+     * @param threshold the number of failures in a row opening the circuit,
+     * not positive to never open it
+     * @param openDuration the time in seconds calls are suspended
+     */
+    synchronized void recordFailure(final int threshold, final int openDuration) {
+        if (threshold <= 0) {
+            return;
+        }
+        consecutiveFailures++;
+        // a failure right after the circuit was open opens it again
+        if (open || consecutiveFailures >= threshold) {
+            open = true;
+            openNanos = TimeUnit.SECONDS.toNanos(openDuration);
+            openUntil = nanoClock.getAsLong() + openNanos;
+        }
+    }
+
+    /**
+     * @return whether calls are currently suspended
+     */
+    synchronized boolean isOpen() {
+        return open && openUntil - nanoClock.getAsLong() > 0;
+    }
+
+    synchronized void reset() {
+        consecutiveFailures = 0;
+        open = false;
+    }
+
+    /**
+     * Calls to the instance are suspended. Never retried.
+     */
+    static final class OpenException extends ApiClientException {
+
+        private static final long serialVersionUID = -6003146287718233573L;
+
+        OpenException(final String message) {
+            super(message);
+        }
+    }
+}
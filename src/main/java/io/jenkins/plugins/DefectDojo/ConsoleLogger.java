@@ -16,10 +16,18 @@ package io.jenkins.plugins.DefectDojo;
 import hudson.console.LineTransformationOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 
 public class ConsoleLogger extends LineTransformationOutputStream {
 
     private static final String PREFIX = "[DefectDojo] ";
+
+    /**
+     * the prefix encoded once, it is pure ASCII and thus the same in every
+     * charset of a build log
+     */
+    private static final byte[] PREFIX_BYTES = PREFIX.getBytes(StandardCharsets.US_ASCII);
+
     private final PrintStream logger;
 
     protected ConsoleLogger(PrintStream logger) {
@@ -36,7 +44,22 @@ public class ConsoleLogger extends LineTransformationOutputStream {
      * @param message The message to log
      */
     protected void log(final String message) {
-        logger.println(PREFIX + message.replace("\n", "\n" + PREFIX));
+        // lines of concurrent messages must not interleave
+        synchronized (logger) {
+            int start = 0;
+            for (int end = message.indexOf('\n'); end >= 0; end = message.indexOf('\n', start)) {
+                logger.write(PREFIX_BYTES, 0, PREFIX_BYTES.length);
+                logger.append(message, start, end + 1);
+                start = end + 1;
+            }
+            logger.write(PREFIX_BYTES, 0, PREFIX_BYTES.length);
+            if (start == 0) {
+                logger.println(message);
+            } else {
+                logger.append(message, start, message.length());
+                logger.println();
+            }
+        }
     }
 
     /**
@@ -48,7 +71,9 @@ public class ConsoleLogger extends LineTransformationOutputStream {
      */
     @Override
     protected void eol(final byte[] b, final int len) throws IOException {
-        logger.append(PREFIX);
-        logger.write(b, 0, len);
+        synchronized (logger) {
+            logger.write(PREFIX_BYTES, 0, PREFIX_BYTES.length);
+            logger.write(b, 0, len);
+        }
     }
 }
@@ -0,0 +1,247 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.ManagementLink;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import jenkins.model.Jenkins;
+import lombok.Value;
+import org.kohsuke.stapler.HttpRedirect;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.verb.POST;
+
+/**
+ * Shows the state of the plugin's controller-wide caches under Manage Jenkins.
+ */
+@Extension
+public class DefectDojoManagementLink extends ManagementLink {
+
+    @Override
+    public String getIconFileName() {
+        return "symbol-analytics";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.ManagementLink_DisplayName();
+    }
+
+    @Override
+    public String getDescription() {
+        return Messages.ManagementLink_Description();
+    }
+
+    @Override
+    public String getUrlName() {
+        return "defectdojo";
+    }
+
+    @NonNull
+    @Override
+    public Category getCategory() {
+        return Category.STATUS;
+    }
+
+    public int getCacheSize() {
+        return ResolutionCache.get().size();
+    }
+
+    public long getCacheHits() {
+        return ResolutionCache.get().getHits();
+    }
+
+    public long getCacheMisses() {
+        return ResolutionCache.get().getMisses();
+    }
+
+    public long getCacheEvictions() {
+        return ResolutionCache.get().getEvictions();
+    }
+
+    /**
+     * @return the percentage of lookups served from the cache
+     */
+    public int getCacheHitRatio() {
+        final long hits = getCacheHits();
+        final long total = hits + getCacheMisses();
+        return total > 0 ? (int) (hits * 100 / total) : 0;
+    }
+
+    /**
+     * @return the number of cached selection lists
+     */
+    public int getCatalogCount() {
+        return CatalogCache.get().size();
+    }
+
+    /**
+     * @return the number of tests the digest of the last uploaded report is
+     * known for
+     */
+    public int getUploadIndexSize() {
+        return UploadIndex.get().size();
+    }
+
+    /**
+     * @return the base URLs of the instances calls are suspended for
+     */
+    public List<String> getSuspendedInstances() {
+        return CircuitBreaker.all().stream()
+                .filter(CircuitBreaker::isOpen)
+                .map(CircuitBreaker::getBaseUrl)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return the state of the rate limiters of the instances called so far
+     */
+    public List<Throttling> getThrottling() {
+        return RateLimiter.all().stream()
+                .sorted(Comparator.comparing(RateLimiter::getBaseUrl))
+                .map(Throttling::of)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return the number of background publications not yet collected
+     */
+    public int getBackgroundCount() {
+        return BackgroundPublications.get().size();
+    }
+
+    /**
+     * @return the uploads spooled to the outbox, oldest first
+     */
+    public List<SpooledUpload> getOutbox() {
+        return Outbox.get().list().stream().map(SpooledUpload::of).collect(Collectors.toList());
+    }
+
+    /**
+     * @return the total size in bytes of the reports spooled to the outbox
+     */
+    public long getOutboxLength() {
+        return Outbox.get().totalLength();
+    }
+
+    @POST
+    public HttpResponse doDrainOutbox() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        ExtensionList.lookupSingleton(OutboxDrainer.class).run();
+        return new HttpRedirect(".");
+    }
+
+    @POST
+    public HttpResponse doDiscardOutboxItem(@QueryParameter final String id) {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        final OutboxItem item = Outbox.get().find(id);
+        if (item != null) {
+            Outbox.get().remove(item);
+        }
+        return new HttpRedirect(".");
+    }
+
+    @POST
+    public HttpResponse doClearCache() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        ResolutionCache.get().clear();
+        CatalogCache.get().clear();
+        UploadIndex.get().clear();
+        ServerCapabilities.clear();
+        return new HttpRedirect(".");
+    }
+
+    /**
+     * the state of the rate limiter of a DefectDojo instance
+     */
+    @Value
+    public static class Throttling {
+
+        String baseUrl;
+        int limit;
+
+        /**
+         * the current requests per second
+         */
+        long rate;
+
+        int queueDepth;
+        long acquired;
+        long delayed;
+
+        /**
+         * in milliseconds
+         */
+        long averageWait;
+
+        /**
+         * in milliseconds
+         */
+        long maxWait;
+
+        static Throttling of(final RateLimiter limiter) {
+            return new Throttling(
+                    limiter.getBaseUrl(),
+                    limiter.getLimit(),
+                    Math.round(limiter.getRate()),
+                    limiter.getQueueDepth(),
+                    limiter.getAcquired(),
+                    limiter.getDelayed(),
+                    limiter.getAverageWait(),
+                    limiter.getMaxWait());
+        }
+    }
+
+    /**
+     * an upload spooled to the outbox
+     */
+    @Value
+    public static class SpooledUpload {
+
+        String id;
+        Date created;
+
+        /**
+         * the externalizable id of the build that spooled the upload
+         */
+        String origin;
+
+        String baseUrl;
+        String path;
+        String scanType;
+        long length;
+        int attempts;
+        String lastError;
+
+        static SpooledUpload of(final OutboxItem item) {
+            return new SpooledUpload(
+                    item.getId(),
+                    new Date(item.getCreated()),
+                    item.getOrigin(),
+                    item.getBaseUrl(),
+                    item.getPath(),
+                    item.getScanType(),
+                    item.getLength(),
+                    item.getAttempts(),
+                    item.getLastError());
+        }
+    }
+}
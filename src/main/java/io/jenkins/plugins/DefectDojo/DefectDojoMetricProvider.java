@@ -0,0 +1,123 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricSet;
+import com.codahale.metrics.Timer;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import jenkins.metrics.api.MetricProvider;
+
+/**
+ * Publishes the calls recorded in the {@link ApiMetrics} through the Metrics
+ * plugin, if installed: a timer of the latency and meters of the requests,
+ * errors and retries per endpoint, counters of the bytes sent and received,
+ * and for uploads a timer and a counter of the bytes of successful ones, so
+ * the throughput can be derived. Only calls recorded after the plugin started
+ * are published.
+ */
+@Extension(optional = true)
+public class DefectDojoMetricProvider extends MetricProvider {
+
+    /**
+     * shared by all instances, as the listener is registered once per JVM
+     */
+    private static final Recorder RECORDER = new Recorder();
+
+    public DefectDojoMetricProvider() {
+        ApiMetrics.addListener(RECORDER);
+    }
+
+    @NonNull
+    @Override
+    public MetricSet getMetricSet() {
+        return RECORDER;
+    }
+
+    private static final class Recorder implements ApiMetrics.Listener, MetricSet {
+
+        private final Map<ApiMetrics.Endpoint, EndpointMetrics> endpoints = new EnumMap<>(ApiMetrics.Endpoint.class);
+        private final Map<String, Metric> metrics;
+
+        Recorder() {
+            final Map<String, Metric> all = new LinkedHashMap<>();
+            for (ApiMetrics.Endpoint endpoint : ApiMetrics.Endpoint.values()) {
+                final EndpointMetrics endpointMetrics = new EndpointMetrics();
+                endpoints.put(endpoint, endpointMetrics);
+                final String prefix = MetricRegistry.name("defectdojo", "api", endpoint.getName());
+                all.put(prefix + ".latency", endpointMetrics.latency);
+                all.put(prefix + ".requests", endpointMetrics.requests);
+                all.put(prefix + ".errors", endpointMetrics.errors);
+                all.put(prefix + ".retries", endpointMetrics.retries);
+                all.put(prefix + ".request.bytes", endpointMetrics.requestBytes);
+                all.put(prefix + ".response.bytes", endpointMetrics.responseBytes);
+                if (endpoint.isUpload()) {
+                    all.put(prefix + ".upload.time", endpointMetrics.uploadTime);
+                    all.put(prefix + ".upload.bytes", endpointMetrics.uploadBytes);
+                }
+            }
+            metrics = Collections.unmodifiableMap(all);
+        }
+
+        @Override
+        public Map<String, Metric> getMetrics() {
+            return metrics;
+        }
+
+        @Override
+        public void onCall(@NonNull final ApiMetrics.Call call) {
+            final EndpointMetrics endpointMetrics = endpoints.get(call.getEndpoint());
+            endpointMetrics.latency.update(call.getNanos(), TimeUnit.NANOSECONDS);
+            endpointMetrics.requests.mark();
+            endpointMetrics.requestBytes.inc(Math.max(call.getRequestBytes(), 0));
+            if (call.isError()) {
+                endpointMetrics.errors.mark();
+            } else if (call.getEndpoint().isUpload()) {
+                endpointMetrics.uploadTime.update(call.getNanos(), TimeUnit.NANOSECONDS);
+                endpointMetrics.uploadBytes.inc(Math.max(call.getRequestBytes(), 0));
+            }
+        }
+
+        @Override
+        public void onResponseBytes(@NonNull final ApiMetrics.Endpoint endpoint, final long bytes) {
+            endpoints.get(endpoint).responseBytes.inc(bytes);
+        }
+
+        @Override
+        public void onRetries(@NonNull final ApiMetrics.Endpoint endpoint, final long retries) {
+            endpoints.get(endpoint).retries.mark(retries);
+        }
+    }
+
+    private static final class EndpointMetrics {
+
+        private final Timer latency = new Timer();
+        private final Meter requests = new Meter();
+        private final Meter errors = new Meter();
+        private final Meter retries = new Meter();
+        private final Counter requestBytes = new Counter();
+        private final Counter responseBytes = new Counter();
+        private final Timer uploadTime = new Timer();
+        private final Counter uploadBytes = new Counter();
+    }
+}
@@ -14,6 +14,7 @@
 package io.jenkins.plugins.DefectDojo;
 
 import com.cloudbees.plugins.credentials.CredentialsProvider;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.AbortException;
 import hudson.EnvVars;
@@ -26,7 +27,22 @@ import hudson.tasks.Recorder;
 import hudson.util.Secret;
 import java.io.IOException;
 import java.io.Serializable;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
 import jenkins.tasks.SimpleBuildStep;
 import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
@@ -44,6 +60,8 @@ public final class DefectDojoPublisher extends Recorder implements SimpleBuildSt
 
     private static final long serialVersionUID = 480115440498217963L;
 
+    private static final Logger LOGGER = Logger.getLogger(DefectDojoPublisher.class.getName());
+
     /**
      * the product ID to upload to. This is a per-build config item.
      */
@@ -83,12 +101,41 @@ public final class DefectDojoPublisher extends Recorder implements SimpleBuildSt
      * Retrieves the path and filename of the artifact. This is a per-build
      * config item.
      */
-    private final String artifact;
+    private String artifact;
 
     /**
      * the scan type that will be uploaded. This is a per-build config item.
      */
-    private final String scanType;
+    private String scanType;
+
+    /**
+     * further artifacts or patterns to upload together with their scan type.
+     * This is a per-build config item.
+     */
+    private List<ScanArtifact> artifacts;
+
+    /**
+     * the maximum number of reports uploaded concurrently
+     */
+    private Integer uploadParallelism;
+
+    /**
+     * Specifies if reports unchanged since their last reimport into the same
+     * test are skipped.
+     */
+    private Boolean skipUnchanged;
+
+    /**
+     * Specifies if the reports are uploaded in the background, so the step
+     * returns right after the product and engagement are resolved.
+     */
+    private Boolean background;
+
+    /**
+     * Specifies if reports are spooled to the outbox if DefectDojo is
+     * unavailable, to be uploaded later on.
+     */
+    private Boolean outbox;
 
     /**
      * Specifies the base URL to DefectDojo.
@@ -125,6 +172,18 @@ public final class DefectDojoPublisher extends Recorder implements SimpleBuildSt
      */
     private Boolean autoCreateEngagements;
 
+    /**
+     * Specifies if product and engagement are resolved by DefectDojo while
+     * importing the report, if it supports that.
+     */
+    private Boolean autoCreateContext;
+
+    /**
+     * Specifies if the report is uploaded directly from the node the workspace
+     * is located on.
+     */
+    private Boolean uploadFromAgent;
+
     @Getter(AccessLevel.NONE)
     @Setter(AccessLevel.NONE)
     private transient ApiClientFactory clientFactory;
@@ -139,8 +198,11 @@ public final class DefectDojoPublisher extends Recorder implements SimpleBuildSt
     @Setter(AccessLevel.NONE)
     private transient String projectIdCache;
 
-    // Fields in config.jelly must match the parameter names
     @DataBoundConstructor
+    public DefectDojoPublisher() {
+        this(null, null, ApiClient::new);
+    }
+
     public DefectDojoPublisher(final String artifact, final String scanType) {
         this(artifact, scanType, ApiClient::new);
     }
@@ -178,20 +240,21 @@ public final class DefectDojoPublisher extends Recorder implements SimpleBuildSt
         final String effectiveSourceCodeUrl = env.expand(sourceCodeUrl);
         final String effectiveCommitHash = env.expand(commitHash);
         final String effectiveBranchTag = env.expand(branchTag);
-        final String effectiveArtifact = env.expand(artifact);
-        final String effectiveScanType = env.expand(scanType);
         final boolean effectiveAutoCreateProduct = isEffectiveAutoCreateProducts();
         final boolean effectiveAutoCreateEngagement = isEffectiveAutoCreateEngagements();
         final boolean effectiveReupload = isEffectiveReuploadScan();
         projectIdCache = null;
 
-        if (StringUtils.isBlank(effectiveArtifact)) {
+        final List<ScanArtifact> effectiveArtifacts = getEffectiveArtifacts(env);
+        if (effectiveArtifacts.isEmpty()) {
             logger.log(Messages.Builder_Artifact_Unspecified());
             throw new AbortException(Messages.Builder_Artifact_Unspecified());
         }
-        if (StringUtils.isBlank(effectiveScanType)) {
-            logger.log(Messages.Builder_ScanType_Unspecified());
-            throw new AbortException(Messages.Builder_ScanType_Unspecified());
+        for (ScanArtifact scanArtifact : effectiveArtifacts) {
+            if (StringUtils.isBlank(scanArtifact.getScanType())) {
+                logger.log(Messages.Builder_ScanType_Unspecified());
+                throw new AbortException(Messages.Builder_ScanType_Unspecified());
+            }
         }
         if (StringUtils.isBlank(productId) && (StringUtils.isBlank(effectiveProductName))) {
             logger.log(Messages.Builder_Result_InvalidArguments());
@@ -202,69 +265,481 @@ public final class DefectDojoPublisher extends Recorder implements SimpleBuildSt
             throw new AbortException(Messages.Builder_Result_InvalidArguments());
         }
 
-        final FilePath artifactFilePath = new FilePath(workspace, effectiveArtifact);
-        if (!artifactFilePath.exists()) {
-            logger.log(Messages.Builder_Artifact_NonExist(effectiveArtifact));
-            throw new AbortException(Messages.Builder_Artifact_NonExist(effectiveArtifact));
-        }
+        final List<ScanUpload> uploads = collectUploads(workspace, env, effectiveArtifacts, logger);
 
         final String effectiveUrl = getEffectiveUrl();
         final Secret effectiveApiKey = getEffectiveApiKey(run);
         final ApiClient apiClient = clientFactory.create(
                 effectiveUrl, effectiveApiKey, logger, getEffectiveConnectionTimeout(), getEffectiveReadTimeout());
+        final PublicationTimingAction timings = PublicationTimingAction.of(run);
+
+        if (isContextImport(effectiveProductName, effectiveEngagementName) && apiClient.supportsAutoCreateContext()) {
+            // DefectDojo resolves product, engagement and test while importing
+            logger.log(Messages.Builder_Publishing_Context(effectiveProductName, effectiveEngagementName));
+            logger.log(Messages.Builder_Publishing(effectiveUrl));
+            for (ScanUpload upload : uploads) {
+                upload.request = apiClient.prepareContextImport(
+                        effectiveProductName,
+                        effectiveEngagementName,
+                        effectiveSourceCodeUrl,
+                        effectiveBranchTag,
+                        effectiveCommitHash,
+                        upload.scanType,
+                        effectiveReupload,
+                        effectiveAutoCreateEngagement);
+            }
+        } else {
+            if (StringUtils.isNotBlank(effectiveProductName) && StringUtils.isBlank(productId)) {
+                logger.log(Messages.Builder_Fetching_Product(effectiveProductName));
+                productId = timings.time(
+                        PublicationTimingAction.Phase.PRODUCT_LOOKUP,
+                        () -> apiClient.getProductId(effectiveProductName));
+            }
+
+            if (effectiveAutoCreateProduct
+                    && StringUtils.isBlank(productId)
+                    && StringUtils.isNotBlank(effectiveProductName)) {
+                logger.log(Messages.Builder_Publishing_Product(effectiveProductName));
+                productId = timings.time(
+                        PublicationTimingAction.Phase.PRODUCT_CREATION,
+                        () -> apiClient.createProduct(effectiveProductName, null));
+            }
+
+            if (StringUtils.isBlank(productId)) {
+                logger.log(Messages.Builder_Result_ProductIdMissing());
+                throw new AbortException(Messages.Builder_Result_ProductIdMissing());
+            }
+            final String resolvedProductId = productId;
+
+            if (StringUtils.isNotBlank(effectiveEngagementName) && StringUtils.isBlank(engagementId)) {
+                logger.log(Messages.Builder_Fetching_Engagement(effectiveEngagementName));
+                engagementId = timings.time(
+                        PublicationTimingAction.Phase.ENGAGEMENT_LOOKUP,
+                        () -> apiClient.getEngagementId(resolvedProductId, effectiveEngagementName));
+            }
+
+            if (effectiveAutoCreateEngagement
+                    && StringUtils.isNotBlank(effectiveEngagementName)
+                    && StringUtils.isBlank(engagementId)) {
+                logger.log(Messages.Builder_Publishing_Engagement(effectiveProductName, effectiveEngagementName));
+                engagementId = timings.time(
+                        PublicationTimingAction.Phase.ENGAGEMENT_CREATION,
+                        () -> apiClient.createEngagement(
+                                effectiveEngagementName, resolvedProductId, effectiveSourceCodeUrl));
+            }
+
+            if (StringUtils.isBlank(engagementId)) {
+                logger.log(Messages.Builder_Result_EngagementIdMissing());
+                throw new AbortException(Messages.Builder_Result_EngagementIdMissing());
+            }
+
+            logger.log(Messages.Builder_Publishing(effectiveUrl));
+            final String resolvedEngagementId = engagementId;
+            final Set<String> scanTypes = uploads.stream()
+                    .map(upload -> upload.scanType)
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+            if (scanTypes.size() > 1) {
+                // lists the tests of the engagement once instead of looking up each scan type
+                timings.time(
+                        PublicationTimingAction.Phase.TEST_LOOKUP,
+                        () -> apiClient.resolveTests(resolvedEngagementId, scanTypes));
+            }
+            for (ScanUpload upload : uploads) {
+                upload.request = timings.time(
+                        PublicationTimingAction.Phase.TEST_LOOKUP,
+                        () -> apiClient.prepareImport(
+                                resolvedProductId,
+                                resolvedEngagementId,
+                                effectiveSourceCodeUrl,
+                                effectiveBranchTag,
+                                effectiveCommitHash,
+                                upload.scanType,
+                                effectiveReupload));
+            }
+        }
 
-        if (StringUtils.isNotBlank(effectiveProductName) && StringUtils.isBlank(productId)) {
-            logger.log(Messages.Builder_Fetching_Product(effectiveProductName));
-            productId = apiClient.getProductId(effectiveProductName);
+        if (isEffectiveSkipUnchanged()) {
+            final long digestStart = System.nanoTime();
+            final long length = totalLength(uploads);
+            skipUnchanged(uploads, effectiveUrl, logger);
+            timings.record(PublicationTimingAction.Phase.DIGEST, System.nanoTime() - digestStart, length);
+            if (uploads.isEmpty()) {
+                timings.index();
+                logger.log(Messages.Builder_Success(resultUrl(effectiveUrl, uploads)));
+                return;
+            }
+        }
+        if (isEffectiveBackground()) {
+            final boolean fromAgent = isEffectiveUploadFromAgent();
+            // later steps may change or release the workspace, so upload copies
+            final long stagingStart = System.nanoTime();
+            final List<ScanUpload> staged = stage(uploads, fromAgent);
+            timings.record(
+                    PublicationTimingAction.Phase.STAGING, System.nanoTime() - stagingStart, totalLength(staged));
+            logger.log(Messages.Builder_Background_Started(staged.size()));
+            final CompletableFuture<Boolean> result = new CompletableFuture<>();
+            final Future<?> task = PluginExecutors.io().submit(() -> {
+                try {
+                    final int failures = uploadAll(
+                            staged,
+                            apiClient,
+                            run,
+                            effectiveUrl,
+                            effectiveApiKey,
+                            fromAgent,
+                            timings,
+                            logger,
+                            listener);
+                    timings.index();
+                    result.complete(failures == 0);
+                } catch (IOException | RuntimeException e) {
+                    result.completeExceptionally(e);
+                } catch (InterruptedException e) {
+                    result.cancel(false);
+                    Thread.currentThread().interrupt();
+                } finally {
+                    deleteStaged(staged);
+                }
+            });
+            result.whenComplete((success, e) -> {
+                if (result.isCancelled()) {
+                    task.cancel(true);
+                } else if (e != null || !Boolean.TRUE.equals(success)) {
+                    if (e != null) {
+                        logger.log(e.getMessage());
+                    }
+                    logger.log(Messages.Builder_Upload_Failed());
+                } else {
+                    logger.log(Messages.Builder_Success(resultUrl(effectiveUrl, staged)));
+                }
+            });
+            BackgroundPublications.get().register(run, result);
+            return;
         }
 
-        if (effectiveAutoCreateProduct
-                && StringUtils.isBlank(productId)
-                && StringUtils.isNotBlank(effectiveProductName)) {
-            logger.log(Messages.Builder_Publishing_Product(effectiveProductName));
-            productId = apiClient.createProduct(effectiveProductName, null);
+        final int failures = uploadAll(
+                uploads,
+                apiClient,
+                run,
+                effectiveUrl,
+                effectiveApiKey,
+                isEffectiveUploadFromAgent(),
+                timings,
+                logger,
+                listener);
+        timings.index();
+        if (failures > 0) {
+            throw new AbortException(Messages.Builder_Upload_Failed());
+        }
+
+        logger.log(Messages.Builder_Success(resultUrl(effectiveUrl, uploads)));
+    }
+
+    /**
+     * @return the link to the engagement the reports were imported into. If
+     * DefectDojo resolved the context while importing, the engagement or test
+     * it responded with, or DefectDojo itself if it responded with neither.
+     */
+    private String resultUrl(final String effectiveUrl, final List<ScanUpload> uploads) {
+        if (StringUtils.isNotBlank(engagementId)) {
+            return String.format("%s/engagement/%s", effectiveUrl, engagementId);
+        }
+        String test = null;
+        for (ScanUpload upload : uploads) {
+            final ImportStatistics statistics = upload.statistics;
+            if (statistics == null) {
+                continue;
+            }
+            if (statistics.getEngagement() != null) {
+                return String.format("%s/engagement/%s", effectiveUrl, statistics.getEngagement());
+            }
+            if (test == null) {
+                test = statistics.getTest();
+            }
+        }
+        return test != null ? String.format("%s/test/%s", effectiveUrl, test) : effectiveUrl;
+    }
+
+    /**
+     * Uploads the prepared reports, at most the effective upload parallelism
+     * at a time. Reports not uploaded because DefectDojo is unavailable are
+     * spooled to the {@link Outbox}, if enabled. The wall time of all uploads
+     * is recorded as a single phase.
+     *
+     * @return the number of failed uploads that were not spooled
+     */
+    private int uploadAll(
+            final List<ScanUpload> uploads,
+            final ApiClient apiClient,
+            final Run<?, ?> run,
+            final String effectiveUrl,
+            final Secret effectiveApiKey,
+            final boolean fromAgent,
+            final PublicationTimingAction timings,
+            final ConsoleLogger logger,
+            final TaskListener listener)
+            throws InterruptedException, IOException {
+        final AsyncApiClient asyncClient = fromAgent ? null : apiClient.async();
+        apiClient.setImportListener((request, statistics) -> uploads.stream()
+                .filter(upload -> upload.request == request)
+                .findFirst()
+                .ifPresent(upload -> {
+                    upload.statistics = statistics;
+                    ImportStatisticsAction.of(run).add(upload.path, upload.scanType, statistics);
+                }));
+        final boolean spool = isEffectiveOutbox();
+        final List<ScanUpload> unavailable = Collections.synchronizedList(new ArrayList<>());
+        final long start = System.nanoTime();
+        final int failures = ParallelUploads.runAll(uploads, getEffectiveUploadParallelism(), upload -> {
+            logger.log(Messages.Builder_Upload_Started(upload.path, upload.scanType, upload.length));
+            final long uploadStart = System.nanoTime();
+            final CompletableFuture<Boolean> result;
+            if (fromAgent) {
+                // resolved on the controller, but the agent sends the report
+                final ImportScanCallable callable = new ImportScanCallable(
+                        effectiveUrl,
+                        effectiveApiKey,
+                        AgentClientSettings.current(getEffectiveConnectionTimeout(), getEffectiveReadTimeout()),
+                        upload.request,
+                        ProgressRequestBody.Settings.current(),
+                        listener);
+                result = CompletableFuture.supplyAsync(
+                        () -> {
+                            try {
+                                // the agent's client has its own, so check the shared ones first
+                                apiClient.getCircuitBreaker().acquire();
+                                apiClient.getRateLimiter().acquire();
+                                final ImportStatistics statistics = upload.file.act(callable).record(apiClient);
+                                if (statistics != null) {
+                                    upload.statistics = statistics;
+                                    ImportStatisticsAction.of(run).add(upload.path, upload.scanType, statistics);
+                                }
+                                return statistics != null;
+                            } catch (IOException e) {
+                                throw new CompletionException(e);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                throw new CompletionException(e);
+                            }
+                        },
+                        PluginExecutors.io());
+            } else {
+                result = asyncClient.importScan(upload.request, new FilePathRequestBody(upload.file, upload.length));
+            }
+            return result.handle((success, e) -> {
+                final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - uploadStart);
+                if (e == null && Boolean.TRUE.equals(success)) {
+                    logger.log(Messages.Builder_Upload_Succeeded(upload.path, upload.scanType, millis));
+                    if (upload.indexKey != null) {
+                        UploadIndex.get().record(upload.indexKey, upload.digest);
+                    }
+                    // a spooled older report must not overwrite this one
+                    Outbox.get().supersede(UploadIndex.keyOf(effectiveUrl, upload.request));
+                    return true;
+                }
+                if (e != null) {
+                    logger.log(e.getMessage());
+                }
+                if (spool && Outbox.isUnavailable(e)) {
+                    unavailable.add(upload);
+                }
+                if (fromAgent) {
+                    // the agent only reports failure, so drop what might be stale
+                    apiClient.evictResolved(upload.request);
+                }
+                logger.log(Messages.Builder_Upload_FailedArtifact(upload.path, upload.scanType, millis));
+                return false;
+            });
+        });
+        final long nanos = System.nanoTime() - start;
+        timings.record(PublicationTimingAction.Phase.UPLOAD, nanos, totalLength(uploads));
+        UploadIndex.get().flush();
+        if (uploads.size() > 1) {
+            logger.log(Messages.Builder_Upload_Summary(
+                    uploads.size() - failures, uploads.size(), TimeUnit.NANOSECONDS.toMillis(nanos)));
         }
+        return failures - spool(unavailable, run, effectiveUrl, logger);
+    }
 
-        if (StringUtils.isBlank(productId)) {
-            logger.log(Messages.Builder_Result_ProductIdMissing());
-            throw new AbortException(Messages.Builder_Result_ProductIdMissing());
+    /**
+     * Spools copies of reports DefectDojo was unavailable for to the
+     * {@link Outbox}.
+     *
+     * @return the number of spooled reports
+     */
+    private int spool(
+            final List<ScanUpload> unavailable,
+            final Run<?, ?> run,
+            final String effectiveUrl,
+            final ConsoleLogger logger)
+            throws InterruptedException {
+        final String credentialsId = getEffectiveCredentialsId();
+        if (credentialsId == null) {
+            return 0;
+        }
+        final long maxSize = descriptor.getDefectDojoOutboxSize() * 1024L * 1024L;
+        int spooled = 0;
+        for (ScanUpload upload : unavailable) {
+            try {
+                final OutboxItem item = Outbox.get()
+                        .spool(
+                                run.getExternalizableId(),
+                                effectiveUrl,
+                                credentialsId,
+                                upload.path,
+                                upload.scanType,
+                                upload.file,
+                                upload.length,
+                                upload.request,
+                                upload.digest,
+                                maxSize);
+                if (item != null) {
+                    logger.log(Messages.Builder_Outbox_Spooled(upload.path, upload.scanType));
+                    spooled++;
+                } else {
+                    logger.log(Messages.Builder_Outbox_TooLarge(upload.path, upload.scanType));
+                }
+            } catch (IOException e) {
+                logger.log(e.getMessage());
+            }
         }
+        return spooled;
+    }
 
-        if (StringUtils.isNotBlank(effectiveEngagementName) && StringUtils.isBlank(engagementId)) {
-            logger.log(Messages.Builder_Fetching_Engagement(effectiveEngagementName));
-            engagementId = apiClient.getEngagementId(productId, effectiveEngagementName);
+    /**
+     * Drops the reports whose digest matches the one last reimported into the
+     * same test. The digest of the others is recorded once uploaded.
+     */
+    private static void skipUnchanged(
+            final List<ScanUpload> uploads, final String effectiveUrl, final ConsoleLogger logger)
+            throws IOException, InterruptedException {
+        final Iterator<ScanUpload> iterator = uploads.iterator();
+        while (iterator.hasNext()) {
+            final ScanUpload upload = iterator.next();
+            final String key = UploadIndex.keyOf(effectiveUrl, upload.request);
+            if (key == null) {
+                // a new test is imported
+                continue;
+            }
+            // hashed where the report is, so it does not cross the channel
+            final String digest = upload.file.act(new ReportDigestCallable());
+            if (digest.equals(UploadIndex.get().lookup(key))) {
+                logger.log(Messages.Builder_Upload_Unchanged(upload.path, upload.scanType));
+                iterator.remove();
+            } else {
+                upload.indexKey = key;
+                upload.digest = digest;
+            }
         }
+    }
 
-        if (effectiveAutoCreateEngagement
-                && StringUtils.isNotBlank(effectiveEngagementName)
-                && StringUtils.isBlank(engagementId)) {
-            logger.log(Messages.Builder_Publishing_Engagement(effectiveProductName, effectiveEngagementName));
-            engagementId = apiClient.createEngagement(effectiveEngagementName, productId, effectiveSourceCodeUrl);
+    private static long totalLength(final List<ScanUpload> uploads) {
+        return uploads.stream().mapToLong(upload -> upload.length).sum();
+    }
+
+    /**
+     * Copies the reports to temporary files, on the node the workspace is
+     * located on if they are uploaded from there, otherwise on the controller.
+     *
+     * @return the uploads of the copies
+     */
+    @NonNull
+    private static List<ScanUpload> stage(final List<ScanUpload> uploads, final boolean onAgent)
+            throws IOException, InterruptedException {
+        final List<ScanUpload> staged = new ArrayList<>(uploads.size());
+        try {
+            for (ScanUpload upload : uploads) {
+                if (onAgent) {
+                    final String copy = upload.file.act(new StageReportCallable());
+                    staged.add(upload.withFile(new FilePath(upload.file.getChannel(), copy)));
+                } else {
+                    final FilePath copy = new FilePath(Files.createTempFile("defectdojo", ".report").toFile());
+                    staged.add(upload.withFile(copy));
+                    upload.file.copyTo(copy);
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            deleteStaged(staged);
+            throw e;
         }
+        return staged;
+    }
 
-        if (StringUtils.isBlank(engagementId)) {
-            logger.log(Messages.Builder_Result_EngagementIdMissing());
-            throw new AbortException(Messages.Builder_Result_EngagementIdMissing());
+    private static void deleteStaged(final List<ScanUpload> staged) {
+        for (ScanUpload upload : staged) {
+            try {
+                upload.file.delete();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, e, () -> "Could not delete " + upload.file.getRemote());
+            } catch (InterruptedException e) {
+                LOGGER.log(Level.WARNING, e, () -> "Could not delete " + upload.file.getRemote());
+                Thread.currentThread().interrupt();
+            }
         }
+    }
 
-        logger.log(Messages.Builder_Publishing(effectiveUrl));
-        final boolean uploadResult = apiClient.upload(
-                productId,
-                engagementId,
-                effectiveSourceCodeUrl,
-                effectiveBranchTag,
-                effectiveCommitHash,
-                artifactFilePath,
-                scanType,
-                effectiveReupload);
-
-        if (!uploadResult) {
-            throw new AbortException(Messages.Builder_Upload_Failed());
+    /**
+     * @return the artifact configured directly followed by the further
+     * artifacts, with environment variables expanded
+     */
+    @NonNull
+    private List<ScanArtifact> getEffectiveArtifacts(final EnvVars env) {
+        final List<ScanArtifact> effectiveArtifacts = new ArrayList<>();
+        final String effectiveArtifact = env.expand(artifact);
+        if (StringUtils.isNotBlank(effectiveArtifact)) {
+            effectiveArtifacts.add(new ScanArtifact(effectiveArtifact, env.expand(scanType)));
         }
+        if (artifacts != null) {
+            for (ScanArtifact scanArtifact : artifacts) {
+                if (StringUtils.isNotBlank(scanArtifact.getPattern())) {
+                    effectiveArtifacts.add(new ScanArtifact(
+                            env.expand(scanArtifact.getPattern()), env.expand(scanArtifact.getScanType())));
+                }
+            }
+        }
+        return effectiveArtifacts;
+    }
 
-        logger.log(Messages.Builder_Success(String.format(
-                "%s/engagement/%s",
-                getEffectiveUrl(), StringUtils.isNotBlank(engagementId) ? engagementId : StringUtils.EMPTY)));
+    /**
+     * Resolves the artifacts to the reports to upload, largest first so the
+     * longest uploads do not end up last. The artifact configured directly is
+     * taken as path, all further ones are matched as Ant-style pattern.
+     *
+     * @throws AbortException if an artifact does not exist or a pattern does
+     * not match anything
+     */
+    @NonNull
+    private List<ScanUpload> collectUploads(
+            final FilePath workspace,
+            final EnvVars env,
+            final List<ScanArtifact> effectiveArtifacts,
+            final ConsoleLogger logger)
+            throws IOException, InterruptedException {
+        final List<ScanUpload> uploads = new ArrayList<>();
+        final boolean directArtifact = StringUtils.isNotBlank(env.expand(artifact));
+        for (int i = 0; i < effectiveArtifacts.size(); i++) {
+            final ScanArtifact scanArtifact = effectiveArtifacts.get(i);
+            final String pattern = scanArtifact.getPattern();
+            if (i == 0 && directArtifact) {
+                final FilePath artifactFilePath = new FilePath(workspace, pattern);
+                if (!artifactFilePath.exists()) {
+                    logger.log(Messages.Builder_Artifact_NonExist(pattern));
+                    throw new AbortException(Messages.Builder_Artifact_NonExist(pattern));
+                }
+                uploads.add(new ScanUpload(artifactFilePath, pattern, scanArtifact.getScanType()));
+                continue;
+            }
+            final FilePath[] matches = workspace.list(pattern);
+            if (matches.length == 0) {
+                logger.log(Messages.Builder_Artifact_NoMatch(pattern));
+                throw new AbortException(Messages.Builder_Artifact_NoMatch(pattern));
+            }
+            for (FilePath match : matches) {
+                uploads.add(new ScanUpload(match, PluginUtil.relativize(workspace, match), scanArtifact.getScanType()));
+            }
+        }
+        uploads.sort(Comparator.comparingLong((ScanUpload upload) -> upload.length).reversed());
+        return uploads;
     }
 
     /**
@@ -313,6 +788,7 @@ public final class DefectDojoPublisher extends Recorder implements SimpleBuildSt
             defectDojoCredentialsId = null;
             autoCreateProducts = null;
             autoCreateEngagements = null;
+            autoCreateContext = null;
             defectDojoConnectionTimeout = null;
             defectDojoReadTimeout = null;
         }
@@ -342,8 +818,7 @@ public final class DefectDojoPublisher extends Recorder implements SimpleBuildSt
      * @return effective api-key
      */
     private Secret getEffectiveApiKey(final @NonNull Run<?, ?> run) {
-        final String credId = Optional.ofNullable(StringUtils.trimToNull(defectDojoCredentialsId))
-                .orElseGet(descriptor::getDefectDojoCredentialsId);
+        final String credId = getEffectiveCredentialsId();
         if (credId != null) {
             StringCredentials cred = CredentialsProvider.findCredentialById(credId, StringCredentials.class, run);
             return Optional.ofNullable(CredentialsProvider.track(run, cred))
@@ -354,6 +829,15 @@ public final class DefectDojoPublisher extends Recorder implements SimpleBuildSt
         }
     }
 
+    /**
+     * @return the id of the credentials holding the effective api-key
+     */
+    @CheckForNull
+    private String getEffectiveCredentialsId() {
+        return Optional.ofNullable(StringUtils.trimToNull(defectDojoCredentialsId))
+                .orElseGet(descriptor::getDefectDojoCredentialsId);
+    }
+
     /**
      * @return effective autoCreateProducts
      */
@@ -368,6 +852,31 @@ public final class DefectDojoPublisher extends Recorder implements SimpleBuildSt
         return Optional.ofNullable(autoCreateEngagements).orElseGet(descriptor::isDefectDojoAutoCreateEngagements);
     }
 
+    /**
+     * Whether DefectDojo may resolve product and engagement by name while
+     * importing the reports. Otherwise they are resolved beforehand: DefectDojo
+     * needs a product type to create a product, creates a missing test to
+     * reimport into only together with the engagement, and unchanged reports
+     * are only recognized by their test.
+     */
+    private boolean isContextImport(final String effectiveProductName, final String effectiveEngagementName) {
+        return isEffectiveAutoCreateContext()
+                && StringUtils.isBlank(productId)
+                && StringUtils.isBlank(engagementId)
+                && StringUtils.isNotBlank(effectiveProductName)
+                && StringUtils.isNotBlank(effectiveEngagementName)
+                && !isEffectiveAutoCreateProducts()
+                && (isEffectiveAutoCreateEngagements() || !isEffectiveReuploadScan())
+                && !isEffectiveSkipUnchanged();
+    }
+
+    /**
+     * @return effective autoCreateContext
+     */
+    public boolean isEffectiveAutoCreateContext() {
+        return Optional.ofNullable(autoCreateContext).orElseGet(descriptor::isDefectDojoAutoCreateContext);
+    }
+
     /**
      * @return effective reuploadScan
      */
@@ -375,6 +884,45 @@ public final class DefectDojoPublisher extends Recorder implements SimpleBuildSt
         return Optional.ofNullable(defectDojoReuploadScan).orElseGet(descriptor::isDefectDojoReuploadScan);
     }
 
+    /**
+     * @return effective uploadFromAgent
+     */
+    public boolean isEffectiveUploadFromAgent() {
+        return Optional.ofNullable(uploadFromAgent).orElseGet(descriptor::isDefectDojoUploadFromAgent);
+    }
+
+    /**
+     * @return effective skipUnchanged
+     */
+    public boolean isEffectiveSkipUnchanged() {
+        return Optional.ofNullable(skipUnchanged).orElseGet(descriptor::isDefectDojoSkipUnchanged);
+    }
+
+    /**
+     * @return effective background
+     */
+    public boolean isEffectiveBackground() {
+        return Boolean.TRUE.equals(background);
+    }
+
+    /**
+     * @return effective outbox
+     */
+    public boolean isEffectiveOutbox() {
+        return Optional.ofNullable(outbox).orElseGet(descriptor::isDefectDojoOutbox);
+    }
+
+    /**
+     * @return effective uploadParallelism
+     */
+    private int getEffectiveUploadParallelism() {
+        return Math.max(
+                Optional.ofNullable(uploadParallelism)
+                        .filter(v -> v > 0)
+                        .orElseGet(descriptor::getDefectDojoUploadParallelism),
+                1);
+    }
+
     /**
      * @return effective defectDojoConnectionTimeout
      */
@@ -394,4 +942,58 @@ public final class DefectDojoPublisher extends Recorder implements SimpleBuildSt
                 .filter(v -> v >= 0)
                 .orElseGet(descriptor::getDefectDojoReadTimeout);
     }
+
+    /**
+     * a single report to upload
+     */
+    private static final class ScanUpload {
+
+        final FilePath file;
+
+        /**
+         * the path relative to the workspace, for logging
+         */
+        final String path;
+
+        final String scanType;
+        final long length;
+
+        ImportScanRequest request;
+
+        /**
+         * the key and digest to record in the {@link UploadIndex} once
+         * uploaded, if unchanged reports are skipped
+         */
+        String indexKey;
+
+        String digest;
+
+        /**
+         * the statistics DefectDojo responded with, once imported
+         */
+        volatile ImportStatistics statistics;
+
+        ScanUpload(final FilePath file, final String path, final String scanType)
+                throws IOException, InterruptedException {
+            this(file, path, scanType, file.length());
+        }
+
+        private ScanUpload(final FilePath file, final String path, final String scanType, final long length) {
+            this.file = file;
+            this.path = path;
+            this.scanType = scanType;
+            this.length = length;
+        }
+
+        /**
+         * @return the same upload of another copy of the report
+         */
+        ScanUpload withFile(final FilePath copy) {
+            final ScanUpload upload = new ScanUpload(copy, path, scanType, length);
+            upload.request = request;
+            upload.indexKey = indexKey;
+            upload.digest = digest;
+            return upload;
+        }
+    }
 }
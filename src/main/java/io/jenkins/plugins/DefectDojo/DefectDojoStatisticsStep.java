@@ -0,0 +1,64 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Run;
+import java.util.Set;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.jenkinsci.plugins.workflow.steps.StepExecutions;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+/**
+ * Returns the statistics of the reports the build imported so far, as decoded
+ * from the responses of DefectDojo, e.g. to gate the build on new findings
+ * without calling DefectDojo again. Reports published in the background are
+ * included once {@code defectDojoWait} returned.
+ *
+ * @see ImportStatisticsAction#toMap()
+ */
+public final class DefectDojoStatisticsStep extends Step {
+
+    @DataBoundConstructor
+    public DefectDojoStatisticsStep() {}
+
+    @Override
+    public StepExecution start(final StepContext context) {
+        return StepExecutions.synchronous(context, c -> ImportStatisticsAction.statisticsOf(c.get(Run.class)));
+    }
+
+    @Extension
+    public static final class StatisticsStepDescriptor extends StepDescriptor {
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return Set.of(Run.class);
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "defectDojoStatistics";
+        }
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return Messages.StatisticsStep_DisplayName();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+/**
+ * Waits for the reports the build publishes in the background and fails if
+ * one of them could not be uploaded. Returns the statistics of all reports
+ * the build imported, like {@link DefectDojoStatisticsStep}.
+ */
+public final class DefectDojoWaitStep extends Step {
+
+    @DataBoundConstructor
+    public DefectDojoWaitStep() {}
+
+    @Override
+    public StepExecution start(final StepContext context) {
+        return new Execution(context);
+    }
+
+    static final class Execution extends StepExecution {
+
+        private static final long serialVersionUID = -2154812706447138310L;
+
+        /**
+         * the publications waited for, lost on a restart of the controller
+         */
+        private transient List<CompletableFuture<Boolean>> results;
+
+        Execution(final StepContext context) {
+            super(context);
+        }
+
+        @Override
+        public boolean start() throws Exception {
+            final StepContext context = getContext();
+            final ConsoleLogger logger = new ConsoleLogger(context.get(TaskListener.class).getLogger());
+            final Run<?, ?> run = context.get(Run.class);
+            results = BackgroundPublications.get().take(run);
+            if (results.isEmpty()) {
+                logger.log(Messages.Background_None());
+                context.onSuccess(ImportStatisticsAction.statisticsOf(run));
+                return true;
+            }
+            logger.log(Messages.Background_Awaiting(results.size()));
+            BackgroundPublications.countFailures(results).whenComplete((failures, e) -> {
+                if (e != null) {
+                    context.onFailure(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                } else if (failures > 0) {
+                    context.onFailure(new AbortException(Messages.Builder_Upload_Failed()));
+                } else {
+                    context.onSuccess(ImportStatisticsAction.statisticsOf(run));
+                }
+            });
+            return false;
+        }
+
+        @Override
+        public void stop(@NonNull final Throwable cause) {
+            if (results != null) {
+                results.forEach(result -> result.cancel(true));
+            }
+            getContext().onFailure(cause);
+        }
+
+        @Override
+        public void onResume() {
+            getContext().onFailure(new AbortException(Messages.Background_Lost()));
+        }
+    }
+
+    @Extension
+    public static final class WaitStepDescriptor extends StepDescriptor {
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return Set.of(Run.class, TaskListener.class);
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "defectDojoWait";
+        }
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return Messages.WaitStep_DisplayName();
+        }
+    }
+}
@@ -29,11 +29,9 @@ import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
 import hudson.util.Secret;
 import java.io.Serializable;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
-import java.util.stream.Collectors;
 import jenkins.model.Jenkins;
 import lombok.Getter;
 import lombok.NonNull;
@@ -63,6 +61,8 @@ public class DescriptorImpl extends BuildStepDescriptor<Publisher> implements Se
 
     private static final long serialVersionUID = -2018722914973282748L;
 
+    static final int DEFAULT_UPLOAD_PARALLELISM = 2;
+
     private final transient ApiClientFactory clientFactory;
 
     /**
@@ -95,6 +95,14 @@ public class DescriptorImpl extends BuildStepDescriptor<Publisher> implements Se
     @Setter(onMethod_ = {@DataBoundSetter})
     private boolean defectDojoAutoCreateEngagements;
 
+    /**
+     * Specifies whether product and engagement are resolved by DefectDojo
+     * while importing a report, so it is published with a single request.
+     */
+    @Getter
+    @Setter(onMethod_ = {@DataBoundSetter})
+    private boolean defectDojoAutoCreateContext;
+
     /**
      * Specifies whether the API key provided has the ENGAGEMENT_CREATION_UPLOAD
      * permission.
@@ -103,6 +111,53 @@ public class DescriptorImpl extends BuildStepDescriptor<Publisher> implements Se
     @Setter(onMethod_ = {@DataBoundSetter})
     private boolean defectDojoReuploadScan;
 
+    /**
+     * Specifies whether reports unchanged since their last reimport into the
+     * same test are skipped.
+     */
+    @Getter
+    @Setter(onMethod_ = {@DataBoundSetter})
+    private boolean defectDojoSkipUnchanged;
+
+    /**
+     * Specifies whether reports are spooled to the outbox if DefectDojo is
+     * unavailable, to be uploaded later on.
+     */
+    @Getter
+    @Setter(onMethod_ = {@DataBoundSetter})
+    private boolean defectDojoOutbox;
+
+    /**
+     * the size of the outbox in MiB
+     */
+    @Getter
+    @Setter(onMethod_ = {@DataBoundSetter})
+    private int defectDojoOutboxSize = Outbox.DEFAULT_SIZE;
+
+    /**
+     * Specifies whether reports are uploaded directly from the node the
+     * workspace is located on instead of from the controller.
+     */
+    @Getter
+    @Setter(onMethod_ = {@DataBoundSetter})
+    private boolean defectDojoUploadFromAgent;
+
+    /**
+     * the maximum number of reports uploaded concurrently by a single build
+     * step
+     */
+    @Getter
+    @Setter(onMethod_ = {@DataBoundSetter})
+    private int defectDojoUploadParallelism = DEFAULT_UPLOAD_PARALLELISM;
+
+    /**
+     * the number of seconds a completed build waits for the publications it
+     * left running in the background, before they are cancelled
+     */
+    @Getter
+    @Setter(onMethod_ = {@DataBoundSetter})
+    private int defectDojoBackgroundTimeout = BackgroundPublications.DEFAULT_TIMEOUT;
+
     /**
      * the connection-timeout in seconds for every call to DT
      */
@@ -117,6 +172,128 @@ public class DescriptorImpl extends BuildStepDescriptor<Publisher> implements Se
     @Setter(onMethod_ = {@DataBoundSetter})
     private int defectDojoReadTimeout;
 
+    /**
+     * the number of attempts for every call to DefectDojo
+     */
+    @Getter
+    @Setter(onMethod_ = {@DataBoundSetter})
+    private int defectDojoRetryAttempts = RetryEngine.DEFAULT_MAX_ATTEMPTS;
+
+    /**
+     * the number of failed calls in a row after which calls to an instance
+     * are suspended
+     */
+    @Getter
+    @Setter(onMethod_ = {@DataBoundSetter})
+    private int defectDojoCircuitBreakerThreshold = CircuitBreaker.DEFAULT_THRESHOLD;
+
+    /**
+     * the time in seconds calls to an instance are suspended
+     */
+    @Getter
+    @Setter(onMethod_ = {@DataBoundSetter})
+    private int defectDojoCircuitBreakerOpenDuration = CircuitBreaker.DEFAULT_OPEN_DURATION;
+
+    /**
+     * the maximum number of requests per second sent to an instance, 0 for no
+     * limit
+     */
+    @Getter
+    @Setter(onMethod_ = {@DataBoundSetter})
+    private int defectDojoRateLimit = RateLimiter.DEFAULT_LIMIT;
+
+    /**
+     * the time in seconds between two reports of the progress of an upload,
+     * 0 for none
+     */
+    @Getter
+    @Setter(onMethod_ = {@DataBoundSetter})
+    private int defectDojoUploadProgressInterval = ProgressRequestBody.DEFAULT_PROGRESS_INTERVAL;
+
+    /**
+     * the time in seconds an upload is aborted after, if it did not reach the
+     * minimum throughput, 0 to never abort
+     */
+    @Getter
+    @Setter(onMethod_ = {@DataBoundSetter})
+    private int defectDojoUploadStallTimeout = ProgressRequestBody.DEFAULT_STALL_TIMEOUT;
+
+    /**
+     * the minimum throughput of an upload in KiB per second
+     */
+    @Getter
+    @Setter(onMethod_ = {@DataBoundSetter})
+    private int defectDojoUploadMinThroughput = ProgressRequestBody.DEFAULT_MIN_THROUGHPUT;
+
+    /**
+     * the number of entities fetched per request when listing products,
+     * engagements and scan types
+     */
+    @Getter
+    @Setter(onMethod_ = {@DataBoundSetter})
+    private int defectDojoPageSize = ApiClient.DEFAULT_PAGE_SIZE;
+
+    /**
+     * the maximum number of pages fetched concurrently when listing products,
+     * engagements and scan types
+     */
+    @Getter
+    @Setter(onMethod_ = {@DataBoundSetter})
+    private int defectDojoPageParallelism = ApiClient.DEFAULT_PAGE_PARALLELISM;
+
+    /**
+     * the maximum number of idle keep-alive connections kept in the
+     * controller-wide pool
+     */
+    @Getter
+    @Setter(onMethod_ = {@DataBoundSetter})
+    private int defectDojoMaxIdleConnections = HttpClientRegistry.DEFAULT_MAX_IDLE_CONNECTIONS;
+
+    /**
+     * the time in seconds an idle connection is kept in the pool
+     */
+    @Getter
+    @Setter(onMethod_ = {@DataBoundSetter})
+    private int defectDojoKeepAliveDuration = HttpClientRegistry.DEFAULT_KEEP_ALIVE_DURATION;
+
+    /**
+     * the maximum number of requests sent concurrently to the same
+     * DefectDojo instance by all builds of the controller
+     */
+    @Getter
+    @Setter(onMethod_ = {@DataBoundSetter})
+    private int defectDojoMaxRequestsPerHost = HttpClientRegistry.DEFAULT_MAX_REQUESTS_PER_HOST;
+
+    /**
+     * the maximum number of requests sent concurrently to all DefectDojo
+     * instances by all builds of the controller
+     */
+    @Getter
+    @Setter(onMethod_ = {@DataBoundSetter})
+    private int defectDojoMaxRequests = HttpClientRegistry.DEFAULT_MAX_REQUESTS;
+
+    /**
+     * the time in seconds resolved product, engagement and test ids are cached
+     */
+    @Getter
+    @Setter(onMethod_ = {@DataBoundSetter})
+    private int defectDojoCacheTtl = ResolutionCache.DEFAULT_TTL;
+
+    /**
+     * the maximum number of resolved ids cached
+     */
+    @Getter
+    @Setter(onMethod_ = {@DataBoundSetter})
+    private int defectDojoCacheSize = ResolutionCache.DEFAULT_MAX_SIZE;
+
+    /**
+     * the age in seconds after which the products, engagements and scan types
+     * shown in the job configuration are refreshed in the background
+     */
+    @Getter
+    @Setter(onMethod_ = {@DataBoundSetter})
+    private int defectDojoCatalogMaxAge = CatalogCache.DEFAULT_MAX_AGE;
+
     /**
      * Default constructor. Obtains the Descriptor used in
      * DependencyCheckBuilder as this contains the global Dependency-Check
@@ -161,13 +338,9 @@ public class DescriptorImpl extends BuildStepDescriptor<Publisher> implements Se
                     Optional.ofNullable(StringUtils.trimToNull(defectDojoCredentialsId))
                             .orElseGet(this::getDefectDojoCredentialsId),
                     item);
-            final ApiClient apiClient = getClient(url, apiKey);
-            final List<ListBoxModel.Option> options = apiClient.getProducts().stream()
-                    .map(p -> new ListBoxModel.Option(p.getString("name"), p.getString("id")))
-                    .sorted(Comparator.comparing(o -> o.name))
-                    .collect(Collectors.toList());
+            final IdNameList products = getCatalog(url, apiKey, CatalogCache.Kind.PRODUCTS, null);
             projects.add(new ListBoxModel.Option(Messages.Publisher_ProductList_Placeholder(), StringUtils.EMPTY));
-            projects.addAll(options);
+            addOptions(projects, products, false);
         } catch (ApiClientException e) {
             projects.add(Messages.Builder_Error_Products(e.getLocalizedMessage()), StringUtils.EMPTY);
         }
@@ -198,15 +371,10 @@ public class DescriptorImpl extends BuildStepDescriptor<Publisher> implements Se
                     Optional.ofNullable(StringUtils.trimToNull(defectDojoCredentialsId))
                             .orElseGet(this::getDefectDojoCredentialsId),
                     item);
-            final ApiClient apiClient = getClient(url, apiKey);
             engagements.add(
                     new ListBoxModel.Option(Messages.Publisher_EngagementList_Placeholder(), StringUtils.EMPTY));
             if (!StringUtils.isBlank(productId)) {
-                final List<ListBoxModel.Option> options = apiClient.getEngagements(productId).stream()
-                        .map(p -> new ListBoxModel.Option(p.getString("name"), p.getString("id")))
-                        .sorted(Comparator.comparing(o -> o.name))
-                        .collect(Collectors.toList());
-                engagements.addAll(options);
+                addOptions(engagements, getCatalog(url, apiKey, CatalogCache.Kind.ENGAGEMENTS, productId), false);
             }
         } catch (ApiClientException e) {
             engagements.add(Messages.Builder_Error_Products(e.getLocalizedMessage()), StringUtils.EMPTY);
@@ -237,19 +405,49 @@ public class DescriptorImpl extends BuildStepDescriptor<Publisher> implements Se
                     Optional.ofNullable(StringUtils.trimToNull(defectDojoCredentialsId))
                             .orElseGet(this::getDefectDojoCredentialsId),
                     item);
-            final ApiClient apiClient = getClient(url, apiKey);
-            final List<ListBoxModel.Option> options = apiClient.getScanTypes().stream()
-                    .map(p -> new ListBoxModel.Option(p.getString("name")))
-                    .sorted(Comparator.comparing(o -> o.name))
-                    .collect(Collectors.toList());
+            final IdNameList scanTypes = getCatalog(url, apiKey, CatalogCache.Kind.SCAN_TYPES, null);
             projects.add(new ListBoxModel.Option(Messages.Publisher_ScanTypeList_Placeholder(), StringUtils.EMPTY));
-            projects.addAll(options);
+            addOptions(projects, scanTypes, true);
         } catch (ApiClientException e) {
             projects.add(Messages.Builder_Error_Products(e.getLocalizedMessage()), StringUtils.EMPTY);
         }
         return projects;
     }
 
+    /**
+     * Drops the cached products, engagements and scan types, so they are
+     * loaded anew from DefectDojo.
+     *
+     * @param defectDojoUrl the base URL to DefectDojo
+     * @param defectDojoCredentialsId the API key to use for authentication
+     * @param item used to check permission and lookup credentials
+     * @return FormValidation
+     */
+    @POST
+    public FormValidation doRefreshCatalogs(
+            @QueryParameter final String defectDojoUrl,
+            @QueryParameter final String defectDojoCredentialsId,
+            @AncestorInPath @Nullable final Item item) {
+        if (item == null) {
+            Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        } else {
+            item.checkPermission(Item.CONFIGURE);
+        }
+        // url may come from instance-config. if empty, then take it from global config (this)
+        final String url =
+                Optional.ofNullable(PluginUtil.parseBaseUrl(defectDojoUrl)).orElseGet(this::getDefectDojoUrl);
+        // api-key may come from instance-config. if empty, then take it from global config (this)
+        final Secret apiKey = lookupApiKey(
+                Optional.ofNullable(StringUtils.trimToNull(defectDojoCredentialsId))
+                        .orElseGet(this::getDefectDojoCredentialsId),
+                item);
+        if (url == null) {
+            return FormValidation.error(Messages.Publisher_ConnectionTest_InputError());
+        }
+        CatalogCache.get().invalidate(url, PluginUtil.digestOf(apiKey));
+        return FormValidation.ok(Messages.Publisher_Catalogs_Refreshed());
+    }
+
     @POST
     public ListBoxModel doFillDefectDojoCredentialsIdItems(
             @QueryParameter final String credentialsId, @AncestorInPath final Item item) {
@@ -373,13 +571,58 @@ public class DescriptorImpl extends BuildStepDescriptor<Publisher> implements Se
         return PluginUtil.parseBaseUrl(defectDojoUrl);
     }
 
+    /**
+     * Adds the entities sorted by name as options.
+     *
+     * @param model the model to add to
+     * @param entities the entities to add
+     * @param nameAsValue if the name instead of the id is the value of an
+     * option
+     */
+    private static void addOptions(final ListBoxModel model, final IdNameList entities, final boolean nameAsValue) {
+        final IdNameList sorted = entities.sortedByName();
+        for (int i = 0; i < sorted.size(); i++) {
+            final String name = sorted.getName(i);
+            model.add(new ListBoxModel.Option(name, nameAsValue ? name : String.valueOf(sorted.getId(i))));
+        }
+    }
+
+    /**
+     * Lists products, engagements or scan types, preferably from the
+     * {@link CatalogCache}.
+     *
+     * @param parentId the id of the product to list engagements for
+     */
+    private IdNameList getCatalog(
+            final String baseUrl,
+            final Secret apiKey,
+            final CatalogCache.Kind kind,
+            @Nullable final String parentId)
+            throws ApiClientException {
+        final ApiClient apiClient = getClient(baseUrl, apiKey);
+        final CatalogCache.Key key = new CatalogCache.Key(baseUrl, PluginUtil.digestOf(apiKey), kind, parentId);
+        return CatalogCache.get().get(key, defectDojoCatalogMaxAge, () -> {
+            switch (kind) {
+                case PRODUCTS:
+                    return apiClient.getProducts();
+                case ENGAGEMENTS:
+                    return apiClient.getEngagements(parentId);
+                default:
+                    return apiClient.getScanTypes();
+            }
+        });
+    }
+
     private ApiClient getClient(final String baseUrl, final Secret apiKey) {
-        return clientFactory.create(
+        final ApiClient apiClient = clientFactory.create(
                 baseUrl,
                 apiKey,
                 new ConsoleLogger(),
                 Math.max(defectDojoConnectionTimeout, 0),
                 Math.max(defectDojoReadTimeout, 0));
+        apiClient.setPageSize(Math.max(defectDojoPageSize, 1));
+        apiClient.setPageParallelism(Math.max(defectDojoPageParallelism, 1));
+        return apiClient;
     }
 
     private Secret lookupApiKey(final String credentialId, final Item item) {
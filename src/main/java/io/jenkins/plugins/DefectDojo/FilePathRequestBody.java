@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.FilePath;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * Streams the content of a {@link FilePath}, which might be located on an
+ * agent, as request body. The file is read anew for every (re-)transmission.
+ */
+class FilePathRequestBody extends RequestBody {
+
+    private final FilePath file;
+    private final long length;
+
+    FilePathRequestBody(@NonNull final FilePath file) throws IOException, InterruptedException {
+        this(file, file.length());
+    }
+
+    /**
+     * @param length the length of the file, if already known
+     */
+    FilePathRequestBody(@NonNull final FilePath file, final long length) {
+        this.file = file;
+        this.length = length;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return ApiClient.OCTET_STREAM;
+    }
+
+    @Override
+    public long contentLength() {
+        return length;
+    }
+
+    @Override
+    public void writeTo(@NonNull final BufferedSink sink) throws IOException {
+        try (Source source = Okio.source(file.read())) {
+            sink.writeAll(source);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        }
+    }
+}
@@ -19,4 +19,15 @@ import okhttp3.OkHttpClient;
 interface HttpClientFactory {
 
     OkHttpClient create();
+
+    /**
+     * @param baseUrl the base url to DD instance without trailing slashes
+     * @param connectionTimeout the connection-timeout in seconds
+     * @param readTimeout the read-timeout in seconds
+     * @return a factory handing out the controller-wide shared client
+     * @see HttpClientRegistry
+     */
+    static HttpClientFactory shared(final String baseUrl, final int connectionTimeout, final int readTimeout) {
+        return () -> HttpClientRegistry.get().getClient(baseUrl, connectionTimeout, readTimeout);
+    }
 }
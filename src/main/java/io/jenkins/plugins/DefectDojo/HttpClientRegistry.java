@@ -0,0 +1,200 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.ProxyConfiguration;
+import hudson.init.Terminator;
+import hudson.util.Secret;
+import io.jenkins.plugins.okhttp.api.JenkinsOkHttpClient;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import jenkins.model.Jenkins;
+import lombok.Value;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+
+/**
+ * Controller-wide registry of the {@link OkHttpClient}s used to talk to
+ * DefectDojo. All clients handed out share one connection pool and
+ * dispatcher, so keep-alive connections are reused across builds and
+ * dropdown requests instead of paying a new TCP and TLS handshake for every
+ * {@link ApiClient}. The clients are rebuilt once the pool settings or the
+ * proxy of the controller change.
+ */
+final class HttpClientRegistry {
+
+    static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+    static final int DEFAULT_KEEP_ALIVE_DURATION = 300;
+
+    /**
+     * OkHttp's defaults of 5 per host and 64 in total would cap all uploads
+     * of the controller to an instance at 5
+     */
+    static final int DEFAULT_MAX_REQUESTS_PER_HOST = 32;
+
+    static final int DEFAULT_MAX_REQUESTS = 64;
+
+    private static final HttpClientRegistry INSTANCE = new HttpClientRegistry();
+
+    /**
+     * clients derived from {@link #sharedClient}, keyed by base url and
+     * timeouts
+     */
+    private final Map<ClientKey, OkHttpClient> clients = new HashMap<>();
+
+    /**
+     * the client owning the shared connection pool and dispatcher
+     */
+    private OkHttpClient sharedClient;
+
+    /**
+     * the pool and dispatcher settings {@link #sharedClient} was built with
+     */
+    private PoolSettings poolSettings;
+
+    /**
+     * the proxy of the controller {@link #sharedClient} was built with
+     */
+    private ProxySettings proxySettings;
+
+    private HttpClientRegistry() {}
+
+    @NonNull
+    static HttpClientRegistry get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the shared client for the given DefectDojo instance and timeouts.
+     *
+     * @param baseUrl the base url to DD instance without trailing slashes
+     * @param connectionTimeout the connection-timeout in seconds
+     * @param readTimeout the read-timeout in seconds
+     * @return a client sharing the controller-wide connection pool
+     */
+    @NonNull
+    synchronized OkHttpClient getClient(
+            @NonNull final String baseUrl, final int connectionTimeout, final int readTimeout) {
+        final PoolSettings settings = currentPoolSettings();
+        final ProxySettings proxy = currentProxySettings();
+        if (sharedClient == null || !settings.equals(poolSettings) || !proxy.equals(proxySettings)) {
+            invalidate();
+            final Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequests(settings.getMaxRequests());
+            dispatcher.setMaxRequestsPerHost(settings.getMaxRequestsPerHost());
+            sharedClient = JenkinsOkHttpClient.newClientBuilder(new OkHttpClient())
+                    .dispatcher(dispatcher)
+                    .connectionPool(new ConnectionPool(
+                            settings.getMaxIdleConnections(), settings.getKeepAliveDuration(), TimeUnit.SECONDS))
+                    .addInterceptor(new MetricsInterceptor(ApiMetrics.get()))
+                    .build();
+            poolSettings = settings;
+            proxySettings = proxy;
+        }
+        final OkHttpClient shared = sharedClient;
+        return clients.computeIfAbsent(
+                new ClientKey(baseUrl, connectionTimeout, readTimeout), key -> shared.newBuilder()
+                        .connectTimeout(Duration.ofSeconds(key.getConnectionTimeout()))
+                        .readTimeout(Duration.ofSeconds(key.getReadTimeout()))
+                        .build());
+    }
+
+    /**
+     * Drops all clients and closes their idle connections. Calls in flight
+     * are not affected.
+     */
+    synchronized void invalidate() {
+        if (sharedClient != null) {
+            sharedClient.connectionPool().evictAll();
+        }
+        sharedClient = null;
+        poolSettings = null;
+        proxySettings = null;
+        clients.clear();
+    }
+
+    @Terminator
+    public static void shutdown() {
+        get().invalidate();
+    }
+
+    @NonNull
+    private static PoolSettings currentPoolSettings() {
+        final DescriptorImpl descriptor = PluginUtil.getGlobalConfig();
+        if (descriptor == null) {
+            return new PoolSettings(
+                    DEFAULT_MAX_IDLE_CONNECTIONS,
+                    DEFAULT_KEEP_ALIVE_DURATION,
+                    DEFAULT_MAX_REQUESTS_PER_HOST,
+                    DEFAULT_MAX_REQUESTS);
+        }
+        return new PoolSettings(
+                Math.max(descriptor.getDefectDojoMaxIdleConnections(), 0),
+                Math.max(descriptor.getDefectDojoKeepAliveDuration(), 1),
+                Math.max(descriptor.getDefectDojoMaxRequestsPerHost(), 1),
+                Math.max(descriptor.getDefectDojoMaxRequests(), 1));
+    }
+
+    /**
+     * @return the proxy configured on the controller, which
+     * {@link JenkinsOkHttpClient} applies when the client is built
+     */
+    @NonNull
+    private static ProxySettings currentProxySettings() {
+        final Jenkins jenkins = Jenkins.getInstanceOrNull();
+        final ProxyConfiguration proxy = jenkins != null ? jenkins.getProxy() : null;
+        if (proxy == null) {
+            return ProxySettings.NONE;
+        }
+        return new ProxySettings(
+                proxy.getName(),
+                proxy.getPort(),
+                proxy.getUserName(),
+                proxy.getSecretPassword(),
+                proxy.getNoProxyHost());
+    }
+
+    @Value
+    private static class ClientKey {
+
+        String baseUrl;
+        int connectionTimeout;
+        int readTimeout;
+    }
+
+    @Value
+    private static class PoolSettings {
+
+        int maxIdleConnections;
+        int keepAliveDuration;
+        int maxRequestsPerHost;
+        int maxRequests;
+    }
+
+    @Value
+    private static class ProxySettings {
+
+        static final ProxySettings NONE = new ProxySettings(null, 0, null, null, null);
+
+        String name;
+        int port;
+        String userName;
+        Secret password;
+        String noProxyHost;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Compact, immutable list of the id and name of DefectDojo entities like
+ * products, engagements or scan types. Ids and names are kept in parallel
+ * arrays and names are interned, so even catalogs with tens of thousands of
+ * entities only cost a few MB of heap.
+ */
+public final class IdNameList {
+
+    static final IdNameList EMPTY = new IdNameList(new int[0], new String[0]);
+
+    private final int[] ids;
+    private final String[] names;
+
+    private IdNameList(final int[] ids, final String[] names) {
+        this.ids = ids;
+        this.names = names;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean isEmpty() {
+        return ids.length == 0;
+    }
+
+    public int getId(final int index) {
+        return ids[index];
+    }
+
+    @CheckForNull
+    public String getName(final int index) {
+        return names[index];
+    }
+
+    /**
+     * @return a copy of this list sorted by name
+     */
+    @NonNull
+    public IdNameList sortedByName() {
+        final Integer[] order = new Integer[ids.length];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparing(i -> names[i], Comparator.nullsFirst(Comparator.naturalOrder())));
+        final int[] sortedIds = new int[ids.length];
+        final String[] sortedNames = new String[names.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedIds[i] = ids[order[i]];
+            sortedNames[i] = names[order[i]];
+        }
+        return new IdNameList(sortedIds, sortedNames);
+    }
+
+    /**
+     * Collects id/name pairs in the order they are added.
+     */
+    static final class Builder {
+
+        private int[] ids;
+        private String[] names;
+        private int size;
+
+        Builder(final int initialCapacity) {
+            ids = new int[Math.max(initialCapacity, 16)];
+            names = new String[ids.length];
+        }
+
+        @NonNull
+        Builder add(final int id, @CheckForNull final String name) {
+            ensureCapacity(size + 1);
+            ids[size] = id;
+            names[size] = name != null ? name.intern() : null;
+            size++;
+            return this;
+        }
+
+        @NonNull
+        Builder addAll(@NonNull final IdNameList list) {
+            ensureCapacity(size + list.size());
+            // names of a built list are already interned
+            System.arraycopy(list.ids, 0, ids, size, list.size());
+            System.arraycopy(list.names, 0, names, size, list.size());
+            size += list.size();
+            return this;
+        }
+
+        private void ensureCapacity(final int capacity) {
+            if (capacity > ids.length) {
+                final int newCapacity = Math.max(capacity, ids.length * 2);
+                ids = Arrays.copyOf(ids, newCapacity);
+                names = Arrays.copyOf(names, newCapacity);
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        @NonNull
+        IdNameList build() {
+            return size == 0 ? EMPTY : new IdNameList(Arrays.copyOf(ids, size), Arrays.copyOf(names, size));
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.util.Secret;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicReference;
+import jenkins.MasterToSlaveFileCallable;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import okhttp3.RequestBody;
+
+/**
+ * Uploads a report from the node the workspace is located on. The report is
+ * sent directly from there to DefectDojo and never crosses the remoting
+ * channel, only the outcome of the import and the metrics of the calls are
+ * returned.
+ */
+@RequiredArgsConstructor
+class ImportScanCallable extends MasterToSlaveFileCallable<ImportScanCallable.Outcome> {
+
+    private static final long serialVersionUID = 6385471284137059436L;
+
+    @NonNull
+    private final String baseUrl;
+
+    @NonNull
+    private final Secret apiKey;
+
+    @NonNull
+    private final AgentClientSettings clientSettings;
+
+    @NonNull
+    private final ImportScanRequest request;
+
+    @NonNull
+    private final ProgressRequestBody.Settings uploadProgress;
+
+    @NonNull
+    private final TaskListener listener;
+
+    @Override
+    public Outcome invoke(final File file, final VirtualChannel channel) throws IOException, InterruptedException {
+        final ApiMetrics metrics = ApiMetrics.keepingCalls();
+        final ApiClient apiClient =
+                clientSettings.createClient(baseUrl, apiKey, new ConsoleLogger(listener.getLogger()), metrics);
+        apiClient.setUploadProgress(uploadProgress);
+        final AtomicReference<ImportStatistics> statistics = new AtomicReference<>(ImportStatistics.EMPTY);
+        apiClient.setImportListener((imported, importStatistics) -> statistics.set(importStatistics));
+        try {
+            final boolean imported = apiClient.importScan(request, RequestBody.create(file, ApiClient.OCTET_STREAM));
+            return new Outcome(imported ? statistics.get() : null, null, metrics);
+        } catch (IOException e) {
+            // returned rather than thrown, so the metrics are not lost
+            return new Outcome(null, e, metrics);
+        }
+    }
+
+    /**
+     * the outcome of an upload from an agent along with the metrics of the
+     * calls the agent made for it
+     */
+    @Value
+    static class Outcome implements Serializable {
+
+        private static final long serialVersionUID = 1956230478113620548L;
+
+        /**
+         * the statistics of the import or {@code null} if DefectDojo rejected
+         * the report or the upload failed
+         */
+        @CheckForNull
+        ImportStatistics statistics;
+
+        /**
+         * why the upload failed, {@code null} if DefectDojo responded
+         */
+        @CheckForNull
+        IOException failure;
+
+        @NonNull
+        ApiMetrics metrics;
+
+        /**
+         * Records the calls of the agent in the metrics of the controller's
+         * client and the outcome in its circuit breaker and rate limiter.
+         *
+         * @return the statistics of the import or {@code null} if DefectDojo
+         * rejected the report
+         * @throws IOException the failure of the upload
+         */
+        @CheckForNull
+        ImportStatistics record(@NonNull final ApiClient client) throws IOException {
+            client.getMetrics().add(metrics);
+            if (failure == null) {
+                client.getCircuitBreaker().recordSuccess();
+                client.getRateLimiter().recordSuccess();
+                return statistics;
+            }
+            final RetryableStatusException status = RetryableStatusException.find(failure);
+            if (status != null && !status.isOutage()) {
+                client.getRateLimiter().recordThrottled();
+            } else if (Outbox.isUnavailable(failure)) {
+                client.getRetryEngine().recordFailure(client.getCircuitBreaker());
+            }
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import java.io.Serializable;
+import java.util.Map;
+import lombok.Value;
+
+/**
+ * A fully resolved import-scan or reimport-scan request without the report
+ * itself. Product, engagement and test are resolved on the controller, so the
+ * request can be sent from wherever the report is located.
+ */
+@Value
+class ImportScanRequest implements Serializable {
+
+    private static final long serialVersionUID = -2317245542017353117L;
+
+    /**
+     * the endpoint to post to, either {@link ApiClient#UPLOAD_URL} or
+     * {@link ApiClient#REUPLOAD_URL}
+     */
+    String url;
+
+    /**
+     * the form fields to send along with the report
+     */
+    Map<String, String> fields;
+}
@@ -0,0 +1,285 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import org.jvnet.localizer.Localizable;
+
+/**
+ * The findings per severity after an import and how the import changed them,
+ * as reported by DefectDojo in its response to import-scan and reimport-scan.
+ * If DefectDojo reports no delta, e.g. for an import into a new test, all
+ * findings after the import count as new.
+ */
+public final class ImportStatistics implements Serializable {
+
+    private static final long serialVersionUID = -3807429116531264185L;
+
+    static final ImportStatistics EMPTY = new Builder().build();
+
+    /**
+     * the id of the test the report was imported into, if known
+     */
+    @CheckForNull
+    private final String test;
+
+    /**
+     * the id of the engagement the report was imported into, if known
+     */
+    @CheckForNull
+    private final String engagement;
+
+    /**
+     * counts indexed by {@link Severity#ordinal()}
+     */
+    private final int[] active;
+
+    private final int[] created;
+    private final int[] closed;
+    private final int[] reactivated;
+
+    private ImportStatistics(
+            @CheckForNull final String test,
+            @CheckForNull final String engagement,
+            final int[] active,
+            final int[] created,
+            final int[] closed,
+            final int[] reactivated) {
+        this.test = test;
+        this.engagement = engagement;
+        this.active = active;
+        this.created = created;
+        this.closed = closed;
+        this.reactivated = reactivated;
+    }
+
+    @CheckForNull
+    public String getTest() {
+        return test;
+    }
+
+    @CheckForNull
+    public String getEngagement() {
+        return engagement;
+    }
+
+    /**
+     * @return the active findings of the severity after the import
+     */
+    public int getActive(@NonNull final Severity severity) {
+        return active[severity.ordinal()];
+    }
+
+    /**
+     * @return the findings of the severity the import created
+     */
+    public int getCreated(@NonNull final Severity severity) {
+        return created[severity.ordinal()];
+    }
+
+    /**
+     * @return the findings of the severity the import closed
+     */
+    public int getClosed(@NonNull final Severity severity) {
+        return closed[severity.ordinal()];
+    }
+
+    /**
+     * @return the findings of the severity the import reactivated
+     */
+    public int getReactivated(@NonNull final Severity severity) {
+        return reactivated[severity.ordinal()];
+    }
+
+    public int getActive() {
+        return Arrays.stream(active).sum();
+    }
+
+    public int getCreated() {
+        return Arrays.stream(created).sum();
+    }
+
+    public int getClosed() {
+        return Arrays.stream(closed).sum();
+    }
+
+    public int getReactivated() {
+        return Arrays.stream(reactivated).sum();
+    }
+
+    /**
+     * @return the sum of both statistics, without a test or engagement
+     */
+    @NonNull
+    ImportStatistics plus(@NonNull final ImportStatistics other) {
+        return new ImportStatistics(
+                null,
+                null,
+                sum(active, other.active),
+                sum(created, other.created),
+                sum(closed, other.closed),
+                sum(reactivated, other.reactivated));
+    }
+
+    /**
+     * @return the counts by severity and in total, each as a map of
+     * {@code active}, {@code created}, {@code closed} and {@code reactivated},
+     * e.g. as the return value of a step
+     */
+    @NonNull
+    Map<String, Object> toMap() {
+        final Map<String, Object> map = new LinkedHashMap<>();
+        for (Severity severity : Severity.values()) {
+            map.put(
+                    severity.getKey(),
+                    counts(getActive(severity), getCreated(severity), getClosed(severity), getReactivated(severity)));
+        }
+        map.put("total", counts(getActive(), getCreated(), getClosed(), getReactivated()));
+        return map;
+    }
+
+    private static Map<String, Integer> counts(
+            final int active, final int created, final int closed, final int reactivated) {
+        final Map<String, Integer> counts = new LinkedHashMap<>();
+        counts.put("active", active);
+        counts.put("created", created);
+        counts.put("closed", closed);
+        counts.put("reactivated", reactivated);
+        return counts;
+    }
+
+    private static int[] sum(final int[] a, final int[] b) {
+        final int[] sum = new int[a.length];
+        Arrays.setAll(sum, i -> a[i] + b[i]);
+        return sum;
+    }
+
+    /**
+     * the severities of DefectDojo, the most severe first
+     */
+    public enum Severity {
+        CRITICAL(Messages._Statistics_Severity_Critical()),
+        HIGH(Messages._Statistics_Severity_High()),
+        MEDIUM(Messages._Statistics_Severity_Medium()),
+        LOW(Messages._Statistics_Severity_Low()),
+        INFO(Messages._Statistics_Severity_Info());
+
+        private final Localizable displayName;
+
+        Severity(final Localizable displayName) {
+            this.displayName = displayName;
+        }
+
+        /**
+         * @return the key of the severity in the statistics of DefectDojo
+         */
+        @NonNull
+        public String getKey() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        @NonNull
+        public String getDisplayName() {
+            return displayName.toString();
+        }
+
+        /**
+         * @return the severity of the key or {@code null} for e.g.
+         * {@code total}
+         */
+        @CheckForNull
+        static Severity of(@NonNull final String key) {
+            for (Severity severity : values()) {
+                if (severity.getKey().equals(key)) {
+                    return severity;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Collects the statistics while the response is decoded.
+     */
+    static final class Builder {
+
+        private String test;
+        private String engagement;
+        private final int[] active = new int[Severity.values().length];
+        private final int[] total = new int[Severity.values().length];
+        private final int[] created = new int[Severity.values().length];
+        private final int[] closed = new int[Severity.values().length];
+        private final int[] reactivated = new int[Severity.values().length];
+        private boolean delta;
+
+        Builder test(@CheckForNull final String test) {
+            this.test = test;
+            return this;
+        }
+
+        Builder engagement(@CheckForNull final String engagement) {
+            this.engagement = engagement;
+            return this;
+        }
+
+        /**
+         * @param status the status of the findings after the import, e.g.
+         * {@code active} or {@code total}
+         */
+        Builder after(@NonNull final Severity severity, @NonNull final String status, final int count) {
+            if ("active".equals(status)) {
+                active[severity.ordinal()] = count;
+            } else if ("total".equals(status)) {
+                total[severity.ordinal()] = count;
+            }
+            return this;
+        }
+
+        /**
+         * @param change how the import changed the findings, e.g.
+         * {@code created}
+         */
+        Builder delta(@NonNull final String change, @NonNull final Severity severity, final int count) {
+            delta = true;
+            switch (change) {
+                case "created":
+                    created[severity.ordinal()] = count;
+                    break;
+                case "closed":
+                    closed[severity.ordinal()] = count;
+                    break;
+                case "reactivated":
+                    reactivated[severity.ordinal()] = count;
+                    break;
+                default:
+                    break;
+            }
+            return this;
+        }
+
+        @NonNull
+        ImportStatistics build() {
+            return new ImportStatistics(
+                    test,
+                    engagement,
+                    active.clone(), delta ? created.clone() : total.clone(), closed.clone(), reactivated.clone());
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Run;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import jenkins.model.RunAction2;
+import lombok.Value;
+
+/**
+ * The statistics of the reports the build imported into DefectDojo, decoded
+ * from the responses to the uploads, so no further calls are needed to learn
+ * about the findings. Shown on the build page and returned by the
+ * {@code defectDojoStatistics} and {@code defectDojoWait} steps.
+ */
+public class ImportStatisticsAction implements RunAction2 {
+
+    /**
+     * guards attaching the action, core locks on the build itself
+     */
+    private static final Object ATTACH_LOCK = new Object();
+
+    private transient Run<?, ?> run;
+
+    /**
+     * copied on write, as the build may be saved while a background
+     * publication adds to it
+     */
+    private final List<Report> reports = new CopyOnWriteArrayList<>();
+
+    /**
+     * @return the action of the build, attached if not yet present
+     */
+    @NonNull
+    static ImportStatisticsAction of(@NonNull final Run<?, ?> run) {
+        synchronized (ATTACH_LOCK) {
+            ImportStatisticsAction action = run.getAction(ImportStatisticsAction.class);
+            if (action == null) {
+                action = new ImportStatisticsAction();
+                action.run = run;
+                run.addAction(action);
+                PluginUtil.saveIfCompleted(run);
+            }
+            return action;
+        }
+    }
+
+    /**
+     * @return the statistics of the build as of {@link #toMap()}, all counts
+     * 0 if it imported nothing
+     */
+    @NonNull
+    static Map<String, Object> statisticsOf(@NonNull final Run<?, ?> run) {
+        final ImportStatisticsAction action = run.getAction(ImportStatisticsAction.class);
+        return action != null ? action.toMap() : new ImportStatisticsAction().toMap();
+    }
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.Statistics_DisplayName();
+    }
+
+    @Override
+    public String getUrlName() {
+        return null;
+    }
+
+    @Override
+    public void onAttached(final Run<?, ?> r) {
+        run = r;
+    }
+
+    @Override
+    public void onLoad(final Run<?, ?> r) {
+        run = r;
+    }
+
+    /**
+     * Adds the statistics of a report, saving the build if it already
+     * completed, e.g. when published in the background.
+     */
+    void add(@NonNull final String path, @NonNull final String scanType, @NonNull final ImportStatistics statistics) {
+        reports.add(new Report(path, scanType, statistics));
+        if (run != null) {
+            PluginUtil.saveIfCompleted(run);
+        }
+    }
+
+    @NonNull
+    public List<Report> getReports() {
+        return new ArrayList<>(reports);
+    }
+
+    /**
+     * @return the sum of the statistics of all reports
+     */
+    @NonNull
+    public ImportStatistics getTotal() {
+        return reports.stream()
+                .map(Report::getStatistics)
+                .reduce(ImportStatistics.EMPTY, ImportStatistics::plus);
+    }
+
+    @NonNull
+    public List<ImportStatistics.Severity> getSeverities() {
+        return Arrays.asList(ImportStatistics.Severity.values());
+    }
+
+    /**
+     * @return the total counts as of {@link ImportStatistics#toMap()} and
+     * those of each report under {@code reports}, together with its
+     * {@code path}, {@code scanType} and {@code test}
+     */
+    @NonNull
+    Map<String, Object> toMap() {
+        final Map<String, Object> map = getTotal().toMap();
+        final List<Map<String, Object>> perReport = new ArrayList<>(reports.size());
+        for (Report report : reports) {
+            final Map<String, Object> reportMap = report.getStatistics().toMap();
+            reportMap.put("path", report.getPath());
+            reportMap.put("scanType", report.getScanType());
+            reportMap.put("test", report.getStatistics().getTest());
+            perReport.add(reportMap);
+        }
+        map.put("reports", perReport);
+        return map;
+    }
+
+    /**
+     * the statistics of a single report
+     */
+    @Value
+    public static class Report {
+
+        String path;
+        String scanType;
+        ImportStatistics statistics;
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.io.InputStream;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Streaming decoders for DefectDojo responses. They only read as much of a
+ * response as needed and never materialize it as a whole.
+ */
+@UtilityClass
+class JsonResponseParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * Reads the {@code id} of the first element of {@code results} and stops
+     * reading right there.
+     *
+     * @param in the response body
+     * @return the id or {@code null} if there are no results
+     * @throws IOException if the response is not valid JSON
+     */
+    @CheckForNull
+    static String readFirstResultId(@NonNull final InputStream in) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            if (!moveToField(parser, "results") || parser.currentToken() != JsonToken.START_ARRAY) {
+                return null;
+            }
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            return readScalarField(parser, "id");
+        }
+    }
+
+    /**
+     * Reads the ids of the test and engagement and the statistics of an
+     * import-scan or reimport-scan response, skipping everything else, e.g.
+     * the options the report was imported with.
+     *
+     * @param in the response body
+     * @return the statistics, empty if the response has none
+     * @throws IOException if the response is not valid JSON
+     */
+    @NonNull
+    static ImportStatistics readImportStatistics(@NonNull final InputStream in) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            final ImportStatistics.Builder statistics = new ImportStatistics.Builder();
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return statistics.build();
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.currentName();
+                final JsonToken value = parser.nextToken();
+                if (("test".equals(field) || "test_id".equals(field)) && value.isNumeric()) {
+                    statistics.test(parser.getText());
+                } else if (("engagement".equals(field) || "engagement_id".equals(field)) && value.isNumeric()) {
+                    statistics.engagement(parser.getText());
+                } else if ("statistics".equals(field) && value == JsonToken.START_OBJECT) {
+                    readStatistics(parser, statistics);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return statistics.build();
+        }
+    }
+
+    /**
+     * Reads the {@code statistics} object the parser is positioned at, i.e.
+     * {@code after} and the {@code delta} by change, each with the counts by
+     * severity and status.
+     */
+    private static void readStatistics(final JsonParser parser, final ImportStatistics.Builder statistics)
+            throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.currentName();
+            final JsonToken value = parser.nextToken();
+            if ("after".equals(field) && value == JsonToken.START_OBJECT) {
+                readSeverityCounts(parser, statistics::after);
+            } else if ("delta".equals(field) && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    final String change = parser.currentName();
+                    if (parser.nextToken() == JsonToken.START_OBJECT) {
+                        readSeverityCounts(parser, (severity, status, count) -> {
+                            if ("total".equals(status)) {
+                                statistics.delta(change, severity, count);
+                            }
+                        });
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Reads the object the parser is positioned at, which holds the counts by
+     * status of each severity.
+     */
+    private static void readSeverityCounts(final JsonParser parser, final SeverityCount consumer) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final ImportStatistics.Severity severity = ImportStatistics.Severity.of(parser.currentName());
+            if (parser.nextToken() != JsonToken.START_OBJECT || severity == null) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String status = parser.currentName();
+                if (parser.nextToken() == JsonToken.VALUE_NUMBER_INT) {
+                    consumer.accept(severity, status, parser.getIntValue());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    /**
+     * Looks for a field of an action in the metadata DefectDojo responds to
+     * {@code OPTIONS} with, e.g. whether {@code POST} accepts a form field.
+     * Actions the user is not permitted to perform are not described.
+     *
+     * @param in the response body
+     * @param action the HTTP method, e.g. {@code POST}
+     * @param name the field to look for
+     * @return {@code true} if the action accepts the field
+     * @throws IOException if the response is not valid JSON
+     */
+    static boolean hasActionField(
+            @NonNull final InputStream in, @NonNull final String action, @NonNull final String name)
+            throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            if (!moveToField(parser, "actions") || parser.currentToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String method = parser.currentName();
+                final JsonToken value = parser.nextToken();
+                if (!action.equals(method) || value != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    if (name.equals(parser.currentName())) {
+                        return true;
+                    }
+                    parser.nextToken();
+                    parser.skipChildren();
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Reads a page of a list endpoint, keeping only {@code id} and
+     * {@code name} of each result.
+     *
+     * @param in the response body
+     * @param offset the offset the page was requested with
+     * @return the decoded page
+     * @throws IOException if the response is not valid JSON
+     */
+    @NonNull
+    static ApiClient.Page readIdNamePage(@NonNull final InputStream in, final int offset) throws IOException {
+        return readIdNamePage(in, offset, "name");
+    }
+
+    /**
+     * Reads a page of a list endpoint, keeping only {@code id} and the given
+     * field as name of each result, e.g. {@code scan_type} of tests.
+     *
+     * @param in the response body
+     * @param offset the offset the page was requested with
+     * @param nameField the field to keep as name
+     * @return the decoded page
+     * @throws IOException if the response is not valid JSON
+     */
+    @NonNull
+    static ApiClient.Page readIdNamePage(
+            @NonNull final InputStream in, final int offset, @NonNull final String nameField) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            int count = -1;
+            Boolean nextAvailable = null;
+            IdNameList results = IdNameList.EMPTY;
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return ApiClient.Page.EMPTY;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.currentName();
+                final JsonToken value = parser.nextToken();
+                if ("count".equals(field) && value == JsonToken.VALUE_NUMBER_INT) {
+                    count = parser.getIntValue();
+                } else if ("next".equals(field)) {
+                    nextAvailable = value == JsonToken.VALUE_STRING;
+                } else if ("results".equals(field) && value == JsonToken.START_ARRAY) {
+                    results = readIdNames(parser, nameField);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (nextAvailable == null) {
+                // no next link, so fall back to the count
+                nextAvailable = count > offset + results.size();
+            }
+            return new ApiClient.Page(results, count, nextAvailable);
+        }
+    }
+
+    /**
+     * Reads the array the parser is positioned at.
+     */
+    @NonNull
+    private static IdNameList readIdNames(final JsonParser parser, final String nameField) throws IOException {
+        final IdNameList.Builder builder = new IdNameList.Builder(ApiClient.DEFAULT_PAGE_SIZE);
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            int id = 0;
+            String name = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.currentName();
+                final JsonToken value = parser.nextToken();
+                if ("id".equals(field) && value.isNumeric()) {
+                    id = parser.getValueAsInt();
+                } else if (nameField.equals(field) && value == JsonToken.VALUE_STRING) {
+                    name = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            builder.add(id, name);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Moves the parser positioned before a top-level object to the value of
+     * the given top-level field, skipping all other fields.
+     *
+     * @return {@code true} if the field was found
+     */
+    private static boolean moveToField(final JsonParser parser, final String name) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return false;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.currentName();
+            parser.nextToken();
+            if (name.equals(field)) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    /**
+     * Reads a scalar field of the object the parser is positioned at, skipping
+     * nested objects and arrays.
+     *
+     * @return the value as text or {@code null} if absent
+     */
+    @CheckForNull
+    private static String readScalarField(final JsonParser parser, final String name) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.currentName();
+            final JsonToken value = parser.nextToken();
+            if (name.equals(field) && value.isScalarValue() && value != JsonToken.VALUE_NULL) {
+                return parser.getText();
+            }
+            parser.skipChildren();
+        }
+        return null;
+    }
+
+    @FunctionalInterface
+    private interface SeverityCount {
+
+        void accept(ImportStatistics.Severity severity, String status, int count);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * Records every call to DefectDojo in the {@link ApiMetrics}. The bytes of a
+ * response body are counted while the caller reads it.
+ */
+final class MetricsInterceptor implements Interceptor {
+
+    private final ApiMetrics metrics;
+
+    MetricsInterceptor(@NonNull final ApiMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull final Chain chain) throws IOException {
+        final Request request = chain.request();
+        final ApiMetrics.Endpoint endpoint = ApiMetrics.Endpoint.of(request.url());
+        final RequestBody body = request.body();
+        final long requestBytes = body != null ? body.contentLength() : 0;
+        final long start = System.nanoTime();
+        final Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException e) {
+            metrics.recordFailure(endpoint, System.nanoTime() - start, requestBytes);
+            throw e;
+        }
+        metrics.recordCall(endpoint, System.nanoTime() - start, requestBytes, response.code());
+        final ResponseBody responseBody = response.body();
+        if (responseBody == null) {
+            return response;
+        }
+        return response.newBuilder().body(new CountingResponseBody(responseBody, endpoint)).build();
+    }
+
+    private final class CountingResponseBody extends ResponseBody {
+
+        private final ResponseBody delegate;
+        private final BufferedSource source;
+
+        CountingResponseBody(final ResponseBody delegate, final ApiMetrics.Endpoint endpoint) {
+            this.delegate = delegate;
+            source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                @Override
+                public long read(@NonNull final Buffer sink, final long byteCount) throws IOException {
+                    final long read = super.read(sink, byteCount);
+                    if (read > 0) {
+                        metrics.recordResponseBytes(endpoint, read);
+                    }
+                    return read;
+                }
+            });
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @NonNull
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import hudson.Extension;
+import hudson.model.RootAction;
+import java.io.Writer;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.verb.GET;
+
+/**
+ * Serves the {@link ApiMetrics} in the Prometheus text format at
+ * {@code /defectdojo/metrics}, so they can be scraped without further plugins.
+ */
+@Extension
+public class MetricsRootAction implements RootAction {
+
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=UTF-8";
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.Metrics_DisplayName();
+    }
+
+    @Override
+    public String getUrlName() {
+        return "defectdojo";
+    }
+
+    @GET
+    public HttpResponse doMetrics() {
+        Jenkins.get().checkPermission(Jenkins.SYSTEM_READ);
+        return (req, rsp, node) -> {
+            rsp.setContentType(CONTENT_TYPE);
+            try (Writer out = rsp.getWriter()) {
+                ApiMetrics.get().writePrometheus(out);
+            }
+        };
+    }
+}
@@ -0,0 +1,439 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import com.cloudbees.plugins.credentials.CredentialsMatchers;
+import com.cloudbees.plugins.credentials.CredentialsProvider;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.FilePath;
+import hudson.XmlFile;
+import hudson.model.Run;
+import hudson.security.ACL;
+import hudson.util.Secret;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import jenkins.model.Jenkins;
+import okhttp3.RequestBody;
+import org.jenkinsci.plugins.plaincredentials.StringCredentials;
+
+/**
+ * Durable spool of uploads that failed because DefectDojo was unavailable,
+ * kept in JENKINS_HOME. Each item consists of a copy of the report and its
+ * resolved request. {@link OutboxDrainer} replays them in the order they were
+ * spooled once DefectDojo is available again. The API key is not spooled, it
+ * is looked up by the id of its credentials when an item is replayed.
+ * <p>
+ * A spooled reimport supersedes any older one into the same test, so an
+ * outdated report never overwrites a newer one. The oldest items are evicted
+ * if the spool exceeds its size.
+ */
+final class Outbox {
+
+    /**
+     * the default size of the spool in MiB
+     */
+    static final int DEFAULT_SIZE = 512;
+
+    private static final Logger LOGGER = Logger.getLogger(Outbox.class.getName());
+
+    private static final String REPORT_SUFFIX = ".report";
+    private static final String ITEM_SUFFIX = ".xml";
+
+    private static Outbox instance;
+
+    private final File directory;
+
+    /**
+     * the spooled items, oldest first
+     */
+    private final List<OutboxItem> items = new ArrayList<>();
+
+    private long lastId;
+
+    Outbox(@NonNull final File directory) {
+        this.directory = directory;
+    }
+
+    @NonNull
+    static synchronized Outbox get() {
+        if (instance == null) {
+            instance = new Outbox(new File(Jenkins.get().getRootDir(), Outbox.class.getName()));
+            instance.load();
+        }
+        return instance;
+    }
+
+    /**
+     * @return whether an upload failed because DefectDojo was unreachable,
+     * unavailable or throttled it, rather than rejected the report. An import
+     * DefectDojo might have processed is not to be replayed.
+     */
+    static boolean isUnavailable(@CheckForNull final Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ApiClient.UnconfirmedCreationException) {
+                return false;
+            }
+            if (t instanceof CircuitBreaker.OpenException || t instanceof RetryableStatusException) {
+                return true;
+            }
+            if (t instanceof IOException && !(t instanceof ApiClientException)) {
+                // connection failures and timeouts
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Spools a copy of a report.
+     *
+     * @param maxSize the size of the spool in bytes
+     * @return the spooled item or {@code null} if the report exceeds the size
+     * of the spool
+     * @throws IOException if the report could not be copied
+     * @throws InterruptedException if interrupted while copying
+     */
+    @CheckForNull
+    OutboxItem spool(
+            @NonNull final String origin,
+            @NonNull final String baseUrl,
+            @NonNull final String credentialsId,
+            @NonNull final String path,
+            @NonNull final String scanType,
+            @NonNull final FilePath report,
+            final long length,
+            @NonNull final ImportScanRequest request,
+            @CheckForNull final String digest,
+            final long maxSize)
+            throws IOException, InterruptedException {
+        if (length > maxSize) {
+            return null;
+        }
+        final OutboxItem item;
+        synchronized (this) {
+            final long now = System.currentTimeMillis();
+            lastId = Math.max(lastId + 1, now);
+            item = new OutboxItem(
+                    String.format("%016d", lastId),
+                    now,
+                    origin,
+                    baseUrl,
+                    credentialsId,
+                    path,
+                    scanType,
+                    length,
+                    request,
+                    digest);
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        report.copyTo(new FilePath(reportOf(item)));
+        try {
+            xmlOf(item).write(item);
+        } catch (IOException e) {
+            delete(item);
+            throw e;
+        }
+        synchronized (this) {
+            supersede(item.destination());
+            items.add(item);
+            evict(maxSize);
+        }
+        return item;
+    }
+
+    /**
+     * @return a snapshot of the spooled items, oldest first
+     */
+    @NonNull
+    synchronized List<OutboxItem> list() {
+        return new ArrayList<>(items);
+    }
+
+    /**
+     * @return the spooled item with the id or {@code null} if there is none
+     */
+    @CheckForNull
+    synchronized OutboxItem find(@NonNull final String id) {
+        return items.stream().filter(item -> item.getId().equals(id)).findFirst().orElse(null);
+    }
+
+    synchronized int size() {
+        return items.size();
+    }
+
+    /**
+     * @return the total length of the spooled reports in bytes
+     */
+    synchronized long totalLength() {
+        return items.stream().mapToLong(OutboxItem::getLength).sum();
+    }
+
+    /**
+     * Removes an item, e.g. because it was replayed.
+     */
+    synchronized void remove(@NonNull final OutboxItem item) {
+        if (items.remove(item)) {
+            delete(item);
+        }
+    }
+
+    /**
+     * Removes the item reimporting into a test, as a newer report was
+     * uploaded to it.
+     *
+     * @param destination the key of the test as by {@link UploadIndex#keyOf}
+     */
+    synchronized void supersede(@CheckForNull final String destination) {
+        if (destination == null) {
+            return;
+        }
+        final Iterator<OutboxItem> iterator = items.iterator();
+        while (iterator.hasNext()) {
+            final OutboxItem item = iterator.next();
+            if (destination.equals(item.destination())) {
+                LOGGER.log(Level.FINE, () -> "Dropping superseded " + item.getId());
+                iterator.remove();
+                delete(item);
+            }
+        }
+    }
+
+    /**
+     * Records a failed attempt to replay an item.
+     */
+    synchronized void recordAttempt(@NonNull final OutboxItem item, @CheckForNull final String error) {
+        item.recordAttempt(error);
+        if (items.contains(item)) {
+            try {
+                xmlOf(item).write(item);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, e, () -> "Could not save " + item.getId());
+            }
+        }
+    }
+
+    /**
+     * Replays the spooled items of every instance that is available, one at
+     * a time in the order they were spooled, so DefectDojo imports them in
+     * that order too. Items DefectDojo rejects are dropped, as replaying them
+     * again would not help. The first item kept, e.g. as its instance is
+     * unavailable again or its credentials are gone, stops the replay of the
+     * items spooled for the instance after it.
+     *
+     * @throws InterruptedException if interrupted while waiting for uploads
+     * @throws IOException if an upload could not be started
+     */
+    void drain(@NonNull final ConsoleLogger logger) throws InterruptedException, IOException {
+        final DescriptorImpl descriptor = PluginUtil.getGlobalConfig();
+        if (descriptor == null) {
+            return;
+        }
+        final Map<String, List<OutboxItem>> byInstance = list().stream()
+                .collect(Collectors.groupingBy(OutboxItem::getBaseUrl, LinkedHashMap::new, Collectors.toList()));
+        for (Map.Entry<String, List<OutboxItem>> entry : byInstance.entrySet()) {
+            final String baseUrl = entry.getKey();
+            final List<OutboxItem> pending = entry.getValue();
+            if (CircuitBreaker.forInstance(baseUrl).isOpen()) {
+                logger.log(Messages.Outbox_Unavailable(baseUrl, pending.size()));
+                continue;
+            }
+            final Secret probeKey = lookupApiKey(pending.get(0));
+            try {
+                if (probeKey != null) {
+                    createClient(descriptor, baseUrl, probeKey, logger).testConnection();
+                }
+            } catch (ApiClientException e) {
+                logger.log(Messages.Outbox_Unavailable(baseUrl, pending.size()));
+                continue;
+            }
+            final int replayed = replayInOrder(descriptor, pending, logger);
+            UploadIndex.get().flush();
+            logger.log(Messages.Outbox_Drained(replayed, pending.size(), baseUrl));
+        }
+    }
+
+    /**
+     * @return the number of items replayed successfully
+     */
+    private int replayInOrder(
+            final DescriptorImpl descriptor, final List<OutboxItem> pending, final ConsoleLogger logger)
+            throws InterruptedException, IOException {
+        int replayed = 0;
+        for (OutboxItem item : pending) {
+            final CompletableFuture<Boolean> result = replay(descriptor, item, logger);
+            try {
+                if (result.get()) {
+                    replayed++;
+                } else if (contains(item)) {
+                    // replaying later items would overtake it
+                    break;
+                }
+            } catch (InterruptedException e) {
+                result.cancel(true);
+                throw e;
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            }
+        }
+        return replayed;
+    }
+
+    private synchronized boolean contains(final OutboxItem item) {
+        return items.contains(item);
+    }
+
+    /**
+     * Replays an item, unless it was superseded or discarded since the
+     * drain started.
+     */
+    private CompletableFuture<Boolean> replay(
+            final DescriptorImpl descriptor, final OutboxItem item, final ConsoleLogger logger) {
+        if (!contains(item)) {
+            logger.log(Messages.Outbox_Superseded(item.getPath(), item.getScanType(), item.getOrigin()));
+            return CompletableFuture.completedFuture(true);
+        }
+        final Secret apiKey = lookupApiKey(item);
+        if (apiKey == null) {
+            final String error = Messages.Outbox_NoCredentials(item.getCredentialsId(), item.getPath());
+            logger.log(error);
+            recordAttempt(item, error);
+            return CompletableFuture.completedFuture(false);
+        }
+        final File report = reportOf(item);
+        return createClient(descriptor, item.getBaseUrl(), apiKey, logger)
+                .async()
+                .importScan(item.getRequest(), RequestBody.create(report, ApiClient.OCTET_STREAM))
+                .handle((success, e) -> {
+                    if (e == null && Boolean.TRUE.equals(success)) {
+                        logger.log(Messages.Outbox_Replayed(item.getPath(), item.getScanType(), item.getOrigin()));
+                        final String destination = item.destination();
+                        if (destination != null && item.getDigest() != null) {
+                            UploadIndex.get().record(destination, item.getDigest());
+                        }
+                        remove(item);
+                        return true;
+                    }
+                    if (isUnavailable(e)) {
+                        recordAttempt(item, e.getMessage());
+                        return false;
+                    }
+                    if (e != null) {
+                        logger.log(e.getMessage());
+                    }
+                    logger.log(Messages.Outbox_Rejected(item.getPath(), item.getScanType(), item.getOrigin()));
+                    remove(item);
+                    return false;
+                });
+    }
+
+    /**
+     * Looks up the API key of an item in the context of the build that
+     * spooled it or, if that is gone, among the global credentials.
+     *
+     * @return the API key or {@code null} if the credentials are gone
+     */
+    @CheckForNull
+    private static Secret lookupApiKey(final OutboxItem item) {
+        final Run<?, ?> run = Run.fromExternalizableId(item.getOrigin());
+        final StringCredentials credentials = run != null
+                ? CredentialsProvider.findCredentialById(item.getCredentialsId(), StringCredentials.class, run)
+                : CredentialsMatchers.firstOrNull(
+                        CredentialsProvider.lookupCredentials(
+                                StringCredentials.class, Jenkins.get(), ACL.SYSTEM, Collections.emptyList()),
+                        CredentialsMatchers.withId(item.getCredentialsId()));
+        return credentials != null ? credentials.getSecret() : null;
+    }
+
+    private static ApiClient createClient(
+            final DescriptorImpl descriptor, final String baseUrl, final Secret apiKey, final ConsoleLogger logger) {
+        return new ApiClient(
+                baseUrl,
+                apiKey,
+                logger,
+                descriptor.getDefectDojoConnectionTimeout(),
+                descriptor.getDefectDojoReadTimeout());
+    }
+
+    /**
+     * Drops the oldest items until the spool fits its size.
+     */
+    private void evict(final long maxSize) {
+        long total = totalLength();
+        final Iterator<OutboxItem> iterator = items.iterator();
+        while (total > maxSize && iterator.hasNext()) {
+            final OutboxItem item = iterator.next();
+            LOGGER.log(Level.WARNING, () -> String.format(
+                    "Evicting %s of %s from the outbox as it exceeds %d bytes",
+                    item.getPath(), item.getOrigin(), maxSize));
+            iterator.remove();
+            delete(item);
+            total -= item.getLength();
+        }
+    }
+
+    synchronized void load() {
+        items.clear();
+        final File[] files = directory.listFiles((dir, name) -> name.endsWith(ITEM_SUFFIX));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            try {
+                final Object item = new XmlFile(Jenkins.XSTREAM2, file).read();
+                if (item instanceof OutboxItem && reportOf((OutboxItem) item).isFile()) {
+                    items.add((OutboxItem) item);
+                } else {
+                    LOGGER.log(Level.WARNING, () -> "Ignoring incomplete " + file);
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, e, () -> "Could not load " + file);
+            }
+        }
+        items.sort(Comparator.comparing(OutboxItem::getId));
+        if (!items.isEmpty()) {
+            lastId = Long.parseLong(items.get(items.size() - 1).getId());
+        }
+    }
+
+    private void delete(final OutboxItem item) {
+        for (File file : new File[] {reportOf(item), xmlOf(item).getFile()}) {
+            if (file.exists() && !file.delete()) {
+                LOGGER.log(Level.WARNING, () -> "Could not delete " + file);
+            }
+        }
+    }
+
+    private File reportOf(final OutboxItem item) {
+        return new File(directory, item.getId() + REPORT_SUFFIX);
+    }
+
+    private XmlFile xmlOf(final OutboxItem item) {
+        return new XmlFile(Jenkins.XSTREAM2, new File(directory, item.getId() + ITEM_SUFFIX));
+    }
+}
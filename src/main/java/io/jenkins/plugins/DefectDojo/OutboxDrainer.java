@@ -0,0 +1,45 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import hudson.Extension;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.TaskListener;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays the uploads spooled to the {@link Outbox} every minute. Its log is
+ * kept with the other periodic tasks in JENKINS_HOME/logs/tasks.
+ */
+@Extension
+public class OutboxDrainer extends AsyncPeriodicWork {
+
+    public OutboxDrainer() {
+        super("DefectDojo Outbox");
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return TimeUnit.MINUTES.toMillis(1);
+    }
+
+    @Override
+    protected void execute(final TaskListener listener) throws IOException, InterruptedException {
+        final Outbox outbox = Outbox.get();
+        if (outbox.size() > 0) {
+            outbox.drain(new ConsoleLogger(listener.getLogger()));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * An upload spooled to the {@link Outbox}, resolved completely so it can be
+ * replayed without the build it stems from.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+final class OutboxItem {
+
+    /**
+     * the name of the files of the item, spooled items sort by it
+     */
+    @NonNull
+    private final String id;
+
+    /**
+     * the time in milliseconds since the epoch the item was spooled at
+     */
+    private final long created;
+
+    /**
+     * the externalizable id of the build that spooled the item
+     */
+    @NonNull
+    private final String origin;
+
+    @NonNull
+    private final String baseUrl;
+
+    /**
+     * the id of the credentials holding the API key, which is looked up again
+     * when the item is replayed rather than persisted along with it
+     */
+    @NonNull
+    private final String credentialsId;
+
+    /**
+     * the path of the report relative to the workspace, for logging
+     */
+    @NonNull
+    private final String path;
+
+    @NonNull
+    private final String scanType;
+
+    private final long length;
+
+    @NonNull
+    private final ImportScanRequest request;
+
+    /**
+     * the digest to record in the {@link UploadIndex} once uploaded, if
+     * unchanged reports are skipped
+     */
+    @CheckForNull
+    private final String digest;
+
+    private int attempts;
+
+    @CheckForNull
+    private String lastError;
+
+    /**
+     * @return the test the item reimports into, if any
+     */
+    @CheckForNull
+    String destination() {
+        return UploadIndex.keyOf(baseUrl, request);
+    }
+
+    void recordAttempt(@CheckForNull final String error) {
+        attempts++;
+        lastError = error;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Runs uploads with a bounded number of them in flight. Uploads are started in
+ * the order given and the next one starts as soon as one completes.
+ */
+@UtilityClass
+class ParallelUploads {
+
+    /**
+     * Runs all uploads and waits for them to complete. If the waiting thread is
+     * interrupted, all uploads in flight are cancelled.
+     *
+     * @param uploads the uploads in the order they should be started
+     * @param parallelism the maximum number of uploads in flight
+     * @param upload starts an upload, which completes with {@code true} on
+     * success. It must not complete exceptionally.
+     * @return the number of failed uploads
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IOException if an upload could not be started
+     */
+    static <T> int runAll(
+            @NonNull final List<T> uploads,
+            final int parallelism,
+            @NonNull final Function<T, CompletableFuture<Boolean>> upload)
+            throws InterruptedException, IOException {
+        final Iterator<T> pending = uploads.iterator();
+        final Set<CompletableFuture<Boolean>> inFlight = ConcurrentHashMap.newKeySet();
+        final AtomicInteger failures = new AtomicInteger();
+        final int workers = Math.max(1, Math.min(parallelism, uploads.size()));
+        final CompletableFuture<?>[] chains = new CompletableFuture<?>[workers];
+        for (int i = 0; i < workers; i++) {
+            chains[i] = next(pending, upload, inFlight, failures);
+        }
+        try {
+            CompletableFuture.allOf(chains).get();
+        } catch (InterruptedException e) {
+            synchronized (pending) {
+                // do not start anything else
+                while (pending.hasNext()) {
+                    pending.next();
+                }
+            }
+            inFlight.forEach(f -> f.cancel(true));
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+        return failures.get();
+    }
+
+    private static <T> CompletableFuture<Void> next(
+            final Iterator<T> pending,
+            final Function<T, CompletableFuture<Boolean>> upload,
+            final Set<CompletableFuture<Boolean>> inFlight,
+            final AtomicInteger failures) {
+        final T item;
+        synchronized (pending) {
+            if (!pending.hasNext()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            item = pending.next();
+        }
+        final CompletableFuture<Boolean> current = upload.apply(item);
+        inFlight.add(current);
+        return current.handle((success, e) -> {
+                    inFlight.remove(current);
+                    if (e != null || !Boolean.TRUE.equals(success)) {
+                        failures.incrementAndGet();
+                    }
+                    return null;
+                })
+                .thenCompose(ignored -> next(pending, upload, inFlight, failures));
+    }
+}
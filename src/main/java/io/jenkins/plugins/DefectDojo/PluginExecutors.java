@@ -0,0 +1,43 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Thread pools shared by the plugin. Callers are responsible for bounding
+ * their own concurrency.
+ */
+@UtilityClass
+class PluginExecutors {
+
+    /**
+     * @return the pool for blocking calls to DefectDojo
+     */
+    @NonNull
+    static ExecutorService io() {
+        return IoHolder.POOL;
+    }
+
+    private static final class IoHolder {
+
+        static final ExecutorService POOL = Executors.newCachedThreadPool(
+                new NamingThreadFactory(new DaemonThreadFactory(), "DefectDojo I/O"));
+    }
+}
@@ -13,19 +13,30 @@
  */
 package io.jenkins.plugins.DefectDojo;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
+import hudson.FilePath;
+import hudson.model.Run;
 import hudson.util.FormValidation;
+import hudson.util.Secret;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Collection;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
 import lombok.experimental.UtilityClass;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.Validate;
 
 @UtilityClass
 class PluginUtil {
 
+    private static final Logger LOGGER = Logger.getLogger(PluginUtil.class.getName());
+
     /**
      * Performs input validation when submitting the global config
      *
@@ -48,6 +59,51 @@ class PluginUtil {
         return FormValidation.ok();
     }
 
+    /**
+     * @return the global configuration or {@code null} if Jenkins is not
+     * running, e.g. on an agent
+     */
+    @CheckForNull
+    static DescriptorImpl getGlobalConfig() {
+        final Jenkins jenkins = Jenkins.getInstanceOrNull();
+        return jenkins != null ? jenkins.getDescriptorByType(DescriptorImpl.class) : null;
+    }
+
+    /**
+     * Saves a build whose actions changed after it completed, e.g. by a
+     * publication in the background, as they would be lost on reload
+     * otherwise. A running build is saved once it completes anyway.
+     */
+    static void saveIfCompleted(@NonNull final Run<?, ?> run) {
+        if (run.isBuilding()) {
+            return;
+        }
+        try {
+            run.save();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, e, () -> "Could not save " + run.getExternalizableId());
+        }
+    }
+
+    /**
+     * @return the path of the file relative to the base directory, if located
+     * within
+     */
+    @NonNull
+    static String relativize(@NonNull final FilePath base, @NonNull final FilePath file) {
+        final String basePath = base.getRemote();
+        final String path = file.getRemote();
+        return path.startsWith(basePath) ? StringUtils.stripStart(path.substring(basePath.length()), "/\\") : path;
+    }
+
+    /**
+     * @return a digest identifying the secret without revealing it
+     */
+    @NonNull
+    static String digestOf(@Nullable final Secret secret) {
+        return DigestUtils.sha256Hex(Secret.toString(secret));
+    }
+
     @Nullable
     static String parseBaseUrl(final String baseUrl) {
         return StringUtils.removeEnd(StringUtils.trimToNull(baseUrl), "/");
@@ -0,0 +1,208 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import lombok.Value;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ForwardingSink;
+import okio.Okio;
+import okio.Sink;
+
+/**
+ * Reports the progress of an upload to the build console and aborts uploads
+ * that stall. The report is streamed segment by segment through a sink that
+ * only counts the bytes passing through, so memory use does not depend on the
+ * size of the report.
+ * <p>
+ * An upload that sent less than the minimum throughput within the stall
+ * timeout fails with a {@link StalledException}, which is retried like a
+ * connection failure. Writes that block entirely are bounded by the write
+ * timeout of the HTTP client.
+ */
+class ProgressRequestBody extends RequestBody {
+
+    /**
+     * the default number of seconds between two progress reports
+     */
+    static final int DEFAULT_PROGRESS_INTERVAL = 30;
+
+    /**
+     * the default number of seconds the minimum throughput is measured over
+     */
+    static final int DEFAULT_STALL_TIMEOUT = 120;
+
+    /**
+     * the default minimum throughput in KiB per second
+     */
+    static final int DEFAULT_MIN_THROUGHPUT = 16;
+
+    private final RequestBody delegate;
+    private final String name;
+    private final ConsoleLogger logger;
+    private final Settings settings;
+    private final LongSupplier nanoTime;
+
+    /**
+     * @param delegate the report
+     * @param name what is uploaded, as shown in the console
+     */
+    ProgressRequestBody(
+            @NonNull final RequestBody delegate,
+            @NonNull final String name,
+            @NonNull final ConsoleLogger logger,
+            @NonNull final Settings settings) {
+        this(delegate, name, logger, settings, System::nanoTime);
+    }
+
+    ProgressRequestBody(
+            @NonNull final RequestBody delegate,
+            @NonNull final String name,
+            @NonNull final ConsoleLogger logger,
+            @NonNull final Settings settings,
+            @NonNull final LongSupplier nanoTime) {
+        this.delegate = delegate;
+        this.name = name;
+        this.logger = logger;
+        this.settings = settings;
+        this.nanoTime = nanoTime;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return delegate.contentType();
+    }
+
+    @Override
+    public long contentLength() throws IOException {
+        return delegate.contentLength();
+    }
+
+    @Override
+    public boolean isOneShot() {
+        return delegate.isOneShot();
+    }
+
+    @Override
+    public void writeTo(@NonNull final BufferedSink sink) throws IOException {
+        // every (re-)transmission starts counting anew
+        final BufferedSink progress = Okio.buffer(new ProgressSink(sink, contentLength()));
+        delegate.writeTo(progress);
+        progress.emit();
+    }
+
+    private final class ProgressSink extends ForwardingSink {
+
+        private final long total;
+
+        private long sent;
+        private long lastReport;
+        private long sentAtLastReport;
+        private long windowStart;
+        private long sentAtWindowStart;
+
+        ProgressSink(final Sink sink, final long total) {
+            super(sink);
+            this.total = total;
+            lastReport = nanoTime.getAsLong();
+            windowStart = lastReport;
+        }
+
+        @Override
+        public void write(@NonNull final Buffer source, final long byteCount) throws IOException {
+            super.write(source, byteCount);
+            sent += byteCount;
+            final long now = nanoTime.getAsLong();
+            if (settings.getProgressInterval() > 0
+                    && now - lastReport >= TimeUnit.SECONDS.toNanos(settings.getProgressInterval())) {
+                final long rate = (sent - sentAtLastReport) * TimeUnit.SECONDS.toNanos(1) / (now - lastReport);
+                logger.log(Messages.ApiClient_Upload_Progress(
+                        name, sent, total, total > 0 ? sent * 100 / total : 100, rate / 1024));
+                lastReport = now;
+                sentAtLastReport = sent;
+            }
+            if (settings.getStallTimeout() > 0
+                    && now - windowStart >= TimeUnit.SECONDS.toNanos(settings.getStallTimeout())) {
+                final long seconds = TimeUnit.NANOSECONDS.toSeconds(now - windowStart);
+                final long windowSent = sent - sentAtWindowStart;
+                if (windowSent < settings.getMinThroughput() * 1024L * seconds) {
+                    throw new StalledException(Messages.ApiClient_Upload_Stalled(name, windowSent, seconds));
+                }
+                windowStart = now;
+                sentAtWindowStart = sent;
+            }
+        }
+    }
+
+    /**
+     * how the progress of uploads is reported and stalled uploads are detected
+     */
+    @Value
+    static class Settings implements Serializable {
+
+        private static final long serialVersionUID = 4829517704212865117L;
+
+        /**
+         * the number of seconds between two progress reports, 0 for none
+         */
+        int progressInterval;
+
+        /**
+         * the number of seconds the minimum throughput is measured over, 0 to
+         * never abort an upload
+         */
+        int stallTimeout;
+
+        /**
+         * the minimum throughput in KiB per second
+         */
+        int minThroughput;
+
+        /**
+         * @return the settings of the global configuration or the defaults, if
+         * there is none, e.g. on an agent
+         */
+        @NonNull
+        static Settings current() {
+            final DescriptorImpl descriptor = PluginUtil.getGlobalConfig();
+            if (descriptor == null) {
+                return new Settings(DEFAULT_PROGRESS_INTERVAL, DEFAULT_STALL_TIMEOUT, DEFAULT_MIN_THROUGHPUT);
+            }
+            return new Settings(
+                    Math.max(descriptor.getDefectDojoUploadProgressInterval(), 0),
+                    Math.max(descriptor.getDefectDojoUploadStallTimeout(), 0),
+                    Math.max(descriptor.getDefectDojoUploadMinThroughput(), 0));
+        }
+    }
+
+    /**
+     * The upload sent less than the minimum throughput within the stall
+     * timeout.
+     */
+    static final class StalledException extends IOException {
+
+        private static final long serialVersionUID = -6028395781137423509L;
+
+        StalledException(final String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Run;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import jenkins.model.RunAction2;
+import lombok.Value;
+import org.jvnet.localizer.Localizable;
+
+/**
+ * Wall time and bytes of the phases of publishing to DefectDojo, attached to
+ * the build and shown on its page. The phases of several publications of the
+ * same build add up. Once the reports are uploaded, the totals are recorded in
+ * the job's {@link PublicationTimingIndex} for the trend.
+ */
+public class PublicationTimingAction implements RunAction2 {
+
+    /**
+     * guards attaching the action, core locks on the build itself
+     */
+    private static final Object ATTACH_LOCK = new Object();
+
+    private transient Run<?, ?> run;
+
+    private final EnumMap<Phase, Timing> timings = new EnumMap<>(Phase.class);
+
+    /**
+     * @return the action of the build, attached if not yet present
+     */
+    @NonNull
+    static PublicationTimingAction of(@NonNull final Run<?, ?> run) {
+        synchronized (ATTACH_LOCK) {
+            PublicationTimingAction action = run.getAction(PublicationTimingAction.class);
+            if (action == null) {
+                action = new PublicationTimingAction();
+                action.run = run;
+                run.addAction(action);
+                PluginUtil.saveIfCompleted(run);
+            }
+            return action;
+        }
+    }
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.Timing_DisplayName();
+    }
+
+    @Override
+    public String getUrlName() {
+        return null;
+    }
+
+    @Override
+    public void onAttached(final Run<?, ?> r) {
+        run = r;
+    }
+
+    @Override
+    public void onLoad(final Run<?, ?> r) {
+        run = r;
+    }
+
+    /**
+     * Adds the wall time and bytes of a phase.
+     */
+    void record(@NonNull final Phase phase, final long nanos, final long bytes) {
+        synchronized (this) {
+            final Timing timing = timings.computeIfAbsent(phase, p -> new Timing());
+            timing.nanos += nanos;
+            timing.bytes += bytes;
+            timing.count++;
+        }
+        if (run != null) {
+            PluginUtil.saveIfCompleted(run);
+        }
+    }
+
+    /**
+     * Times a phase that transfers no report.
+     *
+     * @return the result of the call
+     */
+    <T> T time(@NonNull final Phase phase, @NonNull final PhaseCall<T> call)
+            throws IOException, InterruptedException {
+        final long start = System.nanoTime();
+        try {
+            return call.call();
+        } finally {
+            record(phase, System.nanoTime() - start, 0);
+        }
+    }
+
+    /**
+     * Records the totals in the job's {@link PublicationTimingIndex}.
+     */
+    void index() {
+        if (run != null) {
+            PublicationTimingIndex.of(run.getParent()).record(run.getNumber(), getMillis());
+        }
+    }
+
+    /**
+     * @return the total wall time in milliseconds by phase
+     */
+    @NonNull
+    synchronized Map<Phase, Long> getMillis() {
+        final Map<Phase, Long> millis = new EnumMap<>(Phase.class);
+        timings.forEach((phase, timing) -> millis.put(phase, TimeUnit.NANOSECONDS.toMillis(timing.nanos)));
+        return millis;
+    }
+
+    /**
+     * @return the phases recorded, in the order they run in
+     */
+    @NonNull
+    public synchronized List<PhaseTiming> getPhases() {
+        final List<PhaseTiming> phases = new ArrayList<>(timings.size());
+        timings.forEach((phase, timing) -> phases.add(new PhaseTiming(
+                phase.getDisplayName(),
+                TimeUnit.NANOSECONDS.toMillis(timing.nanos),
+                timing.bytes,
+                timing.count)));
+        return phases;
+    }
+
+    /**
+     * the phases of a publication
+     */
+    enum Phase {
+        PRODUCT_LOOKUP(Messages._Timing_Phase_ProductLookup()),
+        PRODUCT_CREATION(Messages._Timing_Phase_ProductCreation()),
+        ENGAGEMENT_LOOKUP(Messages._Timing_Phase_EngagementLookup()),
+        ENGAGEMENT_CREATION(Messages._Timing_Phase_EngagementCreation()),
+        TEST_LOOKUP(Messages._Timing_Phase_TestLookup()),
+        DIGEST(Messages._Timing_Phase_Digest()),
+        STAGING(Messages._Timing_Phase_Staging()),
+        UPLOAD(Messages._Timing_Phase_Upload());
+
+        private final Localizable displayName;
+
+        Phase(final Localizable displayName) {
+            this.displayName = displayName;
+        }
+
+        @NonNull
+        String getDisplayName() {
+            return displayName.toString();
+        }
+    }
+
+    @FunctionalInterface
+    interface PhaseCall<T> {
+
+        T call() throws IOException, InterruptedException;
+    }
+
+    private static final class Timing {
+
+        private long nanos;
+        private long bytes;
+        private int count;
+    }
+
+    /**
+     * the totals of a phase, for display
+     */
+    @Value
+    public static class PhaseTiming {
+
+        String name;
+
+        /**
+         * in milliseconds
+         */
+        long time;
+
+        long bytes;
+
+        /**
+         * how often the phase ran
+         */
+        int count;
+    }
+}
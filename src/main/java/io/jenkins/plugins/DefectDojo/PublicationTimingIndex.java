@@ -0,0 +1,120 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.XmlFile;
+import hudson.model.Job;
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+
+/**
+ * Compact index of the {@link PublicationTimingAction phase timings} of the
+ * recent builds of a job, kept next to the job's config, so the trend need not
+ * load the builds. Only the most recent builds are kept.
+ */
+final class PublicationTimingIndex {
+
+    static final int MAX_BUILDS = 100;
+
+    static final String FILE_NAME = PublicationTimingIndex.class.getName() + ".xml";
+
+    private static final Logger LOGGER = Logger.getLogger(PublicationTimingIndex.class.getName());
+
+    /**
+     * guards the files of all jobs, they are only written once per publication
+     */
+    private static final Object LOCK = new Object();
+
+    private final transient File file;
+
+    /**
+     * the total wall time in milliseconds by phase, by build number
+     */
+    private TreeMap<Integer, EnumMap<PublicationTimingAction.Phase, Long>> builds = new TreeMap<>();
+
+    PublicationTimingIndex(@NonNull final File file) {
+        this.file = file;
+    }
+
+    @NonNull
+    static PublicationTimingIndex of(@NonNull final Job<?, ?> job) {
+        return new PublicationTimingIndex(new File(job.getRootDir(), FILE_NAME));
+    }
+
+    boolean exists() {
+        return file.exists();
+    }
+
+    /**
+     * @return the time the index was last written, for caching the trend
+     */
+    long lastModified() {
+        return file.lastModified();
+    }
+
+    /**
+     * Records the totals of a build, replacing those recorded before.
+     */
+    void record(final int number, @NonNull final Map<PublicationTimingAction.Phase, Long> millis) {
+        synchronized (LOCK) {
+            load();
+            final EnumMap<PublicationTimingAction.Phase, Long> copy =
+                    new EnumMap<>(PublicationTimingAction.Phase.class);
+            copy.putAll(millis);
+            builds.put(number, copy);
+            while (builds.size() > MAX_BUILDS) {
+                builds.pollFirstEntry();
+            }
+            try {
+                getXmlFile().write(this);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, e, () -> "Could not save " + file);
+            }
+        }
+    }
+
+    /**
+     * @return the totals by build number, oldest first
+     */
+    @NonNull
+    SortedMap<Integer, Map<PublicationTimingAction.Phase, Long>> getBuilds() {
+        synchronized (LOCK) {
+            load();
+            return new TreeMap<>(builds);
+        }
+    }
+
+    private void load() {
+        final XmlFile xmlFile = getXmlFile();
+        if (xmlFile.exists()) {
+            try {
+                xmlFile.unmarshal(this);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, e, () -> "Could not load " + file);
+            }
+        }
+    }
+
+    private XmlFile getXmlFile() {
+        return new XmlFile(Jenkins.XSTREAM2, file);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Action;
+import hudson.model.Job;
+import hudson.util.Graph;
+import java.awt.Color;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import jenkins.model.TransientActionFactory;
+import lombok.Getter;
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.axis.CategoryAxis;
+import org.jfree.chart.axis.CategoryLabelPositions;
+import org.jfree.chart.axis.NumberAxis;
+import org.jfree.chart.plot.CategoryPlot;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.data.category.DefaultCategoryDataset;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+/**
+ * Shows the trend of the {@link PublicationTimingAction phase timings} on the
+ * page of a job that published to DefectDojo. The trend is drawn from the
+ * {@link PublicationTimingIndex}, not from the builds.
+ */
+public class PublicationTrendAction implements Action {
+
+    @Getter
+    private final Job<?, ?> job;
+
+    PublicationTrendAction(@NonNull final Job<?, ?> job) {
+        this.job = job;
+    }
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.Timing_Trend();
+    }
+
+    @Override
+    public String getUrlName() {
+        return "defectdojoTiming";
+    }
+
+    public void doTrend(final StaplerRequest req, final StaplerResponse rsp) throws IOException {
+        final PublicationTimingIndex index = PublicationTimingIndex.of(job);
+        new TrendGraph(index.lastModified(), index.getBuilds()).doPng(req, rsp);
+    }
+
+    /**
+     * the wall time of the phases as stacked areas, by build
+     */
+    private static final class TrendGraph extends Graph {
+
+        private final SortedMap<Integer, Map<PublicationTimingAction.Phase, Long>> builds;
+
+        TrendGraph(
+                final long timestamp, final SortedMap<Integer, Map<PublicationTimingAction.Phase, Long>> builds) {
+            super(timestamp, 500, 200);
+            this.builds = builds;
+        }
+
+        @Override
+        protected JFreeChart createGraph() {
+            final DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+            builds.forEach((number, millis) -> {
+                for (PublicationTimingAction.Phase phase : PublicationTimingAction.Phase.values()) {
+                    dataset.addValue(millis.getOrDefault(phase, 0L), phase.getDisplayName(), "#" + number);
+                }
+            });
+            final JFreeChart chart = ChartFactory.createStackedAreaChart(
+                    null, null, Messages.Timing_Trend_Axis(), dataset, PlotOrientation.VERTICAL, true, true, false);
+            chart.setBackgroundPaint(Color.WHITE);
+            final CategoryPlot plot = chart.getCategoryPlot();
+            plot.setBackgroundPaint(Color.WHITE);
+            plot.setRangeGridlinePaint(Color.LIGHT_GRAY);
+            final CategoryAxis domainAxis = plot.getDomainAxis();
+            domainAxis.setCategoryLabelPositions(CategoryLabelPositions.UP_90);
+            domainAxis.setLowerMargin(0);
+            domainAxis.setUpperMargin(0);
+            domainAxis.setCategoryMargin(0);
+            plot.getRangeAxis().setStandardTickUnits(NumberAxis.createIntegerTickUnits());
+            return chart;
+        }
+    }
+
+    /**
+     * Adds the trend to the jobs that recorded phase timings.
+     */
+    @Extension
+    @SuppressWarnings("rawtypes")
+    public static class Factory extends TransientActionFactory<Job> {
+
+        @Override
+        public Class<Job> type() {
+            return Job.class;
+        }
+
+        @NonNull
+        @Override
+        public Collection<? extends Action> createFor(@NonNull final Job target) {
+            if (!PublicationTimingIndex.of(target).exists()) {
+                return Collections.emptyList();
+            }
+            return Collections.singletonList(new PublicationTrendAction(target));
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.InterruptedIOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import lombok.Getter;
+
+/**
+ * Token bucket limiting the requests per second sent to a DefectDojo instance
+ * by all builds of the controller. Up to a second's worth of requests may be
+ * sent at once, further requests wait for their turn.
+ * <p>
+ * The rate adapts to DefectDojo: each {@code 429 Too Many Requests} halves it,
+ * down to a tenth of the configured limit, successful calls raise it step by
+ * step up to the limit again.
+ */
+final class RateLimiter {
+
+    /**
+     * requests per second, 0 for no limit
+     */
+    static final int DEFAULT_LIMIT = 0;
+
+    /**
+     * the lowest share of the configured limit the rate is reduced to
+     */
+    static final double MIN_RATE_FACTOR = 0.1;
+
+    /**
+     * the share of the configured limit a successful call raises the rate by
+     */
+    static final double INCREASE_FACTOR = 0.05;
+
+    /**
+     * the time in nanoseconds the rate is reduced at most once within, as
+     * requests sent at the same time are usually throttled together
+     */
+    private static final long DECREASE_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    private static final Map<String, RateLimiter> INSTANCES = new ConcurrentHashMap<>();
+
+    @Getter
+    private final String baseUrl;
+
+    private final LongSupplier nanoClock;
+
+    /**
+     * the configured requests per second, 0 for no limit
+     */
+    private int limit;
+
+    /**
+     * the current requests per second
+     */
+    private double rate;
+
+    /**
+     * the available requests, negative when requests are waiting
+     */
+    private double tokens;
+
+    private long lastRefill;
+    private long lastDecrease;
+    private long acquired;
+    private long delayed;
+    private long totalWait;
+    private long maxWait;
+
+    RateLimiter(@NonNull final String baseUrl, @NonNull final LongSupplier nanoClock) {
+        this.baseUrl = baseUrl;
+        this.nanoClock = nanoClock;
+        lastRefill = nanoClock.getAsLong();
+        lastDecrease = lastRefill - DECREASE_INTERVAL;
+    }
+
+    /**
+     * @return the limiter of the instance, limited as configured globally
+     */
+    @NonNull
+    static RateLimiter forInstance(@NonNull final String baseUrl) {
+        final RateLimiter limiter = INSTANCES.computeIfAbsent(baseUrl, url -> new RateLimiter(url, System::nanoTime));
+        final DescriptorImpl descriptor = PluginUtil.getGlobalConfig();
+        limiter.setLimit(descriptor != null ? descriptor.getDefectDojoRateLimit() : DEFAULT_LIMIT);
+        return limiter;
+    }
+
+    @NonNull
+    static Collection<RateLimiter> all() {
+        return Collections.unmodifiableCollection(INSTANCES.values());
+    }
+
+    /**
+     * @param limit the requests per second, not positive for no limit
+     */
+    synchronized void setLimit(final int limit) {
+        final int newLimit = Math.max(limit, 0);
+        if (newLimit != this.limit) {
+            refill();
+            this.limit = newLimit;
+            rate = newLimit;
+            // waiting requests keep their turn
+            tokens = tokens < 0 ? tokens : newLimit;
+        }
+    }
+
+    synchronized int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return the current requests per second, 0 if not limited
+     */
+    synchronized double getRate() {
+        return rate;
+    }
+
+    /**
+     * Reserves the next request without waiting for its turn.
+     *
+     * @return the time in nanoseconds to wait before sending the request
+     */
+    synchronized long reserve() {
+        acquired++;
+        if (limit == 0) {
+            return 0;
+        }
+        refill();
+        tokens--;
+        if (tokens >= 0) {
+            return 0;
+        }
+        final long wait = (long) (-tokens / rate * TimeUnit.SECONDS.toNanos(1));
+        delayed++;
+        totalWait += wait;
+        maxWait = Math.max(maxWait, wait);
+        return wait;
+    }
+
+    /**
+     * Waits until the next request may be sent.
+     *
+     * @throws InterruptedIOException if interrupted while waiting
+     */
+    void acquire() throws InterruptedIOException {
+        final long wait = reserve();
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                final var interrupted = new InterruptedIOException(e.getMessage());
+                interrupted.initCause(e);
+                throw interrupted;
+            }
+        }
+    }
+
+    /**
+     * Halves the rate after DefectDojo throttled a request.
+     */
+    synchronized void recordThrottled() {
+        final long now = nanoClock.getAsLong();
+        if (limit == 0 || now - lastDecrease < DECREASE_INTERVAL) {
+            return;
+        }
+        refill();
+        lastDecrease = now;
+        rate = Math.max(rate / 2, limit * MIN_RATE_FACTOR);
+        tokens = Math.min(tokens, rate);
+    }
+
+    /**
+     * Raises a reduced rate after a request was not throttled.
+     */
+    synchronized void recordSuccess() {
+        if (rate < limit) {
+            refill();
+            rate = Math.min(rate + limit * INCREASE_FACTOR, limit);
+        }
+    }
+
+    /**
+     * @return the number of requests waiting for their turn
+     */
+    synchronized int getQueueDepth() {
+        if (limit == 0) {
+            return 0;
+        }
+        refill();
+        return tokens < 0 ? (int) Math.ceil(-tokens) : 0;
+    }
+
+    /**
+     * @return the number of requests sent or reserved so far
+     */
+    synchronized long getAcquired() {
+        return acquired;
+    }
+
+    /**
+     * @return the number of requests that had to wait for their turn
+     */
+    synchronized long getDelayed() {
+        return delayed;
+    }
+
+    /**
+     * @return the average time in milliseconds delayed requests waited
+     */
+    synchronized long getAverageWait() {
+        return delayed > 0 ? TimeUnit.NANOSECONDS.toMillis(totalWait / delayed) : 0;
+    }
+
+    /**
+     * @return the longest time in milliseconds a request waited
+     */
+    synchronized long getMaxWait() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWait);
+    }
+
+    synchronized void reset() {
+        rate = limit;
+        tokens = limit;
+        lastRefill = nanoClock.getAsLong();
+        lastDecrease = lastRefill - DECREASE_INTERVAL;
+        acquired = 0;
+        delayed = 0;
+        totalWait = 0;
+        maxWait = 0;
+    }
+
+    private void refill() {
+        final long now = nanoClock.getAsLong();
+        final double elapsed = (double) (now - lastRefill) / TimeUnit.SECONDS.toNanos(1);
+        lastRefill = now;
+        if (limit > 0) {
+            // a second's worth of requests at most
+            tokens = Math.min(tokens + elapsed * rate, Math.max(rate, 1));
+        }
+    }
+}
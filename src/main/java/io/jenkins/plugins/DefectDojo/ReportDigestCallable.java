@@ -0,0 +1,57 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import hudson.remoting.VirtualChannel;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import jenkins.MasterToSlaveFileCallable;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * Computes the SHA-256 digest of a report on the node the workspace is
+ * located on, so only the digest crosses the remoting channel. The report is
+ * read through a direct buffer reused by each thread, which saves copying it
+ * through the heap without mapping it, as mapped files stay locked on Windows
+ * until the mapping is garbage collected.
+ */
+class ReportDigestCallable extends MasterToSlaveFileCallable<String> {
+
+    private static final long serialVersionUID = -4410935209581637282L;
+
+    static final int BUFFER_SIZE = 256 << 10;
+
+    private static final ThreadLocal<ByteBuffer> BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    @Override
+    public String invoke(final File file, final VirtualChannel channel) throws IOException {
+        final MessageDigest digest = DigestUtils.getSha256Digest();
+        final ByteBuffer buffer = BUFFER.get();
+        buffer.clear();
+        try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            while (fileChannel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return Hex.encodeHexString(digest.digest());
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import lombok.Value;
+
+/**
+ * Controller-wide cache of the ids DefectDojo resolved product, engagement
+ * and test names to. The mappings rarely change, so builds publishing every
+ * few minutes can skip those lookups. Entries expire after a TTL and the
+ * least recently used entries are evicted once the cache is full.
+ */
+final class ResolutionCache {
+
+    static final int DEFAULT_TTL = 600;
+    static final int DEFAULT_MAX_SIZE = 1000;
+
+    private static final ResolutionCache INSTANCE = new ResolutionCache(System::nanoTime);
+
+    /**
+     * entries in access order, so the eldest one is the least recently used
+     */
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LongSupplier nanoClock;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    ResolutionCache(@NonNull final LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+    }
+
+    @NonNull
+    static ResolutionCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the cached id or {@code null} if absent or expired
+     */
+    @CheckForNull
+    synchronized String lookup(@NonNull final Key key) {
+        final Entry entry = entries.get(key);
+        if (entry == null || entry.getExpiresAt() - nanoClock.getAsLong() <= 0) {
+            if (entry != null) {
+                entries.remove(key);
+            }
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.getId();
+    }
+
+    /**
+     * Caches an id with the configured TTL. Nothing is cached if the TTL or
+     * the maximum size is not positive.
+     */
+    void put(@NonNull final Key key, @NonNull final String id) {
+        final Settings settings = currentSettings();
+        put(key, id, settings.getTtl(), settings.getMaxSize());
+    }
+
+    synchronized void put(@NonNull final Key key, @NonNull final String id, final long ttl, final int maxSize) {
+        if (ttl <= 0 || maxSize <= 0) {
+            return;
+        }
+        entries.put(key, new Entry(id, nanoClock.getAsLong() + TimeUnit.SECONDS.toNanos(ttl)));
+        final Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maxSize) {
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    synchronized void invalidate(@NonNull final Key key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes all entries of a DefectDojo instance and credential that
+     * resolved to one of the given ids.
+     */
+    synchronized void invalidateIds(
+            @NonNull final String baseUrl, @NonNull final String credential, @NonNull final Collection<String> ids) {
+        entries.entrySet().removeIf(e -> baseUrl.equals(e.getKey().getBaseUrl())
+                && credential.equals(e.getKey().getCredential())
+                && ids.contains(e.getValue().getId()));
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @NonNull
+    private static Settings currentSettings() {
+        final DescriptorImpl descriptor = PluginUtil.getGlobalConfig();
+        if (descriptor == null) {
+            return new Settings(DEFAULT_TTL, DEFAULT_MAX_SIZE);
+        }
+        return new Settings(descriptor.getDefectDojoCacheTtl(), descriptor.getDefectDojoCacheSize());
+    }
+
+    enum Kind {
+        PRODUCT,
+        ENGAGEMENT,
+        TEST
+    }
+
+    /**
+     * Identifies a lookup. The credential is only stored as a digest, see
+     * {@link ApiClient}.
+     */
+    @Value
+    static class Key {
+
+        String baseUrl;
+        String credential;
+        Kind kind;
+
+        /**
+         * the id of the product or engagement the name is looked up in, if any
+         */
+        @Nullable
+        String parentId;
+
+        String name;
+    }
+
+    @Value
+    private static class Entry {
+
+        String id;
+        long expiresAt;
+    }
+
+    @Value
+    private static class Settings {
+
+        int ttl;
+        int maxSize;
+    }
+}
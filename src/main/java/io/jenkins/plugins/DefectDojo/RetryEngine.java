@@ -0,0 +1,211 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.Getter;
+import lombok.Value;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryPolicy;
+import org.springframework.retry.backoff.BackOffContext;
+import org.springframework.retry.backoff.BackOffInterruptedException;
+import org.springframework.retry.backoff.BackOffPolicy;
+import org.springframework.retry.backoff.Sleeper;
+import org.springframework.retry.backoff.ThreadWaitSleeper;
+import org.springframework.retry.policy.BinaryExceptionClassifierRetryPolicy;
+import org.springframework.retry.policy.CompositeRetryPolicy;
+import org.springframework.retry.policy.MaxAttemptsRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
+
+/**
+ * Retry policy shared by all calls to DefectDojo: a configurable number of
+ * attempts, exponential back-off with full jitter, a {@code Retry-After}
+ * requested by DefectDojo takes precedence. Connection failures and the
+ * statuses of {@link RetryableStatusException} are retried, failures of
+ * unavailable instances also count towards their {@link CircuitBreaker}.
+ * <p>
+ * The engine is built once and only rebuilt when the global settings change.
+ */
+final class RetryEngine {
+
+    static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    /**
+     * bounds in milliseconds of the exponential back-off, the first retry
+     * waits up to {@link #INITIAL_BACK_OFF}
+     */
+    static final long MIN_BACK_OFF = 50;
+
+    static final long INITIAL_BACK_OFF = 250;
+    static final long MAX_BACK_OFF = 10_000;
+
+    /**
+     * the longest {@code Retry-After} in milliseconds waited for
+     */
+    static final long MAX_RETRY_AFTER = 60_000;
+
+    private static volatile RetryEngine current;
+
+    @Getter
+    private final Settings settings;
+
+    private final ApiClientExceptionClassifier exceptionClassifier = new ApiClientExceptionClassifier();
+    private final RetryTemplate template = new RetryTemplate();
+
+    RetryEngine(@NonNull final Settings settings, @NonNull final Sleeper sleeper) {
+        this.settings = settings;
+        final var retryPolicy = new CompositeRetryPolicy();
+        retryPolicy.setPolicies(new RetryPolicy[] {
+            new MaxAttemptsRetryPolicy(settings.getMaxAttempts()),
+            new BinaryExceptionClassifierRetryPolicy(exceptionClassifier)
+        });
+        template.setRetryPolicy(retryPolicy);
+        template.setBackOffPolicy(new JitterBackOffPolicy(sleeper));
+    }
+
+    @NonNull
+    static RetryEngine get() {
+        final Settings settings = currentSettings();
+        RetryEngine engine = current;
+        if (engine == null || !engine.settings.equals(settings)) {
+            engine = new RetryEngine(settings, new ThreadWaitSleeper());
+            current = engine;
+        }
+        return engine;
+    }
+
+    /**
+     * Runs an attempt until it succeeds, fails for good or no attempts are
+     * left, backing off in between.
+     */
+    <T, E extends IOException> T execute(@NonNull final Attempt<T, E> attempt) throws E {
+        return template.execute(ctx -> attempt.run(isLastAttempt(ctx.getRetryCount() + 1)));
+    }
+
+    /**
+     * @param attempt the number of the attempt, starting at 1
+     */
+    boolean isLastAttempt(final int attempt) {
+        return attempt >= settings.getMaxAttempts();
+    }
+
+    /**
+     * @param attempt the number of the failed attempt, starting at 1
+     * @param e the failure
+     */
+    boolean shouldRetry(final int attempt, @NonNull final Throwable e) {
+        return !isLastAttempt(attempt) && exceptionClassifier.classify(e);
+    }
+
+    /**
+     * @param attempt the number of the failed attempt, starting at 1
+     * @param e the failure
+     * @return the time in milliseconds to wait before the next attempt
+     */
+    long backOff(final int attempt, @CheckForNull final Throwable e) {
+        final RetryableStatusException status = RetryableStatusException.find(e);
+        if (status != null && status.getRetryAfter() >= 0) {
+            return Math.min(status.getRetryAfter(), MAX_RETRY_AFTER);
+        }
+        final long ceiling = Math.min(INITIAL_BACK_OFF << Math.min(Math.max(attempt - 1, 0), 16), MAX_BACK_OFF);
+        return ThreadLocalRandom.current().nextLong(MIN_BACK_OFF, ceiling + 1);
+    }
+
+    /**
+     * Counts a failed call towards the circuit breaker of its instance.
+     */
+    void recordFailure(@NonNull final CircuitBreaker circuitBreaker) {
+        circuitBreaker.recordFailure(settings.getCircuitBreakerThreshold(), settings.getCircuitBreakerOpenDuration());
+    }
+
+    /**
+     * @return the settings of the global configuration or the defaults, if
+     * there is none, e.g. on an agent
+     */
+    @NonNull
+    static Settings currentSettings() {
+        final DescriptorImpl descriptor = PluginUtil.getGlobalConfig();
+        if (descriptor == null) {
+            return new Settings(
+                    DEFAULT_MAX_ATTEMPTS, CircuitBreaker.DEFAULT_THRESHOLD, CircuitBreaker.DEFAULT_OPEN_DURATION);
+        }
+        return new Settings(
+                Math.max(descriptor.getDefectDojoRetryAttempts(), 1),
+                descriptor.getDefectDojoCircuitBreakerThreshold(),
+                descriptor.getDefectDojoCircuitBreakerOpenDuration());
+    }
+
+    @Value
+    static class Settings implements Serializable {
+
+        private static final long serialVersionUID = 7361024895123470316L;
+
+        int maxAttempts;
+        int circuitBreakerThreshold;
+        int circuitBreakerOpenDuration;
+    }
+
+    /**
+     * a single attempt of a call
+     */
+    @FunctionalInterface
+    interface Attempt<T, E extends IOException> {
+
+        T run(boolean lastAttempt) throws E;
+    }
+
+    /**
+     * Backs off according to {@link #backOff}, which needs to know the
+     * number of attempts and the last failure from the retry context.
+     */
+    private final class JitterBackOffPolicy implements BackOffPolicy {
+
+        private final Sleeper sleeper;
+
+        JitterBackOffPolicy(final Sleeper sleeper) {
+            this.sleeper = sleeper;
+        }
+
+        @Override
+        public BackOffContext start(final RetryContext context) {
+            return new JitterBackOffContext(context);
+        }
+
+        @Override
+        public void backOff(final BackOffContext backOffContext) throws BackOffInterruptedException {
+            final RetryContext context = ((JitterBackOffContext) backOffContext).context;
+            try {
+                sleeper.sleep(RetryEngine.this.backOff(context.getRetryCount(), context.getLastThrowable()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BackOffInterruptedException("Thread interrupted while sleeping", e);
+            }
+        }
+    }
+
+    private static final class JitterBackOffContext implements BackOffContext {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient RetryContext context;
+
+        JitterBackOffContext(final RetryContext context) {
+            this.context = context;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import lombok.Getter;
+import okhttp3.Response;
+import org.apache.commons.lang.StringUtils;
+import org.springframework.http.HttpStatus;
+
+/**
+ * DefectDojo responded with a status worth retrying: it throttles (429) or a
+ * gateway in front of it could not reach it (502, 503, 504). Only the former
+ * and 503 guarantee the request was not processed, see
+ * {@link #isUnprocessed()}.
+ */
+@Getter
+class RetryableStatusException extends ApiClientException {
+
+    private static final long serialVersionUID = 3215786140627935210L;
+
+    private static final Set<Integer> RETRYABLE_STATUSES = Set.of(429, 502, 503, 504);
+    private static final Set<Integer> UNPROCESSED_STATUSES = Set.of(429, 503);
+
+    private final int status;
+
+    /**
+     * the delay in milliseconds requested by the {@code Retry-After} header
+     * or -1 if there is none
+     */
+    private final long retryAfter;
+
+    RetryableStatusException(final int status, final long retryAfter) {
+        super(Messages.ApiClient_Error_Connection(status, HttpStatus.valueOf(status).getReasonPhrase()));
+        this.status = status;
+        this.retryAfter = retryAfter;
+    }
+
+    static boolean isRetryable(final int status) {
+        return RETRYABLE_STATUSES.contains(status);
+    }
+
+    @NonNull
+    static RetryableStatusException of(@NonNull final Response response) {
+        return new RetryableStatusException(
+                response.code(), parseRetryAfter(response.header("Retry-After"), Instant.now()));
+    }
+
+    /**
+     * @return whether DefectDojo seems to be unavailable rather than
+     * throttling
+     */
+    boolean isOutage() {
+        return status >= 500;
+    }
+
+    /**
+     * @return whether DefectDojo certainly did not process the request, as
+     * opposed to a gateway that failed (502) or timed out (504) after passing
+     * it on, so that even a request creating an entity can be repeated
+     */
+    boolean isUnprocessed() {
+        return UNPROCESSED_STATUSES.contains(status);
+    }
+
+    /**
+     * @param value either a number of seconds or an HTTP date
+     * @return the delay in milliseconds or -1 if there is none
+     */
+    static long parseRetryAfter(@CheckForNull final String value, @NonNull final Instant now) {
+        if (StringUtils.isBlank(value)) {
+            return -1;
+        }
+        try {
+            return TimeUnit.SECONDS.toMillis(Math.max(Long.parseLong(value.trim()), 0));
+        } catch (NumberFormatException e) {
+            // not a number of seconds
+        }
+        try {
+            final ZonedDateTime date = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(Duration.between(now, date.toInstant()).toMillis(), 0);
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return the exception itself or its first cause of this type, if any
+     */
+    @CheckForNull
+    static RetryableStatusException find(@CheckForNull final Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof RetryableStatusException) {
+                return (RetryableStatusException) t;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import hudson.Extension;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import hudson.model.Item;
+import hudson.util.ListBoxModel;
+import java.io.Serializable;
+import jenkins.model.Jenkins;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.AncestorInPath;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.verb.POST;
+
+/**
+ * A report, or an Ant-style pattern matching several reports, to upload
+ * together with the scan type of the report(s).
+ */
+@Getter
+@EqualsAndHashCode(callSuper = false)
+public final class ScanArtifact extends AbstractDescribableImpl<ScanArtifact> implements Serializable {
+
+    private static final long serialVersionUID = -3447153214862395641L;
+
+    /**
+     * the path or an Ant-style pattern relative to the workspace
+     */
+    private final String pattern;
+
+    /**
+     * the scan type of all matched reports
+     */
+    private final String scanType;
+
+    @DataBoundConstructor
+    public ScanArtifact(final String pattern, final String scanType) {
+        this.pattern = pattern;
+        this.scanType = scanType;
+    }
+
+    @Extension
+    @Symbol("scanArtifact")
+    public static class ScanArtifactDescriptor extends Descriptor<ScanArtifact> {
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return Messages.ScanArtifact_DisplayName();
+        }
+
+        /**
+         * Delegates to the publisher, which knows DefectDojo URL and
+         * credential.
+         *
+         * @see DescriptorImpl#doFillScanTypeItems(String, String, Item)
+         */
+        @POST
+        public ListBoxModel doFillScanTypeItems(
+                @QueryParameter final String defectDojoUrl,
+                @QueryParameter final String defectDojoCredentialsId,
+                @AncestorInPath @Nullable final Item item) {
+            return Jenkins.get()
+                    .getDescriptorByType(DescriptorImpl.class)
+                    .doFillScanTypeItems(defectDojoUrl, defectDojoCredentialsId, item);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import lombok.Value;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Remembers what DefectDojo instances support beyond the API every version
+ * provides, so each instance is not probed by every publication. The
+ * capabilities are probed per credential, since DefectDojo only describes
+ * the actions the user is permitted to perform. Like the resolved ids, they
+ * expire after the TTL of the ID cache, so an upgrade or a change of
+ * permissions is noticed, and are forgotten together with the caches under
+ * Manage Jenkins &gt; DefectDojo.
+ */
+@UtilityClass
+class ServerCapabilities {
+
+    /**
+     * whether import-scan and reimport-scan accept {@code auto_create_context}
+     * by instance and credential
+     */
+    private static final Map<String, Entry> AUTO_CREATE_CONTEXT = new ConcurrentHashMap<>();
+
+    /**
+     * @return whether the instance resolves or creates product and engagement
+     * by name, or {@code null} if it was not probed yet or the answer expired
+     */
+    @CheckForNull
+    static Boolean lookupAutoCreateContext(@NonNull final String baseUrl, @NonNull final String credentialDigest) {
+        return lookupAutoCreateContext(baseUrl, credentialDigest, System.nanoTime());
+    }
+
+    @CheckForNull
+    static Boolean lookupAutoCreateContext(
+            @NonNull final String baseUrl, @NonNull final String credentialDigest, final long now) {
+        final String key = keyOf(baseUrl, credentialDigest);
+        final Entry entry = AUTO_CREATE_CONTEXT.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (now - entry.getExpiresAt() >= 0) {
+            AUTO_CREATE_CONTEXT.remove(key, entry);
+            return null;
+        }
+        return entry.isSupported();
+    }
+
+    /**
+     * Remembers a definitive answer of the instance for the TTL of the ID
+     * cache. Nothing is remembered if the TTL is 0.
+     */
+    static void recordAutoCreateContext(
+            @NonNull final String baseUrl, @NonNull final String credentialDigest, final boolean supported) {
+        final DescriptorImpl descriptor = PluginUtil.getGlobalConfig();
+        final long ttl = descriptor != null ? descriptor.getDefectDojoCacheTtl() : ResolutionCache.DEFAULT_TTL;
+        if (ttl <= 0) {
+            return;
+        }
+        AUTO_CREATE_CONTEXT.put(
+                keyOf(baseUrl, credentialDigest),
+                new Entry(supported, System.nanoTime() + TimeUnit.SECONDS.toNanos(ttl)));
+    }
+
+    static void clear() {
+        AUTO_CREATE_CONTEXT.clear();
+    }
+
+    private static String keyOf(final String baseUrl, final String credentialDigest) {
+        return baseUrl + '|' + credentialDigest;
+    }
+
+    @Value
+    private static class Entry {
+
+        boolean supported;
+
+        /**
+         * as of {@link System#nanoTime()}
+         */
+        long expiresAt;
+    }
+}
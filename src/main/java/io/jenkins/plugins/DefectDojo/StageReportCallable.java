@@ -0,0 +1,47 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import hudson.remoting.VirtualChannel;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Copies a report to a temporary file on the node the workspace is located
+ * on, so a report uploaded from an agent in the background never crosses the
+ * remoting channel.
+ */
+class StageReportCallable extends MasterToSlaveFileCallable<String> {
+
+    private static final long serialVersionUID = 2749160385521378946L;
+
+    /**
+     * @return the path of the copy on that node
+     */
+    @Override
+    public String invoke(final File file, final VirtualChannel channel) throws IOException {
+        final Path copy = Files.createTempFile("defectdojo", ".report");
+        try {
+            Files.copy(file.toPath(), copy, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(copy);
+            throw e;
+        }
+        return copy.toString();
+    }
+}
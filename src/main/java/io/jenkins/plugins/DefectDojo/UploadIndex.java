@@ -0,0 +1,168 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.BulkChange;
+import hudson.XmlFile;
+import hudson.init.Terminator;
+import hudson.model.Saveable;
+import hudson.model.listeners.SaveableListener;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+
+/**
+ * Persistent index of the digest of the report last reimported into a
+ * DefectDojo test, kept in JENKINS_HOME. A report whose digest matches is
+ * unchanged and need not be uploaded again. Only the most recently
+ * uploaded entries are kept.
+ * <p>
+ * Recorded digests are saved in a batch by {@link #flush()} once a
+ * publication finished, rather than rewriting the index for every report.
+ */
+final class UploadIndex implements Saveable {
+
+    static final int MAX_ENTRIES = 1000;
+
+    private static final Logger LOGGER = Logger.getLogger(UploadIndex.class.getName());
+
+    private static UploadIndex instance;
+
+    private final transient File file;
+
+    /**
+     * the digests by {@link #keyOf key}, least recently uploaded first
+     */
+    private LinkedHashMap<String, String> digests = new LinkedHashMap<>();
+
+    /**
+     * whether digests were recorded since the index was last saved
+     */
+    private transient boolean dirty;
+
+    UploadIndex(@NonNull final File file) {
+        this.file = file;
+    }
+
+    @NonNull
+    static synchronized UploadIndex get() {
+        if (instance == null) {
+            instance = new UploadIndex(new File(Jenkins.get().getRootDir(), UploadIndex.class.getName() + ".xml"));
+            instance.load();
+        }
+        return instance;
+    }
+
+    /**
+     * @return the key of the test a request reimports into, or {@code null}
+     * for the import of a new test
+     */
+    @CheckForNull
+    static String keyOf(@NonNull final String baseUrl, @NonNull final ImportScanRequest request) {
+        final String test = request.getFields().get("test");
+        if (!ApiClient.REUPLOAD_URL.equals(request.getUrl()) || test == null) {
+            return null;
+        }
+        return String.join(
+                "|", baseUrl, request.getFields().get("engagement"), request.getFields().get("scan_type"), test);
+    }
+
+    /**
+     * @return the digest of the report last uploaded
+     */
+    @CheckForNull
+    synchronized String lookup(@NonNull final String key) {
+        return digests.get(key);
+    }
+
+    /**
+     * Records the digest of a report uploaded successfully. It is saved by
+     * the next {@link #flush()}.
+     */
+    synchronized void record(@NonNull final String key, @NonNull final String digest) {
+        digests.remove(key);
+        digests.put(key, digest);
+        final Iterator<String> eldest = digests.keySet().iterator();
+        while (digests.size() > MAX_ENTRIES) {
+            eldest.next();
+            eldest.remove();
+        }
+        dirty = true;
+    }
+
+    /**
+     * Saves the digests recorded since the last save, if any.
+     */
+    synchronized void flush() {
+        if (dirty) {
+            saveQuietly();
+        }
+    }
+
+    @Terminator
+    public static synchronized void flushOnShutdown() {
+        if (instance != null) {
+            instance.flush();
+        }
+    }
+
+    synchronized void clear() {
+        digests.clear();
+        saveQuietly();
+    }
+
+    synchronized int size() {
+        return digests.size();
+    }
+
+    @Override
+    public synchronized void save() throws IOException {
+        if (BulkChange.contains(this)) {
+            return;
+        }
+        final XmlFile xmlFile = getXmlFile();
+        xmlFile.write(this);
+        dirty = false;
+        SaveableListener.fireOnChange(this, xmlFile);
+    }
+
+    private void saveQuietly() {
+        try {
+            save();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, e, () -> "Could not save " + file);
+        }
+    }
+
+    synchronized void load() {
+        final XmlFile xmlFile = getXmlFile();
+        if (xmlFile.exists()) {
+            try {
+                xmlFile.unmarshal(this);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, e, () -> "Could not load " + file);
+            }
+        }
+    }
+
+    private XmlFile getXmlFile() {
+        return new XmlFile(Jenkins.XSTREAM2, file);
+    }
+}
@@ -23,15 +23,29 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import hudson.FilePath;
+import hudson.model.TaskListener;
 import hudson.util.Secret;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.QueryStringDecoder;
 import java.io.File;
 import java.io.IOException;
 import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import okhttp3.OkHttpClient;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -65,6 +79,10 @@ class ApiClientTest {
         if (server != null) {
             server.disposeNow();
         }
+        // ports may be reused by later tests
+        ResolutionCache.get().clear();
+        ServerCapabilities.clear();
+        CircuitBreaker.all().forEach(CircuitBreaker::reset);
     }
 
     private ApiClient createClient() {
@@ -112,7 +130,7 @@ class ApiClientTest {
         assertThatCode(() -> uut.testConnection())
                 .hasMessage(Messages.ApiClient_Error_Connection("", ""))
                 .hasCauseInstanceOf(ConnectException.class);
-        verify(httpClient, times(2)).newCall(any(okhttp3.Request.class));
+        verify(httpClient, times(RetryEngine.DEFAULT_MAX_ATTEMPTS)).newCall(any(okhttp3.Request.class));
     }
 
     @Test
@@ -137,6 +155,303 @@ class ApiClientTest {
         verify(logger).log("something went wrong");
     }
 
+    @Test
+    void testImportRemembersTestAndReportsStatistics(JenkinsRule r) throws IOException {
+        final String findings = IntStream.range(0, 10_000)
+                .mapToObj(i -> "{\"id\": " + i + ", \"severity\": \"High\"}")
+                .collect(Collectors.joining(", ", "{\"findings\": [", "]}"));
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.post(ApiClient.UPLOAD_URL, (request, response) -> request.receive()
+                        .then(response.status(HttpResponseStatus.CREATED)
+                                .sendString(Mono.just("{\"scan_type\": \"ZAP Scan\", \"statistics\": " + findings
+                                        + ", \"test\": 42, \"test_id\": 42}"))
+                                .then())))
+                .bindNow();
+        final var request = new ImportScanRequest(
+                ApiClient.UPLOAD_URL, Map.of("scan_type", "ZAP Scan", "engagement", "7", "product_id", "1"));
+
+        final var imported = new AtomicReference<ImportStatistics>();
+        ApiClient uut = createClient();
+        uut.setImportListener((importRequest, statistics) -> imported.set(statistics));
+
+        assertThat(uut.importScan(request, RequestBody.create("<report/>", ApiClient.OCTET_STREAM)))
+                .isTrue();
+        assertThat(uut.lookupResolved(ResolutionCache.Kind.TEST, "7", "ZAP Scan"))
+                .isEqualTo("42");
+        assertThat(imported.get().getTest()).isEqualTo("42");
+    }
+
+    @Test
+    void testSupportsAutoCreateContextIsProbedOnce(JenkinsRule r) {
+        final var probes = new AtomicInteger();
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.options(ApiClient.UPLOAD_URL, (request, response) -> {
+                    probes.incrementAndGet();
+                    return response.sendString(Mono.just("{\"name\": \"Import Scan\", \"actions\": {\"POST\": {"
+                            + "\"scan_type\": {\"type\": \"choice\"}, \"auto_create_context\": {\"type\": \"boolean\"}"
+                            + "}}}"));
+                }))
+                .bindNow();
+
+        assertThat(createClient().supportsAutoCreateContext()).isTrue();
+        assertThat(createClient().supportsAutoCreateContext()).isTrue();
+        assertThat(probes).hasValue(1);
+    }
+
+    @Test
+    void testSupportsAutoCreateContextNotOnOlderVersions(JenkinsRule r) {
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.options(
+                        ApiClient.UPLOAD_URL,
+                        (request, response) -> response.sendString(Mono.just(
+                                "{\"actions\": {\"POST\": {\"engagement\": {\"type\": \"field\"}}}}"))))
+                .bindNow();
+
+        assertThat(createClient().supportsAutoCreateContext()).isFalse();
+    }
+
+    @Test
+    void testSupportsAutoCreateContextIsProbedAgainIfForbidden(JenkinsRule r) {
+        final var probes = new AtomicInteger();
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.options(ApiClient.UPLOAD_URL, (request, response) -> {
+                    probes.incrementAndGet();
+                    return response.status(HttpResponseStatus.FORBIDDEN).send();
+                }))
+                .bindNow();
+
+        // not a definitive answer, e.g. until the permissions are fixed
+        assertThat(createClient().supportsAutoCreateContext()).isFalse();
+        assertThat(createClient().supportsAutoCreateContext()).isFalse();
+        assertThat(probes).hasValue(2);
+    }
+
+    @Test
+    void testSupportsAutoCreateContextIsProbedAgainAfterFailure(JenkinsRule r) {
+        final var probes = new AtomicInteger();
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.options(ApiClient.UPLOAD_URL, (request, response) -> {
+                    probes.incrementAndGet();
+                    return response.status(HttpResponseStatus.TOO_MANY_REQUESTS)
+                            .header(HttpHeaderNames.RETRY_AFTER, "0")
+                            .send();
+                }))
+                .bindNow();
+
+        assertThat(createClient().supportsAutoCreateContext()).isFalse();
+        assertThat(createClient().supportsAutoCreateContext()).isFalse();
+        assertThat(probes).hasValue(2 * RetryEngine.DEFAULT_MAX_ATTEMPTS);
+    }
+
+    @Test
+    void testPrepareContextImport() {
+        final ApiClient uut = createClient(mock(OkHttpClient.class));
+
+        final ImportScanRequest importRequest =
+                uut.prepareContextImport("p-name", "e-name", null, "main", null, "ZAP Scan", false, true);
+        assertThat(importRequest.getUrl()).isEqualTo(ApiClient.UPLOAD_URL);
+        assertThat(importRequest.getFields())
+                .containsEntry("product_name", "p-name")
+                .containsEntry("engagement_name", "e-name")
+                .containsEntry("auto_create_context", "true")
+                .containsEntry("branch_tag", "main")
+                .containsEntry("active", "false")
+                .doesNotContainKeys("product_id", "engagement", "test", "commit_hash");
+
+        final ImportScanRequest reimportRequest =
+                uut.prepareContextImport("p-name", "e-name", null, null, null, "ZAP Scan", true, false);
+        assertThat(reimportRequest.getUrl()).isEqualTo(ApiClient.REUPLOAD_URL);
+        assertThat(reimportRequest.getFields())
+                .containsEntry("auto_create_context", "false")
+                .doesNotContainKeys("active", "verified", "test");
+    }
+
+    @Test
+    void testResolveTestsListsEngagementOnce(JenkinsRule r) throws IOException {
+        final var listings = new AtomicInteger();
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.get(ApiClient.TESTS_URL, (request, response) -> {
+                    final var params = new QueryStringDecoder(request.uri()).parameters();
+                    assertThat(params.get("engagement")).containsExactly("7");
+                    assertThat(params).doesNotContainKey("scan_type");
+                    listings.incrementAndGet();
+                    return response.sendString(Mono.just("{\"count\": 3, \"next\": null, \"results\": ["
+                            + "{\"id\": 11, \"title\": null, \"scan_type\": \"ZAP Scan\"}, "
+                            + "{\"id\": 12, \"title\": \"trivy\", \"scan_type\": \"Trivy Scan\"}, "
+                            + "{\"id\": 13, \"title\": null, \"scan_type\": \"ZAP Scan\"}]}"));
+                }))
+                .bindNow();
+
+        ApiClient uut = createClient();
+
+        assertThat(uut.resolveTests("7", List.of("ZAP Scan", "Trivy Scan", "Semgrep JSON Report")))
+                .containsExactly(Map.entry("ZAP Scan", "11"), Map.entry("Trivy Scan", "12"));
+        assertThat(uut.prepareImport("1", "7", null, null, null, "ZAP Scan", true).getFields())
+                .containsEntry("test", "11");
+        assertThat(uut.prepareImport("1", "7", null, null, null, "Semgrep JSON Report", true).getUrl())
+                .isEqualTo(ApiClient.UPLOAD_URL);
+        assertThat(uut.resolveTests("7", List.of("ZAP Scan", "Trivy Scan", "Semgrep JSON Report")))
+                .hasSize(2);
+        assertThat(listings).hasValue(1);
+        // found tests are cached for later builds
+        assertThat(uut.lookupResolved(ResolutionCache.Kind.TEST, "7", "Trivy Scan"))
+                .isEqualTo("12");
+    }
+
+    @Test
+    void testRejectedImportLogsExcerptOfResponse(JenkinsRule r) throws IOException {
+        final String error = "x".repeat(1024 * 1024);
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.post(ApiClient.UPLOAD_URL, (request, response) -> request.receive()
+                        .then(response.status(HttpResponseStatus.BAD_REQUEST)
+                                .sendString(Mono.just(error))
+                                .then())))
+                .bindNow();
+        final var request = new ImportScanRequest(ApiClient.UPLOAD_URL, Map.of("scan_type", "ZAP Scan"));
+
+        ApiClient uut = createClient();
+
+        assertThat(uut.importScan(request, RequestBody.create("<report/>", ApiClient.OCTET_STREAM)))
+                .isFalse();
+        verify(logger).log(Messages.Builder_Payload_Invalid());
+        verify(logger)
+                .log(error.substring(0, ApiClient.MAX_LOGGED_BODY_SIZE) + "\n"
+                        + Messages.ApiClient_Body_Truncated(ApiClient.MAX_LOGGED_BODY_SIZE));
+    }
+
+    @Test
+    void testExcerptOfShortBodyIsComplete() throws IOException {
+        final String body = "{\"detail\": \"Pr\u00fcfung fehlgeschlagen\"}";
+
+        assertThat(ApiClient.excerptOf(ResponseBody.create(body, okhttp3.MediaType.get("application/json"))))
+                .isEqualTo(body);
+        assertThat(ApiClient.excerptOf(null)).isEmpty();
+    }
+
+    @Test
+    void testRetryWhenUnavailable(JenkinsRule r) throws ApiClientException {
+        final var lookups = new AtomicInteger();
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.get(ApiClient.PRODUCT_URL, (request, response) -> {
+                    if (lookups.incrementAndGet() == 1) {
+                        return response.status(HttpResponseStatus.SERVICE_UNAVAILABLE)
+                                .header(HttpHeaderNames.RETRY_AFTER, "0")
+                                .send();
+                    }
+                    return response.status(200).sendString(Mono.just("{\"results\": [{\"id\": 42}]}"));
+                }))
+                .bindNow();
+
+        ApiClient uut = createClient();
+
+        assertThat(uut.getProductId("my-product")).isEqualTo("42");
+        assertThat(lookups).hasValue(2);
+    }
+
+    @Test
+    void testCreationsOnlyRetriedIfUnprocessed(JenkinsRule r) throws IOException {
+        final var products = new AtomicInteger();
+        final var engagements = new AtomicInteger();
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.post(ApiClient.PRODUCT_URL, (request, response) -> {
+                            if (products.incrementAndGet() == 1) {
+                                return response.status(HttpResponseStatus.BAD_GATEWAY).send();
+                            }
+                            return response.status(201).sendString(Mono.just("{\"id\": 42}"));
+                        })
+                        .post(ApiClient.ENGAGEMENT_URL, (request, response) -> {
+                            if (engagements.incrementAndGet() == 1) {
+                                return response.status(HttpResponseStatus.SERVICE_UNAVAILABLE)
+                                        .header(HttpHeaderNames.RETRY_AFTER, "0")
+                                        .send();
+                            }
+                            return response.status(201).sendString(Mono.just("{\"id\": 7}"));
+                        }))
+                .bindNow();
+
+        ApiClient uut = createClient();
+
+        // the gateway might have passed the request on, so it is not repeated
+        assertThat(uut.createProduct("my-product", null)).isNull();
+        assertThat(products).hasValue(1);
+        // DefectDojo did not process it
+        assertThat(uut.createEngagement("my-engagement", "42", null)).isEqualTo("7");
+        assertThat(engagements).hasValue(2);
+    }
+
+    @Test
+    void testImportsOnlyRetriedIfUnprocessed(JenkinsRule r) throws IOException {
+        final var imports = new AtomicInteger();
+        final var reimports = new AtomicInteger();
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.post(ApiClient.UPLOAD_URL, (request, response) -> {
+                            imports.incrementAndGet();
+                            return request.receive()
+                                    .then()
+                                    .then(response.status(HttpResponseStatus.BAD_GATEWAY).send().then());
+                        })
+                        .post(ApiClient.REUPLOAD_URL, (request, response) -> {
+                            final int attempt = reimports.incrementAndGet();
+                            return request.receive()
+                                    .then()
+                                    .then(response.status(attempt == 1 ? 502 : 201).send().then());
+                        }))
+                .bindNow();
+
+        ApiClient uut = createClient();
+        final var report = RequestBody.create("<report/>", ApiClient.OCTET_STREAM);
+
+        // the gateway might have passed the import on, which would create another test
+        assertThatCode(() -> uut.importScan(
+                        new ImportScanRequest(ApiClient.UPLOAD_URL, Map.of("scan_type", "ZAP Scan")), report))
+                .isInstanceOf(ApiClient.UnconfirmedCreationException.class)
+                .hasCauseInstanceOf(RetryableStatusException.class);
+        assertThat(imports).hasValue(1);
+        // a reimport into the same test is safe to repeat
+        assertThat(uut.importScan(
+                        new ImportScanRequest(ApiClient.REUPLOAD_URL, Map.of("scan_type", "ZAP Scan", "test", "1")),
+                        report))
+                .isTrue();
+        assertThat(reimports).hasValue(2);
+    }
+
+    @Test
+    void testCircuitOpensAfterConsecutiveFailures() throws IOException {
+        final var httpClient = mock(OkHttpClient.class);
+        final var call = mock(okhttp3.Call.class);
+        final var uut = createClient(httpClient);
+        when(httpClient.newCall(any(okhttp3.Request.class))).thenReturn(call);
+        doThrow(new ConnectException("oops")).when(call).execute();
+
+        assertThatCode(() -> uut.testConnection()).hasCauseInstanceOf(ConnectException.class);
+        // the threshold is reached during the retries of the second call
+        assertThatCode(() -> uut.testConnection()).isInstanceOf(CircuitBreaker.OpenException.class);
+        assertThat(uut.getCircuitBreaker().isOpen()).isTrue();
+        // further calls fail without a request
+        assertThatCode(() -> uut.testConnection()).isInstanceOf(CircuitBreaker.OpenException.class);
+        verify(httpClient, times(CircuitBreaker.DEFAULT_THRESHOLD)).newCall(any(okhttp3.Request.class));
+    }
+
     @Test
     void testUploadNoProduct(@TempDir Path tmpWork, JenkinsRule r) throws IOException, InterruptedException {
         server = HttpServer.create()
@@ -159,6 +474,158 @@ class ApiClientTest {
         verify(logger).log(Messages.Builder_Product_NotFound());
     }
 
+    @Test
+    void testImportScanFromAgent(@TempDir Path tmpWork, JenkinsRule r) throws IOException, InterruptedException {
+        r.jenkins.getDescriptorByType(DescriptorImpl.class).setDefectDojoRetryAttempts(2);
+        final var attempts = new AtomicInteger();
+        final var received = new AtomicReference<String>();
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.post(ApiClient.UPLOAD_URL, (request, response) -> {
+                    assertCommonHeaders(request);
+                    return request.receive().aggregate().asString().flatMap(body -> {
+                        if (attempts.incrementAndGet() == 1) {
+                            return response.status(503).send().then();
+                        }
+                        received.set(body);
+                        return response.status(201).send().then();
+                    });
+                }))
+                .bindNow();
+
+        final Path artifact = tmpWork.resolve("report.xml");
+        Files.writeString(artifact, "<report/>");
+        final var request = new ImportScanRequest(ApiClient.UPLOAD_URL, Map.of("scan_type", "ZAP Scan"));
+
+        final ImportScanCallable.Outcome outcome = new FilePath(artifact.toFile())
+                .act(new ImportScanCallable(
+                        String.format("http://%s:%d", server.host(), server.port()),
+                        API_KEY,
+                        AgentClientSettings.current(1, 1),
+                        request,
+                        ProgressRequestBody.Settings.current(),
+                        TaskListener.NULL));
+
+        assertThat(outcome.getFailure()).isNull();
+        assertThat(outcome.getStatistics()).isNotNull();
+        assertThat(received.get()).contains("ZAP Scan").contains("<report/>");
+        // the retry attempts of the controller apply and the calls are returned
+        final var metrics = outcome.getMetrics().of(ApiMetrics.Endpoint.IMPORT_SCAN);
+        assertThat(metrics.getRequests()).isEqualTo(2);
+        assertThat(metrics.getRetries()).isEqualTo(1);
+        assertThat(metrics.getErrors()).isEqualTo(Map.of("503", 1L));
+    }
+
+    @Test
+    void testGetProductsPagesWithoutOverlap(JenkinsRule r) throws ApiClientException {
+        final int catalogSize = 1234;
+        final int pageSize = 500;
+        final var requests = new AtomicInteger();
+        final var servedItems = new AtomicInteger();
+        final var servedBytes = new AtomicLong();
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.get(ApiClient.PRODUCT_URL, (request, response) -> {
+                    assertCommonHeaders(request);
+                    final var params = new QueryStringDecoder(request.uri()).parameters();
+                    final int limit = Integer.parseInt(params.get("limit").get(0));
+                    final int offset = Integer.parseInt(params.get("offset").get(0));
+                    final String body = productPage(catalogSize, offset, limit);
+                    requests.incrementAndGet();
+                    servedItems.addAndGet(Math.max(Math.min(limit, catalogSize - offset), 0));
+                    servedBytes.addAndGet(body.getBytes(StandardCharsets.UTF_8).length);
+                    return response.status(200).sendString(Mono.just(body));
+                }))
+                .bindNow();
+
+        ApiClient uut = createClient();
+        uut.setPageSize(pageSize);
+
+        final var products = uut.getProducts();
+
+        assertThat(products.size()).isEqualTo(catalogSize);
+        assertThat(IntStream.range(0, products.size()).map(products::getId).distinct())
+                .hasSize(catalogSize);
+        // ceil(1234 / 500) requests and no trailing request for an empty page
+        assertThat(requests).hasValue(3);
+        // every product is transferred exactly once
+        assertThat(servedItems).hasValue(catalogSize);
+        assertThat(servedBytes)
+                .hasValue(IntStream.of(0, 500, 1000)
+                        .mapToLong(offset -> productPage(catalogSize, offset, pageSize)
+                                .getBytes(StandardCharsets.UTF_8)
+                                .length)
+                        .sum());
+    }
+
+    @Test
+    void testGetProductsWithPageSizeCappedByDefectDojo(JenkinsRule r) throws ApiClientException {
+        try (DefectDojoStub stub = new DefectDojoStub().withProducts(1234, 0).withMaxPageSize(100)) {
+            final ApiClient uut = new ApiClient(stub.getUrl(), API_KEY, logger, 1, 1);
+            uut.setPageSize(500);
+            uut.setPageParallelism(4);
+
+            final var products = uut.getProducts();
+
+            assertThat(products.size()).isEqualTo(1234);
+            assertThat(IntStream.range(0, products.size()).map(products::getId).distinct())
+                    .hasSize(1234);
+            // the offset advances by the 100 products actually returned
+            assertThat(stub.getRequestCounts()).containsEntry(ApiClient.PRODUCT_URL, 13L);
+        }
+    }
+
+    @Test
+    void testGetProductsFetchesRemainingPagesInParallel(JenkinsRule r) throws ApiClientException {
+        final int catalogSize = 5000;
+        final int pageSize = 500;
+        final int parallelism = 3;
+        final var requests = new AtomicInteger();
+        final var inFlight = new AtomicInteger();
+        final var maxInFlight = new AtomicInteger();
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.get(ApiClient.PRODUCT_URL, (request, response) -> {
+                    final var params = new QueryStringDecoder(request.uri()).parameters();
+                    final int limit = Integer.parseInt(params.get("limit").get(0));
+                    final int offset = Integer.parseInt(params.get("offset").get(0));
+                    requests.incrementAndGet();
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    return Mono.delay(Duration.ofMillis(50))
+                            .then(response.status(200)
+                                    .sendString(Mono.just(productPage(catalogSize, offset, limit)))
+                                    .then())
+                            .doFinally(signal -> inFlight.decrementAndGet());
+                }))
+                .bindNow();
+
+        ApiClient uut = createClient();
+        uut.setPageSize(pageSize);
+        uut.setPageParallelism(parallelism);
+
+        final var products = uut.getProducts();
+
+        assertThat(IntStream.range(0, products.size()).map(products::getId))
+                .containsExactlyElementsOf(IntStream.range(0, catalogSize).boxed().collect(Collectors.toList()));
+        assertThat(requests).hasValue(10);
+        assertThat(maxInFlight.get()).isBetween(1, parallelism);
+    }
+
+    private static String productPage(final int catalogSize, final int offset, final int limit) {
+        final int end = Math.min(offset + limit, catalogSize);
+        final String next = end < catalogSize
+                ? String.format("\"%s?limit=%d&offset=%d\"", ApiClient.PRODUCT_URL, limit, end)
+                : "null";
+        final String envelope =
+                String.format("{\"count\": %d, \"next\": %s, \"previous\": null, \"results\": [", catalogSize, next);
+        return IntStream.range(offset, end)
+                .mapToObj(id -> String.format("{\"id\": %d, \"name\": \"product-%05d\"}", id, id))
+                .collect(Collectors.joining(",", envelope, "]}"));
+    }
+
     @Test
     void testGetEngagementIdFromDojo(JenkinsRule r) throws ApiClientException {
         server = HttpServer.create()
@@ -174,4 +641,70 @@ class ApiClientTest {
         ApiClient uut = createClient();
         assertThat(uut.getEngagementId(null, "test")).isEqualTo("10");
     }
+
+    @Test
+    void testGetIdFromDojoStopsAfterFirstId(JenkinsRule r) throws ApiClientException {
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.get(ApiClient.PRODUCT_URL, (request, response) -> response.status(200)
+                        // everything after the first id is never read, so the broken remainder does not matter
+                        .sendString(Mono.just("{\"count\": 2, \"prefetch\": {\"id\": 1}, \"results\": "
+                                + "[{\"tags\": [{\"id\": 2}], \"prod_type\": {\"id\": 3}, \"id\": 42, "
+                                + "\"description\": \"this is not valid json"))))
+                .bindNow();
+
+        ApiClient uut = createClient();
+        assertThat(uut.getProductId("my-product")).isEqualTo("42");
+    }
+
+    @Test
+    void testGetIdFromDojoNoResults(JenkinsRule r) throws ApiClientException {
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.get(ApiClient.PRODUCT_URL, (request, response) -> response.status(200)
+                        .sendString(Mono.just("{\"count\": 0, \"next\": null, \"results\": []}"))))
+                .bindNow();
+
+        ApiClient uut = createClient();
+        assertThat(uut.getProductId("my-product")).isNull();
+    }
+
+    @Test
+    void testResolvedIdsAreCached(JenkinsRule r) throws IOException {
+        final var lookups = new AtomicInteger();
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.get(ApiClient.PRODUCT_URL, (request, response) -> {
+                            lookups.incrementAndGet();
+                            return response.status(200).sendString(Mono.just("{\"results\": [{\"id\": 42}]}"));
+                        })
+                        .post(ApiClient.UPLOAD_URL, (request, response) -> response.status(404)
+                                .sendString(Mono.just("{\"detail\": \"Not found.\"}"))))
+                .bindNow();
+
+        ApiClient uut = createClient();
+        assertThat(uut.getProductId("my-product")).isEqualTo("42");
+        assertThat(uut.getProductId("my-product")).isEqualTo("42");
+        assertThat(lookups).hasValue(1);
+
+        // a rejected upload drops the ids it was made with
+        final var request = new ImportScanRequest(ApiClient.UPLOAD_URL, Map.of("product_id", "42"));
+        assertThat(uut.importScan(request, RequestBody.create("<report/>", ApiClient.OCTET_STREAM)))
+                .isFalse();
+        assertThat(uut.getProductId("my-product")).isEqualTo("42");
+        assertThat(lookups).hasValue(2);
+
+        // other credentials never see cached ids
+        new ApiClient(
+                        String.format("http://%s:%d", server.host(), server.port()),
+                        Secret.fromString("other-key"),
+                        logger,
+                        1,
+                        1)
+                .getProductId("my-product");
+        assertThat(lookups).hasValue(3);
+    }
 }
@@ -0,0 +1,148 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.HttpUrl;
+import org.junit.jupiter.api.Test;
+
+class ApiMetricsTest {
+
+    private final ApiMetrics uut = new ApiMetrics();
+
+    private static ApiMetrics.Endpoint endpointOf(final String url) {
+        return ApiMetrics.Endpoint.of(HttpUrl.get(url));
+    }
+
+    @Test
+    void endpointOfUrl() {
+        assertThat(endpointOf("http://host.tld/api/v2/import-scan/")).isEqualTo(ApiMetrics.Endpoint.IMPORT_SCAN);
+        assertThat(endpointOf("http://host.tld/api/v2/reimport-scan/")).isEqualTo(ApiMetrics.Endpoint.REIMPORT_SCAN);
+        assertThat(endpointOf("http://host.tld/dojo/api/v2/products/?name=p"))
+                .isEqualTo(ApiMetrics.Endpoint.PRODUCTS);
+        assertThat(endpointOf("http://host.tld/api/v2/engagements/")).isEqualTo(ApiMetrics.Endpoint.ENGAGEMENTS);
+        assertThat(endpointOf("http://host.tld/api/v2/tests/")).isEqualTo(ApiMetrics.Endpoint.TESTS);
+        assertThat(endpointOf("http://host.tld/api/v2/test_types/")).isEqualTo(ApiMetrics.Endpoint.TEST_TYPES);
+        assertThat(endpointOf("http://host.tld/api/v2/users/")).isEqualTo(ApiMetrics.Endpoint.OTHER);
+    }
+
+    @Test
+    void recordCalls() {
+        uut.recordCall(ApiMetrics.Endpoint.IMPORT_SCAN, TimeUnit.MILLISECONDS.toNanos(300), 1000, 201);
+        uut.recordCall(ApiMetrics.Endpoint.IMPORT_SCAN, TimeUnit.MILLISECONDS.toNanos(200), 500, 400);
+        uut.recordFailure(ApiMetrics.Endpoint.IMPORT_SCAN, TimeUnit.MILLISECONDS.toNanos(100), 500);
+        uut.recordResponseBytes(ApiMetrics.Endpoint.IMPORT_SCAN, 42);
+        uut.recordRetry(ApiMetrics.Endpoint.IMPORT_SCAN);
+
+        final var metrics = uut.of(ApiMetrics.Endpoint.IMPORT_SCAN);
+        assertThat(metrics.getRequests()).isEqualTo(3);
+        assertThat(metrics.getLatency()).isEqualTo(600);
+        assertThat(metrics.getRequestBytes()).isEqualTo(2000);
+        assertThat(metrics.getResponseBytes()).isEqualTo(42);
+        assertThat(metrics.getRetries()).isEqualTo(1);
+        assertThat(metrics.getErrors()).isEqualTo(Map.of("400", 1L, ApiMetrics.NO_RESPONSE, 1L));
+        assertThat(metrics.getErrorCount()).isEqualTo(2);
+        // only successful uploads count towards the throughput
+        assertThat(metrics.getUploadBytes()).isEqualTo(1000);
+        assertThat(metrics.getUploadTime()).isEqualTo(300);
+
+        uut.reset();
+        assertThat(metrics.getRequests()).isZero();
+        assertThat(metrics.getErrors()).isEmpty();
+    }
+
+    @Test
+    void add() {
+        final var other = new ApiMetrics();
+        other.recordCall(ApiMetrics.Endpoint.IMPORT_SCAN, TimeUnit.MILLISECONDS.toNanos(300), 1000, 201);
+        other.recordFailure(ApiMetrics.Endpoint.IMPORT_SCAN, TimeUnit.MILLISECONDS.toNanos(100), 500);
+        other.recordRetry(ApiMetrics.Endpoint.IMPORT_SCAN);
+        uut.recordCall(ApiMetrics.Endpoint.IMPORT_SCAN, TimeUnit.MILLISECONDS.toNanos(200), 500, 201);
+
+        uut.add(other);
+
+        final var metrics = uut.of(ApiMetrics.Endpoint.IMPORT_SCAN);
+        assertThat(metrics.getRequests()).isEqualTo(3);
+        assertThat(metrics.getLatency()).isEqualTo(600);
+        assertThat(metrics.getRequestBytes()).isEqualTo(2000);
+        assertThat(metrics.getRetries()).isEqualTo(1);
+        assertThat(metrics.getErrors()).isEqualTo(Map.of(ApiMetrics.NO_RESPONSE, 1L));
+        assertThat(metrics.getUploadBytes()).isEqualTo(1500);
+    }
+
+    @Test
+    void listenersLearnOfCallsAddedFromAgents() {
+        final List<ApiMetrics.Call> calls = new ArrayList<>();
+        final var retries = new AtomicLong();
+        final ApiMetrics.Listener listener = new ApiMetrics.Listener() {
+            @Override
+            public void onCall(final ApiMetrics.Call call) {
+                calls.add(call);
+            }
+
+            @Override
+            public void onResponseBytes(final ApiMetrics.Endpoint endpoint, final long bytes) {}
+
+            @Override
+            public void onRetries(final ApiMetrics.Endpoint endpoint, final long count) {
+                retries.addAndGet(count);
+            }
+        };
+        final long nanos = TimeUnit.MILLISECONDS.toNanos(300);
+        final ApiMetrics agent = ApiMetrics.keepingCalls();
+        agent.recordCall(ApiMetrics.Endpoint.IMPORT_SCAN, nanos, 1000, 201);
+        agent.recordRetry(ApiMetrics.Endpoint.IMPORT_SCAN);
+
+        ApiMetrics.addListener(listener);
+        try {
+            ApiMetrics.get().add(agent);
+        } finally {
+            ApiMetrics.removeListener(listener);
+            ApiMetrics.get().reset();
+        }
+
+        assertThat(calls).containsExactly(new ApiMetrics.Call(ApiMetrics.Endpoint.IMPORT_SCAN, nanos, 1000, false));
+        assertThat(retries).hasValue(1);
+    }
+
+    @Test
+    void writePrometheus() throws IOException {
+        uut.recordCall(ApiMetrics.Endpoint.PRODUCTS, TimeUnit.MILLISECONDS.toNanos(30), 0, 200);
+        uut.recordCall(ApiMetrics.Endpoint.PRODUCTS, TimeUnit.SECONDS.toNanos(2), 0, 503);
+        uut.recordCall(ApiMetrics.Endpoint.REIMPORT_SCAN, TimeUnit.SECONDS.toNanos(1), 2048, 201);
+
+        final var out = new StringWriter();
+        uut.writePrometheus(out);
+
+        assertThat(out.toString())
+                .contains("# TYPE defectdojo_api_request_duration_seconds histogram\n")
+                .contains("defectdojo_api_request_duration_seconds_bucket{endpoint=\"products\",le=\"0.025\"} 0\n")
+                .contains("defectdojo_api_request_duration_seconds_bucket{endpoint=\"products\",le=\"0.05\"} 1\n")
+                .contains("defectdojo_api_request_duration_seconds_bucket{endpoint=\"products\",le=\"2.5\"} 2\n")
+                .contains("defectdojo_api_request_duration_seconds_bucket{endpoint=\"products\",le=\"+Inf\"} 2\n")
+                .contains("defectdojo_api_request_duration_seconds_count{endpoint=\"products\"} 2\n")
+                .contains("defectdojo_api_errors_total{endpoint=\"products\",status=\"503\"} 1\n")
+                .contains("defectdojo_upload_bytes_total{endpoint=\"reimport-scan\"} 2048\n")
+                .contains("defectdojo_upload_duration_seconds_total{endpoint=\"reimport-scan\"} 1.0\n")
+                .doesNotContain("\r");
+    }
+}
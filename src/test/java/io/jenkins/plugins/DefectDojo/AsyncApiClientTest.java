@@ -0,0 +1,199 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.verify;
+
+import hudson.util.Secret;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.OkHttpClient;
+import okhttp3.RequestBody;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+@ExtendWith(MockitoExtension.class)
+@WithJenkins
+class AsyncApiClientTest {
+
+    private static final Secret API_KEY = Secret.fromString("api-key");
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private DisposableServer server;
+
+    @Mock
+    private ConsoleLogger logger;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            server.disposeNow();
+        }
+        ResolutionCache.get().clear();
+        CircuitBreaker.all().forEach(CircuitBreaker::reset);
+        ApiMetrics.get().reset();
+    }
+
+    private AsyncApiClient createClient(final OkHttpClient httpClient) {
+        return new ApiClient(
+                        String.format("http://%s:%d", server.host(), server.port()), API_KEY, logger, () -> httpClient)
+                .async();
+    }
+
+    @Test
+    void testGetProductIdIsCached(JenkinsRule r) {
+        final var lookups = new AtomicInteger();
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.get(ApiClient.PRODUCT_URL, (request, response) -> {
+                    lookups.incrementAndGet();
+                    return response.status(200).sendString(Mono.just("{\"results\": [{\"id\": 42}]}"));
+                }))
+                .bindNow();
+
+        final AsyncApiClient uut = createClient(new OkHttpClient());
+
+        assertThat(uut.getProductId("my-product")).succeedsWithin(TIMEOUT).isEqualTo("42");
+        final var cached = uut.getProductId("my-product");
+        assertThat(cached).isCompletedWithValue("42");
+        assertThat(lookups).hasValue(1);
+    }
+
+    @Test
+    void testFailedCallIsRetried(JenkinsRule r) {
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.get(ApiClient.ENGAGEMENT_URL, (request, response) -> response.status(200)
+                        .sendString(Mono.just("{\"results\": [{\"id\": 7}]}"))))
+                .bindNow();
+        final var attempts = new AtomicInteger();
+        final var flakyClient = new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    if (attempts.incrementAndGet() == 1) {
+                        throw new ConnectException("oops");
+                    }
+                    return chain.proceed(chain.request());
+                })
+                .build();
+
+        final AsyncApiClient uut = createClient(flakyClient);
+
+        assertThat(uut.getEngagementId("1", "my-engagement"))
+                .succeedsWithin(TIMEOUT)
+                .isEqualTo("7");
+        assertThat(attempts).hasValue(2);
+        assertThat(ApiMetrics.get().of(ApiMetrics.Endpoint.ENGAGEMENTS).getRetries()).isEqualTo(1);
+    }
+
+    @Test
+    void testGiveUpAfterMaxAttempts(JenkinsRule r) {
+        server = HttpServer.create().host("localhost").port(0).bindNow();
+        final var attempts = new AtomicInteger();
+        final var brokenClient = new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    attempts.incrementAndGet();
+                    throw new ConnectException("oops");
+                })
+                .build();
+
+        final AsyncApiClient uut = createClient(brokenClient);
+
+        final var created = uut.createProduct("my-product", null);
+        assertThatThrownBy(() -> created.get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(ApiClientException.class)
+                .hasRootCauseInstanceOf(ConnectException.class);
+        assertThat(attempts).hasValue(RetryEngine.DEFAULT_MAX_ATTEMPTS);
+    }
+
+    @Test
+    void testCreationNotRetriedAfterTimeout(JenkinsRule r) {
+        server = HttpServer.create().host("localhost").port(0).bindNow();
+        final var attempts = new AtomicInteger();
+        final var timingOutClient = new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    attempts.incrementAndGet();
+                    throw new SocketTimeoutException("timeout");
+                })
+                .build();
+
+        final AsyncApiClient uut = createClient(timingOutClient);
+
+        final var created = uut.createProduct("my-product", null);
+        assertThatThrownBy(() -> created.get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(ApiClient.UnconfirmedCreationException.class)
+                .hasRootCauseInstanceOf(SocketTimeoutException.class);
+        assertThat(attempts).hasValue(1);
+    }
+
+    @Test
+    void testImportNotRetriedAfterBadGateway(JenkinsRule r) {
+        final var imports = new AtomicInteger();
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.post(ApiClient.UPLOAD_URL, (request, response) -> {
+                    imports.incrementAndGet();
+                    return request.receive().then().then(response.status(502).send().then());
+                }))
+                .bindNow();
+
+        final AsyncApiClient uut = createClient(new OkHttpClient());
+        final var request = new ImportScanRequest(ApiClient.UPLOAD_URL, Map.of("scan_type", "ZAP Scan"));
+
+        final var imported = uut.importScan(request, RequestBody.create("<report/>", ApiClient.OCTET_STREAM));
+        assertThatThrownBy(() -> imported.get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(ApiClient.UnconfirmedCreationException.class);
+        assertThat(imports).hasValue(1);
+    }
+
+    @Test
+    void testImportScanRejected(JenkinsRule r) throws IOException {
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.post(ApiClient.UPLOAD_URL, (request, response) -> response.status(404)
+                        .sendString(Mono.just("{\"detail\": \"Not found.\"}"))))
+                .bindNow();
+
+        final AsyncApiClient uut = createClient(new OkHttpClient());
+        final var request = new ImportScanRequest(ApiClient.UPLOAD_URL, Map.of("scan_type", "ZAP Scan"));
+
+        assertThat(uut.importScan(request, RequestBody.create("<report/>", ApiClient.OCTET_STREAM)))
+                .succeedsWithin(TIMEOUT)
+                .isEqualTo(false);
+        verify(logger).log(Messages.Builder_Product_NotFound());
+    }
+}
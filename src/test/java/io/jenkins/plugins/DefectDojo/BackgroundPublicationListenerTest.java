@@ -0,0 +1,98 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import hudson.model.Result;
+import hudson.model.Run;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class BackgroundPublicationListenerTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private JenkinsRule r;
+    private WorkflowJob job;
+
+    @BeforeEach
+    void setup(JenkinsRule r) throws Exception {
+        this.r = r;
+        job = r.createProject(WorkflowJob.class, "p");
+        job.setDefinition(new CpsFlowDefinition("echo 'not collected'", true));
+    }
+
+    private void registerForNextBuild(final CompletableFuture<Boolean> result) {
+        final Run<?, ?> run = mock(Run.class);
+        when(run.getExternalizableId()).thenReturn(job.getFullName() + "#" + job.getNextBuildNumber());
+        BackgroundPublications.get().register(run, result);
+    }
+
+    private static BackgroundPublicationAction awaitOutcome(final WorkflowRun run) throws InterruptedException {
+        final BackgroundPublicationAction action = run.getAction(BackgroundPublicationAction.class);
+        assertThat(action).isNotNull();
+        final long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (action.getFailures() == null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        return action;
+    }
+
+    @Test
+    void testSucceeded() throws Exception {
+        registerForNextBuild(CompletableFuture.completedFuture(true));
+        final WorkflowRun run = r.buildAndAssertSuccess(job);
+        r.assertLogContains(Messages.Background_Uncollected(1), run);
+        assertThat(awaitOutcome(run).getFailures()).isZero();
+    }
+
+    @Test
+    void testDoesNotWaitForRunningPublications() throws Exception {
+        final CompletableFuture<Boolean> result = new CompletableFuture<>();
+        registerForNextBuild(result);
+        // the result of the build is final, the failure is only recorded
+        final WorkflowRun run = r.buildAndAssertSuccess(job);
+        assertThat(run.getAction(BackgroundPublicationAction.class).getFailures()).isNull();
+
+        result.complete(false);
+
+        final BackgroundPublicationAction action = awaitOutcome(run);
+        assertThat(action.getPublications()).isOne();
+        assertThat(action.getFailures()).isOne();
+        assertThat(run.getResult()).isEqualTo(Result.SUCCESS);
+    }
+
+    @Test
+    void testCancelsAfterTimeout() throws Exception {
+        r.jenkins.getDescriptorByType(DescriptorImpl.class).setDefectDojoBackgroundTimeout(1);
+        final CompletableFuture<Boolean> result = new CompletableFuture<>();
+        registerForNextBuild(result);
+        final WorkflowRun run = r.buildAndAssertSuccess(job);
+
+        assertThat(result).failsWithin(TIMEOUT);
+        assertThat(result).isCancelled();
+        assertThat(awaitOutcome(run).getTimeout()).isOne();
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class CatalogCacheTest {
+
+    private static final CatalogCache.Key KEY =
+            new CatalogCache.Key("http://host.tld", "digest", CatalogCache.Kind.PRODUCTS, null);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final QueuedExecutor executor = new QueuedExecutor();
+
+    private final CatalogCache uut = new CatalogCache(clock::get, executor);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private IdNameList load() {
+        final int generation = loads.incrementAndGet();
+        return new IdNameList.Builder(1).add(generation, "product").build();
+    }
+
+    @Test
+    void freshListIsServedFromCache() throws ApiClientException {
+        assertThat(uut.get(KEY, 60, this::load).getId(0)).isEqualTo(1);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(59));
+        assertThat(uut.get(KEY, 60, this::load).getId(0)).isEqualTo(1);
+
+        assertThat(loads).hasValue(1);
+        assertThat(executor.tasks).isEmpty();
+    }
+
+    @Test
+    void staleListIsServedWhileRevalidating() throws ApiClientException {
+        uut.get(KEY, 60, this::load);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(60));
+
+        assertThat(uut.get(KEY, 60, this::load).getId(0)).isEqualTo(1);
+        // only one refresh is scheduled at a time
+        assertThat(uut.get(KEY, 60, this::load).getId(0)).isEqualTo(1);
+        assertThat(executor.tasks).hasSize(1);
+
+        executor.runAll();
+        assertThat(uut.get(KEY, 60, this::load).getId(0)).isEqualTo(2);
+    }
+
+    @Test
+    void failedRefreshKeepsStaleList() throws ApiClientException {
+        uut.get(KEY, 60, this::load);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(60));
+
+        uut.get(KEY, 60, () -> {
+            throw new ApiClientException("down");
+        });
+        executor.runAll();
+
+        assertThat(uut.get(KEY, 60, this::load).getId(0)).isEqualTo(1);
+        executor.runAll();
+        assertThat(uut.get(KEY, 60, this::load).getId(0)).isEqualTo(2);
+    }
+
+    @Test
+    void missingListFailsWithLoader() {
+        assertThatThrownBy(() -> uut.get(KEY, 60, () -> {
+                    throw new ApiClientException("down");
+                }))
+                .isInstanceOf(ApiClientException.class);
+        assertThat(uut.size()).isZero();
+    }
+
+    @Test
+    void invalidateAndDisabledCacheLoadAnew() throws ApiClientException {
+        uut.get(KEY, 60, this::load);
+        uut.invalidate("http://host.tld", "digest");
+        assertThat(uut.get(KEY, 60, this::load).getId(0)).isEqualTo(2);
+
+        assertThat(uut.get(KEY, 0, this::load).getId(0)).isEqualTo(3);
+    }
+
+    /**
+     * runs tasks only when asked to
+     */
+    private static final class QueuedExecutor extends AbstractExecutorService {
+
+        final List<Runnable> tasks = new ArrayList<>();
+
+        void runAll() {
+            final List<Runnable> pending = new ArrayList<>(tasks);
+            tasks.clear();
+            pending.forEach(Runnable::run);
+        }
+
+        @Override
+        public void execute(final Runnable command) {
+            tasks.add(command);
+        }
+
+        @Override
+        public void shutdown() {}
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(final long timeout, final TimeUnit unit) {
+            return true;
+        }
+    }
+}
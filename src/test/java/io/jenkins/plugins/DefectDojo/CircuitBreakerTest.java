@@ -0,0 +1,94 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final CircuitBreaker uut = new CircuitBreaker("http://host.tld", clock::get);
+
+    @Test
+    void opensAfterThreshold() {
+        uut.recordFailure(3, 30);
+        uut.recordFailure(3, 30);
+        assertThatCode(uut::acquire).doesNotThrowAnyException();
+
+        uut.recordFailure(3, 30);
+        assertThat(uut.isOpen()).isTrue();
+        assertThatThrownBy(uut::acquire)
+                .isInstanceOf(CircuitBreaker.OpenException.class)
+                .hasMessage(Messages.ApiClient_Error_CircuitOpen("http://host.tld", 30));
+    }
+
+    @Test
+    void successResetsFailures() {
+        uut.recordFailure(2, 30);
+        uut.recordSuccess();
+        uut.recordFailure(2, 30);
+        assertThat(uut.isOpen()).isFalse();
+    }
+
+    @Test
+    void singleFailureReopensAfterSuspension() {
+        uut.recordFailure(1, 30);
+        assertThat(uut.isOpen()).isTrue();
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        assertThatCode(uut::acquire).doesNotThrowAnyException();
+        uut.recordFailure(5, 30);
+        assertThat(uut.isOpen()).isTrue();
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        uut.recordSuccess();
+        uut.recordFailure(5, 30);
+        assertThat(uut.isOpen()).isFalse();
+    }
+
+    @Test
+    void letsSingleTrialThrough() {
+        uut.recordFailure(1, 30);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+
+        assertThatCode(uut::acquire).doesNotThrowAnyException();
+        assertThatThrownBy(uut::acquire).isInstanceOf(CircuitBreaker.OpenException.class);
+        assertThat(uut.isOpen()).isTrue();
+
+        // the trial ended without an outcome, so another one is let through
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        assertThatCode(uut::acquire).doesNotThrowAnyException();
+        assertThatThrownBy(uut::acquire).isInstanceOf(CircuitBreaker.OpenException.class);
+
+        uut.recordSuccess();
+        assertThat(uut.isOpen()).isFalse();
+        assertThatCode(uut::acquire).doesNotThrowAnyException();
+        assertThatCode(uut::acquire).doesNotThrowAnyException();
+    }
+
+    @Test
+    void neverOpensWithoutThreshold() {
+        for (int i = 0; i < 10; i++) {
+            uut.recordFailure(0, 30);
+        }
+        assertThatCode(uut::acquire).doesNotThrowAnyException();
+    }
+}
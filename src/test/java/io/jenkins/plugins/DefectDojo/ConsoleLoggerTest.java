@@ -13,13 +13,15 @@
  */
 package io.jenkins.plugins.DefectDojo;
 
-import static org.mockito.Mockito.mock;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import org.junit.jupiter.api.Test;
 
@@ -27,10 +29,21 @@ class ConsoleLoggerTest {
 
     @Test
     void testLog() throws IOException {
-        PrintStream ps = mock(PrintStream.class);
-        ConsoleLogger uut = new ConsoleLogger(ps);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ConsoleLogger uut = new ConsoleLogger(new PrintStream(out, true, StandardCharsets.UTF_8));
         uut.log("test\r\nline2");
-        verify(ps).println("[DefectDojo] test\r\n[DefectDojo] line2");
+        uut.log("single line");
+        assertThat(out.toString(StandardCharsets.UTF_8))
+                .isEqualToNormalizingNewlines("[DefectDojo] test\r\n[DefectDojo] line2\n[DefectDojo] single line\n");
+    }
+
+    @Test
+    void testLogTrailingNewLine() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ConsoleLogger uut = new ConsoleLogger(new PrintStream(out, true, StandardCharsets.UTF_8));
+        uut.log("test\n");
+        assertThat(out.toString(StandardCharsets.UTF_8))
+                .isEqualToNormalizingNewlines("[DefectDojo] test\n[DefectDojo] \n");
     }
 
     @Test
@@ -39,7 +52,7 @@ class ConsoleLoggerTest {
         ConsoleLogger uut = new ConsoleLogger(ps);
         uut.write("test\nline2\n".getBytes());
         uut.flush();
-        verify(ps, times(2)).append("[DefectDojo] ");
+        verify(ps, times(2)).write("[DefectDojo] ".getBytes(StandardCharsets.US_ASCII), 0, 13);
         verify(ps).write(Arrays.copyOf("line2\n".getBytes(), 32), 0, 6);
     }
 }
@@ -13,7 +13,18 @@
  */
 package io.jenkins.plugins.DefectDojo;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.cloudbees.plugins.credentials.CredentialsProvider;
@@ -23,19 +34,33 @@ import hudson.AbortException;
 import hudson.EnvVars;
 import hudson.FilePath;
 import hudson.Launcher;
+import hudson.model.Action;
 import hudson.model.Job;
 import hudson.model.Run;
 import hudson.model.TaskListener;
 import hudson.util.Secret;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import org.jenkinsci.plugins.plaincredentials.impl.StringCredentialsImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import org.jvnet.hudson.test.JenkinsRule;
 import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
@@ -61,6 +86,9 @@ class DefectDojoPublisherTest {
     @Mock
     private ApiClient client;
 
+    @TempDir
+    Path jobDir;
+
     private final ApiClientFactory clientFactory = (url, apiKey, logger, connTimeout, readTimeout) -> client;
     private final String apikeyId = "api-key-id";
     private final Secret apikey = Secret.fromString("api-key");
@@ -82,6 +110,7 @@ class DefectDojoPublisherTest {
         when(job.getParent()).thenReturn(r.jenkins);
         when(job.getName()).thenReturn("u-drive-me-crazy");
         when(job.getFullName()).thenReturn("/u-drive-me-crazy");
+        when(job.getRootDir()).thenReturn(jobDir.toFile());
         when(build.getParent()).thenReturn(job);
         when(build.getNumber()).thenReturn(1);
     }
@@ -136,4 +165,299 @@ class DefectDojoPublisherTest {
                 .isInstanceOf(AbortException.class)
                 .hasMessage(Messages.Builder_Artifact_NonExist("foo"));
     }
+
+    @Test
+    void testPerformMultipleArtifacts(@TempDir Path tmpWork) throws IOException, InterruptedException {
+        FilePath workDir = new FilePath(tmpWork.toFile());
+        Files.createDirectories(tmpWork.resolve("reports"));
+        Files.writeString(tmpWork.resolve("reports/small.json"), "{}");
+        Files.writeString(tmpWork.resolve("reports/large.json"), "{\"findings\": []}");
+        Files.writeString(tmpWork.resolve("zap.xml"), "<report/>");
+        final var asyncClient = mock(AsyncApiClient.class);
+        when(client.async()).thenReturn(asyncClient);
+        when(client.prepareImport(any(), any(), any(), any(), any(), any(), anyBoolean()))
+                .thenAnswer(i ->
+                        new ImportScanRequest(ApiClient.UPLOAD_URL, Map.of("scan_type", i.<String>getArgument(5))));
+        when(asyncClient.importScan(any(), any())).thenReturn(CompletableFuture.completedFuture(true));
+
+        final DefectDojoPublisher uut = new DefectDojoPublisher("zap.xml", "ZAP Scan", clientFactory);
+        uut.setProductId("pid-1");
+        uut.setEngagementId("eid-1");
+        uut.setUploadParallelism(1);
+        uut.setArtifacts(List.of(new ScanArtifact("reports/*.json", "Trivy Scan")));
+        uut.perform(build, workDir, env, launcher, listener);
+
+        // largest first
+        final InOrder inOrder = inOrder(client);
+        inOrder.verify(client)
+                .prepareImport(eq("pid-1"), eq("eid-1"), any(), any(), any(), eq("Trivy Scan"), anyBoolean());
+        inOrder.verify(client)
+                .prepareImport(eq("pid-1"), eq("eid-1"), any(), any(), any(), eq("ZAP Scan"), anyBoolean());
+        inOrder.verify(client)
+                .prepareImport(eq("pid-1"), eq("eid-1"), any(), any(), any(), eq("Trivy Scan"), anyBoolean());
+        verify(asyncClient, times(3)).importScan(any(), any());
+
+        // a pattern must match something
+        uut.setArtifacts(List.of(new ScanArtifact("*.sarif", "SARIF")));
+        assertThatCode(() -> uut.perform(build, workDir, env, launcher, listener))
+                .isInstanceOf(AbortException.class)
+                .hasMessage(Messages.Builder_Artifact_NoMatch("*.sarif"));
+    }
+
+    @Test
+    void testPerformBackground(@TempDir Path tmpWork) throws Exception {
+        FilePath workDir = new FilePath(tmpWork.toFile());
+        Files.writeString(tmpWork.resolve("zap.xml"), "<report/>");
+        when(build.getExternalizableId()).thenReturn("u-drive-me-crazy#1");
+        final var asyncClient = mock(AsyncApiClient.class);
+        when(client.async()).thenReturn(asyncClient);
+        when(client.prepareImport(any(), any(), any(), any(), any(), any(), anyBoolean()))
+                .thenAnswer(i ->
+                        new ImportScanRequest(ApiClient.UPLOAD_URL, Map.of("scan_type", i.<String>getArgument(5))));
+        final CompletableFuture<Boolean> imported = new CompletableFuture<>();
+        when(asyncClient.importScan(any(), any())).thenReturn(imported);
+
+        final DefectDojoPublisher uut = new DefectDojoPublisher("zap.xml", "ZAP Scan", clientFactory);
+        uut.setProductId("pid-1");
+        uut.setEngagementId("eid-1");
+        uut.setBackground(true);
+        uut.perform(build, workDir, env, launcher, listener);
+
+        // the step returned while the import is still running
+        final List<CompletableFuture<Boolean>> results = BackgroundPublications.get().take(build);
+        assertThat(results).hasSize(1);
+        assertThat(results.get(0)).isNotDone();
+        assertThat(BackgroundPublications.get().take(build)).isEmpty();
+
+        // a copy is uploaded, so the workspace may change meanwhile
+        Files.delete(tmpWork.resolve("zap.xml"));
+        imported.complete(true);
+        assertThat(results.get(0).get(10, TimeUnit.SECONDS)).isTrue();
+        verify(asyncClient).importScan(any(), any());
+    }
+
+    @Test
+    void testPerformSkipsUnchanged(@TempDir Path tmpWork) throws IOException, InterruptedException {
+        FilePath workDir = new FilePath(tmpWork.toFile());
+        Files.writeString(tmpWork.resolve("zap.xml"), "<report/>");
+        final var asyncClient = mock(AsyncApiClient.class);
+        when(client.async()).thenReturn(asyncClient);
+        when(client.prepareImport(any(), any(), any(), any(), any(), any(), anyBoolean()))
+                .thenReturn(new ImportScanRequest(
+                        ApiClient.REUPLOAD_URL,
+                        Map.of("engagement", "eid-1", "scan_type", "ZAP Scan", "test", "tid-1")));
+        when(asyncClient.importScan(any(), any())).thenReturn(CompletableFuture.completedFuture(true));
+        UploadIndex.get().clear();
+
+        final DefectDojoPublisher uut = new DefectDojoPublisher("zap.xml", "ZAP Scan", clientFactory);
+        uut.setProductId("pid-1");
+        uut.setEngagementId("eid-1");
+        uut.setSkipUnchanged(true);
+        uut.perform(build, workDir, env, launcher, listener);
+        uut.perform(build, workDir, env, launcher, listener);
+        verify(asyncClient, times(1)).importScan(any(), any());
+
+        Files.writeString(tmpWork.resolve("zap.xml"), "<report><finding/></report>");
+        uut.perform(build, workDir, env, launcher, listener);
+        verify(asyncClient, times(2)).importScan(any(), any());
+    }
+
+    @Test
+    void testPerformSpoolsWhenUnavailable(@TempDir Path tmpWork) throws IOException, InterruptedException {
+        FilePath workDir = new FilePath(tmpWork.toFile());
+        Files.writeString(tmpWork.resolve("zap.xml"), "<report/>");
+        when(build.getExternalizableId()).thenReturn("u-drive-me-crazy#1");
+        final var asyncClient = mock(AsyncApiClient.class);
+        when(client.async()).thenReturn(asyncClient);
+        when(client.prepareImport(any(), any(), any(), any(), any(), any(), anyBoolean()))
+                .thenReturn(new ImportScanRequest(
+                        ApiClient.REUPLOAD_URL,
+                        Map.of("engagement", "eid-1", "scan_type", "ZAP Scan", "test", "tid-1")));
+        when(asyncClient.importScan(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(
+                        new ApiClientException("unavailable", new ConnectException("refused"))));
+
+        final DefectDojoPublisher uut = new DefectDojoPublisher("zap.xml", "ZAP Scan", clientFactory);
+        uut.setProductId("pid-1");
+        uut.setEngagementId("eid-1");
+        assertThatCode(() -> uut.perform(build, workDir, env, launcher, listener))
+                .isInstanceOf(AbortException.class)
+                .hasMessage(Messages.Builder_Upload_Failed());
+
+        // the build succeeds, the report is uploaded later on
+        uut.setOutbox(true);
+        uut.setDefectDojoCredentialsId(apikeyId);
+        uut.perform(build, workDir, env, launcher, listener);
+        final List<OutboxItem> spooled = Outbox.get().list();
+        assertThat(spooled).hasSize(1);
+        assertThat(spooled.get(0).getOrigin()).isEqualTo("u-drive-me-crazy#1");
+        // the API key itself is not spooled
+        assertThat(spooled.get(0).getCredentialsId()).isEqualTo(apikeyId);
+        Outbox.get().remove(spooled.get(0));
+    }
+
+    @Test
+    void testPerformRecordsTimings(@TempDir Path tmpWork) throws IOException, InterruptedException {
+        FilePath workDir = new FilePath(tmpWork.toFile());
+        Files.writeString(tmpWork.resolve("zap.xml"), "<report/>");
+        final var asyncClient = mock(AsyncApiClient.class);
+        when(client.async()).thenReturn(asyncClient);
+        when(client.getProductId("p-name")).thenReturn("pid-1");
+        when(client.getEngagementId("pid-1", "e-name")).thenReturn("eid-1");
+        when(client.prepareImport(any(), any(), any(), any(), any(), any(), anyBoolean()))
+                .thenReturn(new ImportScanRequest(ApiClient.UPLOAD_URL, Map.of("scan_type", "ZAP Scan")));
+        when(asyncClient.importScan(any(), any())).thenReturn(CompletableFuture.completedFuture(true));
+
+        final DefectDojoPublisher uut = new DefectDojoPublisher("zap.xml", "ZAP Scan", clientFactory);
+        uut.setProductName("p-name");
+        uut.setEngagementName("e-name");
+        uut.perform(build, workDir, env, launcher, listener);
+
+        final ArgumentCaptor<PublicationTimingAction> action = ArgumentCaptor.forClass(PublicationTimingAction.class);
+        verify(build).addAction(action.capture());
+        assertThat(action.getValue().getPhases())
+                .extracting(PublicationTimingAction.PhaseTiming::getName)
+                .containsExactly(
+                        Messages.Timing_Phase_ProductLookup(),
+                        Messages.Timing_Phase_EngagementLookup(),
+                        Messages.Timing_Phase_TestLookup(),
+                        Messages.Timing_Phase_Upload());
+        assertThat(action.getValue().getPhases().get(3).getBytes()).isEqualTo(9);
+
+        // the trend is drawn from the index, not from the builds
+        final var indexed = PublicationTimingIndex.of(job).getBuilds();
+        assertThat(indexed).containsOnlyKeys(1);
+        assertThat(indexed.get(1)).containsOnlyKeys(action.getValue().getMillis().keySet());
+    }
+
+    @Test
+    void testPerformRecordsStatistics(@TempDir Path tmpWork) throws IOException, InterruptedException {
+        FilePath workDir = new FilePath(tmpWork.toFile());
+        Files.writeString(tmpWork.resolve("zap.xml"), "<report/>");
+        final var asyncClient = mock(AsyncApiClient.class);
+        final var importListener = new AtomicReference<ApiClient.ImportListener>();
+        final var statistics = new ImportStatistics.Builder()
+                .test("42")
+                .after(ImportStatistics.Severity.HIGH, "active", 2)
+                .after(ImportStatistics.Severity.HIGH, "total", 2)
+                .build();
+        when(client.async()).thenReturn(asyncClient);
+        when(client.getProductId("p-name")).thenReturn("pid-1");
+        when(client.getEngagementId("pid-1", "e-name")).thenReturn("eid-1");
+        when(client.prepareImport(any(), any(), any(), any(), any(), any(), anyBoolean()))
+                .thenReturn(new ImportScanRequest(ApiClient.UPLOAD_URL, Map.of("scan_type", "ZAP Scan")));
+        doAnswer(invocation -> {
+                    importListener.set(invocation.getArgument(0));
+                    return null;
+                })
+                .when(client)
+                .setImportListener(any());
+        when(asyncClient.importScan(any(), any())).thenAnswer(invocation -> {
+            importListener.get().imported(invocation.getArgument(0), statistics);
+            return CompletableFuture.completedFuture(true);
+        });
+
+        final DefectDojoPublisher uut = new DefectDojoPublisher("zap.xml", "ZAP Scan", clientFactory);
+        uut.setProductName("p-name");
+        uut.setEngagementName("e-name");
+        uut.perform(build, workDir, env, launcher, listener);
+
+        final ArgumentCaptor<Action> actions = ArgumentCaptor.forClass(Action.class);
+        verify(build, atLeastOnce()).addAction(actions.capture());
+        assertThat(actions.getAllValues())
+                .filteredOn(ImportStatisticsAction.class::isInstance)
+                .singleElement()
+                .extracting(action -> ((ImportStatisticsAction) action).getReports())
+                .asList()
+                .containsExactly(new ImportStatisticsAction.Report("zap.xml", "ZAP Scan", statistics));
+    }
+
+    @Test
+    void testPerformImportsWithContextInSingleRequest(@TempDir Path tmpWork) throws IOException, InterruptedException {
+        FilePath workDir = new FilePath(tmpWork.toFile());
+        Files.writeString(tmpWork.resolve("zap.xml"), "<report/>");
+        final var asyncClient = mock(AsyncApiClient.class);
+        final var request = new ImportScanRequest(ApiClient.UPLOAD_URL, Map.of("scan_type", "ZAP Scan"));
+        final var importListener = new AtomicReference<ApiClient.ImportListener>();
+        final var statistics = new ImportStatistics.Builder().test("42").engagement("7").build();
+        final var log = new ByteArrayOutputStream();
+        when(listener.getLogger()).thenReturn(new PrintStream(log, true, StandardCharsets.UTF_8));
+        when(client.async()).thenReturn(asyncClient);
+        when(client.supportsAutoCreateContext()).thenReturn(true);
+        when(client.prepareContextImport("p-name", "e-name", null, null, null, "ZAP Scan", false, true))
+                .thenReturn(request);
+        doAnswer(invocation -> {
+                    importListener.set(invocation.getArgument(0));
+                    return null;
+                })
+                .when(client)
+                .setImportListener(any());
+        when(asyncClient.importScan(any(), any())).thenAnswer(invocation -> {
+            importListener.get().imported(invocation.getArgument(0), statistics);
+            return CompletableFuture.completedFuture(true);
+        });
+
+        final DefectDojoPublisher uut = new DefectDojoPublisher("zap.xml", "ZAP Scan", clientFactory);
+        uut.setProductName("p-name");
+        uut.setEngagementName("e-name");
+        uut.setAutoCreateContext(true);
+        uut.setAutoCreateProducts(false);
+        uut.setAutoCreateEngagements(true);
+        uut.perform(build, workDir, env, launcher, listener);
+
+        verify(asyncClient).importScan(eq(request), any());
+        verify(client, never()).getProductId(any());
+        verify(client, never()).getEngagementId(any(), any());
+        verify(client, never()).prepareImport(any(), any(), any(), any(), any(), any(), anyBoolean());
+        // the engagement is only known from the response
+        assertThat(log.toString(StandardCharsets.UTF_8)).contains("/engagement/7 ");
+    }
+
+    @Test
+    void testPerformResolvesContextIfNotSupported(@TempDir Path tmpWork) throws IOException, InterruptedException {
+        FilePath workDir = new FilePath(tmpWork.toFile());
+        Files.writeString(tmpWork.resolve("zap.xml"), "<report/>");
+        final var asyncClient = mock(AsyncApiClient.class);
+        when(client.async()).thenReturn(asyncClient);
+        when(client.supportsAutoCreateContext()).thenReturn(false);
+        when(client.getProductId("p-name")).thenReturn("pid-1");
+        when(client.getEngagementId("pid-1", "e-name")).thenReturn("eid-1");
+        when(client.prepareImport(any(), any(), any(), any(), any(), any(), anyBoolean()))
+                .thenReturn(new ImportScanRequest(ApiClient.UPLOAD_URL, Map.of("scan_type", "ZAP Scan")));
+        when(asyncClient.importScan(any(), any())).thenReturn(CompletableFuture.completedFuture(true));
+
+        final DefectDojoPublisher uut = new DefectDojoPublisher("zap.xml", "ZAP Scan", clientFactory);
+        uut.setProductName("p-name");
+        uut.setEngagementName("e-name");
+        uut.setAutoCreateContext(true);
+        uut.perform(build, workDir, env, launcher, listener);
+
+        verify(client).prepareImport(eq("pid-1"), eq("eid-1"), any(), any(), any(), eq("ZAP Scan"), anyBoolean());
+        verify(client, never())
+                .prepareContextImport(any(), any(), any(), any(), any(), any(), anyBoolean(), anyBoolean());
+    }
+
+    @Test
+    void testPerformResolvesTestsOfAllScanTypesAtOnce(@TempDir Path tmpWork) throws IOException, InterruptedException {
+        FilePath workDir = new FilePath(tmpWork.toFile());
+        Files.writeString(tmpWork.resolve("zap.xml"), "<report/>");
+        Files.writeString(tmpWork.resolve("trivy.json"), "{}");
+        final var asyncClient = mock(AsyncApiClient.class);
+        when(client.async()).thenReturn(asyncClient);
+        when(client.getProductId("p-name")).thenReturn("pid-1");
+        when(client.getEngagementId("pid-1", "e-name")).thenReturn("eid-1");
+        when(client.prepareImport(any(), any(), any(), any(), any(), any(), anyBoolean()))
+                .thenReturn(new ImportScanRequest(ApiClient.UPLOAD_URL, Map.of("scan_type", "ZAP Scan")));
+        when(asyncClient.importScan(any(), any())).thenReturn(CompletableFuture.completedFuture(true));
+
+        final DefectDojoPublisher uut = new DefectDojoPublisher("zap.xml", "ZAP Scan", clientFactory);
+        uut.setArtifacts(List.of(new ScanArtifact("trivy.json", "Trivy Scan")));
+        uut.setProductName("p-name");
+        uut.setEngagementName("e-name");
+        uut.perform(build, workDir, env, launcher, listener);
+
+        final InOrder inOrder = inOrder(client);
+        inOrder.verify(client).resolveTests("eid-1", Set.of("ZAP Scan", "Trivy Scan"));
+        inOrder.verify(client, times(2)).prepareImport(any(), any(), any(), any(), any(), any(), anyBoolean());
+    }
 }
@@ -0,0 +1,439 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import net.sf.json.JSONObject;
+import net.sf.json.util.JSONUtils;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+/**
+ * Local simulation of the parts of the DefectDojo API the plugin calls,
+ * served by reactor-netty. It answers id lookups, paginated catalogs of
+ * configurable size, creates products and engagements and accepts imports.
+ * The first import of a scan type into an engagement creates a test, which
+ * later reimports are looked up by.
+ * <p>
+ * Latency, the largest page size, injected errors and the rate uploads are
+ * read at can be changed while the stub is running. All requests are counted
+ * by path.
+ */
+final class DefectDojoStub implements AutoCloseable {
+
+    /**
+     * the largest page size DefectDojo hands out by default
+     */
+    static final int DEFAULT_MAX_PAGE_SIZE = 1000;
+
+    /**
+     * how much of an upload is searched for the form fields, they precede the
+     * report
+     */
+    private static final int FORM_FIELDS_LENGTH = 64 * 1024;
+
+    private static final Pattern FORM_FIELD =
+            Pattern.compile("name=\"(\\w+)\"\r\n(?:[^\r\n]+\r\n)*\r\n([^\r\n]*)\r\n");
+
+    private final DisposableServer server;
+
+    private volatile Duration latency = Duration.ZERO;
+    private volatile int maxPageSize = DEFAULT_MAX_PAGE_SIZE;
+    private volatile int failEvery;
+    private volatile int failStatus = HttpResponseStatus.SERVICE_UNAVAILABLE.code();
+    private volatile long uploadBytesPerSecond;
+
+    /**
+     * the names of the products, engagements and scan types by id
+     */
+    private final Map<Integer, String> products = new ConcurrentHashMap<>();
+
+    private final Map<Integer, Engagement> engagements = new ConcurrentHashMap<>();
+    private final Map<Integer, String> scanTypes = new ConcurrentHashMap<>();
+
+    /**
+     * the ids of the tests by engagement and scan type
+     */
+    private final Map<String, Integer> tests = new ConcurrentHashMap<>();
+
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final AtomicLong requestNumber = new AtomicLong();
+    private final Map<String, LongAdder> requestCounts = new ConcurrentHashMap<>();
+    private final LongAdder uploadedBytes = new LongAdder();
+    private final LongAdder injectedErrors = new LongAdder();
+
+    DefectDojoStub() {
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.get(ApiClient.PRODUCT_URL, handle(this::getProducts))
+                        .post(ApiClient.PRODUCT_URL, handle(this::createProduct))
+                        .get(ApiClient.ENGAGEMENT_URL, handle(this::getEngagements))
+                        .post(ApiClient.ENGAGEMENT_URL, handle(this::createEngagement))
+                        .get(ApiClient.SCAN_TYPE_URL, handle(this::getScanTypes))
+                        .get(ApiClient.TESTS_URL, handle(this::getTests))
+                        .post(ApiClient.UPLOAD_URL, handle(this::importScan))
+                        .post(ApiClient.REUPLOAD_URL, handle(this::importScan)))
+                .bindNow();
+    }
+
+    /**
+     * @return the base URL to configure the plugin with
+     */
+    String getUrl() {
+        return String.format("http://%s:%d", server.host(), server.port());
+    }
+
+    /**
+     * Adds products named {@code product-<n>}, each with engagements named
+     * {@code engagement-<n>}.
+     */
+    DefectDojoStub withProducts(final int count, final int engagementsPerProduct) {
+        for (int i = 0; i < count; i++) {
+            final int productId = addProduct("product-" + i);
+            for (int j = 0; j < engagementsPerProduct; j++) {
+                engagements.put(nextId.getAndIncrement(), new Engagement(productId, "engagement-" + j));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Adds scan types named {@code scan-type-<n>}.
+     */
+    DefectDojoStub withScanTypes(final int count) {
+        for (int i = 0; i < count; i++) {
+            scanTypes.put(nextId.getAndIncrement(), "scan-type-" + i);
+        }
+        return this;
+    }
+
+    /**
+     * Delays every response.
+     */
+    DefectDojoStub withLatency(final Duration latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * Caps the page size like DefectDojo's {@code MAX_PAGE_SIZE}.
+     */
+    DefectDojoStub withMaxPageSize(final int maxPageSize) {
+        this.maxPageSize = maxPageSize;
+        return this;
+    }
+
+    /**
+     * Answers every n-th request with the status instead, 0 for never. 429
+     * and 503 come with {@code Retry-After: 0}.
+     */
+    DefectDojoStub withErrors(final int every, final int status) {
+        failEvery = every;
+        failStatus = status;
+        return this;
+    }
+
+    /**
+     * Reads uploads at the given rate, 0 for as fast as possible.
+     */
+    DefectDojoStub withUploadBytesPerSecond(final long bytesPerSecond) {
+        uploadBytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    /**
+     * @return the number of requests by path, without the query
+     */
+    Map<String, Long> getRequestCounts() {
+        final Map<String, Long> counts = new TreeMap<>();
+        requestCounts.forEach((path, count) -> counts.put(path, count.sum()));
+        return counts;
+    }
+
+    long getRequestCount() {
+        return requestNumber.get();
+    }
+
+    long getUploadedBytes() {
+        return uploadedBytes.sum();
+    }
+
+    long getInjectedErrors() {
+        return injectedErrors.sum();
+    }
+
+    /**
+     * @return the id of the product with the name or {@code null}
+     */
+    Integer getProductId(final String name) {
+        return products.entrySet().stream()
+                .filter(product -> product.getValue().equals(name))
+                .map(Map.Entry::getKey)
+                .findFirst()
+                .orElse(null);
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+    }
+
+    private int addProduct(final String name) {
+        final int id = nextId.getAndIncrement();
+        products.put(id, name);
+        return id;
+    }
+
+    /**
+     * Counts the request, injects errors and latency and delegates to the
+     * handler otherwise.
+     */
+    private BiFunction<HttpServerRequest, HttpServerResponse, Publisher<Void>> handle(
+            final Function<Exchange, Mono<Void>> handler) {
+        return (request, response) -> {
+            final QueryStringDecoder query = new QueryStringDecoder(request.uri());
+            requestCounts.computeIfAbsent(query.path(), path -> new LongAdder()).increment();
+            final long number = requestNumber.incrementAndGet();
+            final Mono<Void> answer;
+            if (failEvery > 0 && number % failEvery == 0) {
+                injectedErrors.increment();
+                final int status = failStatus;
+                if (status == HttpResponseStatus.TOO_MANY_REQUESTS.code()
+                        || status == HttpResponseStatus.SERVICE_UNAVAILABLE.code()) {
+                    response.header("Retry-After", "0");
+                }
+                answer = response.status(status)
+                        .sendString(Mono.just("{\"detail\": \"injected error\"}"))
+                        .then();
+            } else {
+                answer = Mono.defer(() -> handler.apply(new Exchange(request, response, query.parameters())));
+            }
+            final Duration delay = latency;
+            return delay.isZero() ? answer : Mono.delay(delay).then(answer);
+        };
+    }
+
+    private Mono<Void> getProducts(final Exchange exchange) {
+        final String name = exchange.param(ApiClient.LOOKUP_NAME_EXACT_PARAM);
+        if (name != null) {
+            return exchange.sendResults(filter(products, name::equals, Function.identity()));
+        }
+        return exchange.sendPage(products);
+    }
+
+    private Mono<Void> createProduct(final Exchange exchange) {
+        return exchange.receiveJson().flatMap(json -> exchange.sendCreated(addProduct(json.getString("name"))));
+    }
+
+    private Mono<Void> getEngagements(final Exchange exchange) {
+        final String product = exchange.param(ApiClient.LOOKUP_BY_PRODUCT_ID_PARAM);
+        final String name = exchange.param(ApiClient.LOOKUP_NAME_PARAM);
+        final Map<Integer, String> names = filter(
+                engagements,
+                engagement -> (product == null || product.equals(String.valueOf(engagement.productId)))
+                        && (name == null || name.equals(engagement.name)),
+                engagement -> engagement.name);
+        return name != null ? exchange.sendResults(names) : exchange.sendPage(names);
+    }
+
+    private Mono<Void> createEngagement(final Exchange exchange) {
+        return exchange.receiveJson().flatMap(json -> {
+            final int id = nextId.getAndIncrement();
+            engagements.put(id, new Engagement(json.getInt("product"), json.getString("name")));
+            return exchange.sendCreated(id);
+        });
+    }
+
+    private Mono<Void> getScanTypes(final Exchange exchange) {
+        return exchange.sendPage(scanTypes);
+    }
+
+    private Mono<Void> getTests(final Exchange exchange) {
+        final String engagement = exchange.param(ApiClient.LOOKUP_TEST_BY_EGAGEMENT_ID_PARAM);
+        final Integer id = tests.get(testKey(engagement, exchange.param(ApiClient.LOOKUP_TEST_PARAM)));
+        return exchange.sendResults(id != null ? Map.of(id, "test") : Map.of());
+    }
+
+    private Mono<Void> importScan(final Exchange exchange) {
+        final StringBuilder head = new StringBuilder();
+        final AtomicLong length = new AtomicLong();
+        return exchange.request
+                .receive()
+                .concatMap(buffer -> {
+                    final int readable = buffer.readableBytes();
+                    if (head.length() < FORM_FIELDS_LENGTH) {
+                        head.append(buffer.toString(StandardCharsets.ISO_8859_1));
+                    }
+                    length.addAndGet(readable);
+                    final long rate = uploadBytesPerSecond;
+                    // not requesting more slows down the client like a congested server
+                    return rate > 0
+                            ? Mono.delay(Duration.ofNanos(readable * 1_000_000_000L / rate)).thenReturn(readable)
+                            : Mono.just(readable);
+                })
+                .then(Mono.defer(() -> {
+                    uploadedBytes.add(length.get());
+                    final Map<String, String> fields = new TreeMap<>();
+                    final Matcher matcher = FORM_FIELD.matcher(head);
+                    while (matcher.find()) {
+                        fields.putIfAbsent(matcher.group(1), matcher.group(2));
+                    }
+                    final int test = fields.containsKey("test")
+                            ? Integer.parseInt(fields.get("test"))
+                            : tests.computeIfAbsent(
+                                    testKey(fields.get("engagement"), fields.get("scan_type")),
+                                    key -> nextId.getAndIncrement());
+                    return exchange.send(HttpResponseStatus.CREATED, "{\"test\": " + test + "}");
+                }));
+    }
+
+    private static String testKey(final String engagement, final String scanType) {
+        return engagement + "|" + scanType;
+    }
+
+    private static <V> Map<Integer, String> filter(
+            final Map<Integer, V> entities,
+            final Predicate<V> predicate,
+            final Function<V, String> name) {
+        final Map<Integer, String> matches = new TreeMap<>();
+        entities.forEach((id, entity) -> {
+            if (predicate.test(entity)) {
+                matches.put(id, name.apply(entity));
+            }
+        });
+        return matches;
+    }
+
+    private static final class Engagement {
+
+        private final int productId;
+        private final String name;
+
+        Engagement(final int productId, final String name) {
+            this.productId = productId;
+            this.name = name;
+        }
+    }
+
+    /**
+     * a request with the means to answer it
+     */
+    private final class Exchange {
+
+        private final HttpServerRequest request;
+        private final HttpServerResponse response;
+        private final Map<String, List<String>> parameters;
+
+        Exchange(
+                final HttpServerRequest request,
+                final HttpServerResponse response,
+                final Map<String, List<String>> parameters) {
+            this.request = request;
+            this.response = response;
+            this.parameters = parameters;
+        }
+
+        String param(final String name) {
+            final List<String> values = parameters.get(name);
+            return values != null && !values.isEmpty() ? values.get(0) : null;
+        }
+
+        int intParam(final String name, final int defaultValue) {
+            final String value = param(name);
+            return value != null ? Integer.parseInt(value) : defaultValue;
+        }
+
+        Mono<JSONObject> receiveJson() {
+            return request.receive().aggregate().asString().map(JSONObject::fromObject);
+        }
+
+        Mono<Void> send(final HttpResponseStatus status, final String body) {
+            return response.status(status)
+                    .header("Content-Type", "application/json")
+                    .sendString(Mono.just(body))
+                    .then();
+        }
+
+        Mono<Void> sendCreated(final int id) {
+            return send(HttpResponseStatus.CREATED, "{\"id\": " + id + "}");
+        }
+
+        /**
+         * Sends all entities as a single page.
+         */
+        Mono<Void> sendResults(final Map<Integer, String> entities) {
+            return send(HttpResponseStatus.OK, page(entities, 0, entities.size(), false));
+        }
+
+        /**
+         * Sends the page requested by {@code limit} and {@code offset}.
+         */
+        Mono<Void> sendPage(final Map<Integer, String> entities) {
+            final int limit = Math.min(intParam("limit", 25), maxPageSize);
+            final int offset = intParam("offset", 0);
+            return send(HttpResponseStatus.OK, page(new TreeMap<>(entities), offset, limit, true));
+        }
+
+        private String page(
+                final Map<Integer, String> entities, final int offset, final int limit, final boolean paged) {
+            final StringBuilder json = new StringBuilder("{\"count\": ").append(entities.size());
+            final boolean next = paged && offset + limit < entities.size();
+            json.append(", \"next\": ");
+            if (next) {
+                json.append("\"")
+                        .append(getUrl())
+                        .append(new QueryStringDecoder(request.uri()).path())
+                        .append("?limit=")
+                        .append(limit)
+                        .append("&offset=")
+                        .append(offset + limit)
+                        .append("\"");
+            } else {
+                json.append("null");
+            }
+            json.append(", \"previous\": null, \"results\": [");
+            entities.entrySet().stream().skip(offset).limit(limit).forEach(entity -> {
+                if (json.charAt(json.length() - 1) != '[') {
+                    json.append(", ");
+                }
+                json.append("{\"id\": ")
+                        .append(entity.getKey())
+                        .append(", \"name\": ")
+                        .append(JSONUtils.quote(entity.getValue()))
+                        .append("}");
+            });
+            return json.append("]}").toString();
+        }
+    }
+}
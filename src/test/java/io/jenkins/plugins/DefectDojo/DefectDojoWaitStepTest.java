@@ -0,0 +1,110 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import hudson.model.Result;
+import hudson.model.Run;
+import java.util.concurrent.CompletableFuture;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class DefectDojoWaitStepTest {
+
+    private JenkinsRule r;
+    private WorkflowJob job;
+
+    @BeforeEach
+    void setup(JenkinsRule r) throws Exception {
+        this.r = r;
+        job = r.createProject(WorkflowJob.class, "p");
+        job.setDefinition(new CpsFlowDefinition("defectDojoWait()", true));
+    }
+
+    /**
+     * registers a publication for the next build of the job, whose id is
+     * known in advance
+     */
+    private void registerForNextBuild(final CompletableFuture<Boolean> result) {
+        final Run<?, ?> run = mock(Run.class);
+        when(run.getExternalizableId()).thenReturn(job.getFullName() + "#" + job.getNextBuildNumber());
+        BackgroundPublications.get().register(run, result);
+    }
+
+    @Test
+    void testNothingPending() throws Exception {
+        final WorkflowRun run = r.buildAndAssertSuccess(job);
+        r.assertLogContains(Messages.Background_None(), run);
+    }
+
+    @Test
+    void testSucceeded() throws Exception {
+        registerForNextBuild(CompletableFuture.completedFuture(true));
+        registerForNextBuild(CompletableFuture.completedFuture(true));
+        final WorkflowRun run = r.buildAndAssertSuccess(job);
+        r.assertLogContains(Messages.Background_Awaiting(2), run);
+    }
+
+    @Test
+    void testFailed() throws Exception {
+        registerForNextBuild(CompletableFuture.completedFuture(true));
+        registerForNextBuild(CompletableFuture.completedFuture(false));
+        final WorkflowRun run = r.buildAndAssertStatus(Result.FAILURE, job);
+        r.assertLogContains(Messages.Builder_Upload_Failed(), run);
+    }
+
+    @Test
+    void testWaitsForPending() throws Exception {
+        final CompletableFuture<Boolean> result = new CompletableFuture<>();
+        registerForNextBuild(result);
+        final WorkflowRun run = job.scheduleBuild2(0).waitForStart();
+        r.waitForMessage(Messages.Background_Awaiting(1), run);
+        result.complete(true);
+        r.assertBuildStatusSuccess(r.waitForCompletion(run));
+        r.assertLogNotContains(Messages.Builder_Upload_Failed(), run);
+    }
+
+    @Test
+    void testReturnsStatistics() throws Exception {
+        job.setDefinition(new CpsFlowDefinition(
+                "def s = defectDojoWait()\n"
+                        + "def t = defectDojoStatistics()\n"
+                        + "echo \"created: ${s.total.created}, ${t.total.created}, reports: ${t.reports.size()}\"",
+                true));
+        registerForNextBuild(CompletableFuture.completedFuture(true));
+        final WorkflowRun run = r.buildAndAssertSuccess(job);
+        r.assertLogContains("created: 0, 0, reports: 0", run);
+    }
+
+    @Test
+    void testStatisticsAddedAfterCompletionArePersisted() throws Exception {
+        final WorkflowRun run = r.buildAndAssertSuccess(job);
+
+        // as a publication in the background does after the build completed
+        final var statistics = new ImportStatistics.Builder().test("42").build();
+        ImportStatisticsAction.of(run).add("zap.xml", "ZAP Scan", statistics);
+        run.reload();
+
+        assertThat(run.getAction(ImportStatisticsAction.class).getReports()).hasSize(1);
+    }
+}
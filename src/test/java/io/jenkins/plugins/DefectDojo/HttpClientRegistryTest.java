@@ -0,0 +1,145 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import hudson.ProxyConfiguration;
+import hudson.model.TaskListener;
+import hudson.util.Secret;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import okhttp3.RequestBody;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+@WithJenkins
+class HttpClientRegistryTest {
+
+    private final HttpClientRegistry uut = HttpClientRegistry.get();
+
+    private DisposableServer server;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            server.disposeNow();
+        }
+        uut.invalidate();
+    }
+
+    @Test
+    void testClientsShareConnectionPool(JenkinsRule r) {
+        final var client1 = uut.getClient("http://host.tld", 1, 1);
+        final var client2 = uut.getClient("http://host.tld", 1, 1);
+        final var client3 = uut.getClient("http://other.tld", 2, 3);
+
+        assertThat(client2).isSameAs(client1);
+        assertThat(client3).isNotSameAs(client1);
+        assertThat(client3.connectionPool()).isSameAs(client1.connectionPool());
+        assertThat(client3.dispatcher()).isSameAs(client1.dispatcher());
+        assertThat(client3.connectTimeoutMillis()).isEqualTo(2000);
+        assertThat(client3.readTimeoutMillis()).isEqualTo(3000);
+    }
+
+    @Test
+    void testPoolSettingsChangeRebuildsClients(JenkinsRule r) {
+        final var descriptor = r.jenkins.getDescriptorByType(DescriptorImpl.class);
+        final var client1 = uut.getClient("http://host.tld", 1, 1);
+
+        descriptor.setDefectDojoMaxIdleConnections(descriptor.getDefectDojoMaxIdleConnections() + 1);
+        final var client2 = uut.getClient("http://host.tld", 1, 1);
+
+        assertThat(client2).isNotSameAs(client1);
+        assertThat(client2.connectionPool()).isNotSameAs(client1.connectionPool());
+    }
+
+    @Test
+    void testProxyChangeRebuildsClients(JenkinsRule r) {
+        final var client1 = uut.getClient("http://host.tld", 1, 1);
+
+        r.jenkins.setProxy(new ProxyConfiguration("proxy.tld", 3128));
+        final var client2 = uut.getClient("http://host.tld", 1, 1);
+        r.jenkins.setProxy(new ProxyConfiguration("proxy.tld", 3128, "user", "secret"));
+        final var client3 = uut.getClient("http://host.tld", 1, 1);
+        r.jenkins.setProxy(new ProxyConfiguration("proxy.tld", 3128, "user", "secret"));
+
+        assertThat(client2).isNotSameAs(client1);
+        assertThat(client3).isNotSameAs(client2);
+        // an equal configuration keeps the client
+        assertThat(uut.getClient("http://host.tld", 1, 1)).isSameAs(client3);
+        r.jenkins.setProxy(null);
+    }
+
+    @Test
+    void testDispatcherSettings(JenkinsRule r) {
+        final var descriptor = r.jenkins.getDescriptorByType(DescriptorImpl.class);
+        descriptor.setDefectDojoMaxRequestsPerHost(12);
+        descriptor.setDefectDojoMaxRequests(34);
+
+        final var dispatcher = uut.getClient("http://host.tld", 1, 1).dispatcher();
+
+        assertThat(dispatcher.getMaxRequestsPerHost()).isEqualTo(12);
+        assertThat(dispatcher.getMaxRequests()).isEqualTo(34);
+    }
+
+    @Test
+    void testUploadsToSameInstanceRunConcurrently(JenkinsRule r) {
+        final int uploads = 12;
+        final var inFlight = new AtomicInteger();
+        final var peak = new AtomicInteger();
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.post(ApiClient.UPLOAD_URL, (request, response) -> {
+                    peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    return request.receive()
+                            .then()
+                            .then(Mono.delay(Duration.ofMillis(500)))
+                            .then(Mono.defer(() -> {
+                                inFlight.decrementAndGet();
+                                return response.status(HttpResponseStatus.CREATED)
+                                        .sendString(Mono.just("{}"))
+                                        .then();
+                            }));
+                }))
+                .bindNow();
+        final var client = new ApiClient(
+                        String.format("http://%s:%d", server.host(), server.port()),
+                        Secret.fromString("api-key"),
+                        new ConsoleLogger(TaskListener.NULL.getLogger()),
+                        1,
+                        5)
+                .async();
+        final var request = new ImportScanRequest(ApiClient.UPLOAD_URL, Map.of("scan_type", "ZAP Scan"));
+        final var report = RequestBody.create("<report/>", ApiClient.OCTET_STREAM);
+
+        CompletableFuture.allOf(IntStream.range(0, uploads)
+                        .mapToObj(i -> client.importScan(request, report))
+                        .toArray(CompletableFuture[]::new))
+                .join();
+
+        // more than OkHttp's default of 5 requests per host
+        assertThat(peak).hasValueGreaterThan(5);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class JsonResponseParserTest {
+
+    private static InputStream json(final String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void readFirstResultIdTest() throws IOException {
+        assertThat(JsonResponseParser.readFirstResultId(
+                        json("{\"prefetch\": {\"id\": 1}, \"results\": [{\"tags\": [{\"id\": 2}], \"id\": 3}]}")))
+                .isEqualTo("3");
+        assertThat(JsonResponseParser.readFirstResultId(json("{\"results\": []}")))
+                .isNull();
+        assertThat(JsonResponseParser.readFirstResultId(json("{\"results\": [{\"id\": null}]}")))
+                .isNull();
+        assertThat(JsonResponseParser.readFirstResultId(json("{\"detail\": \"Not found.\"}")))
+                .isNull();
+    }
+
+    @Test
+    void hasActionFieldTest() throws IOException {
+        final String metadata = "{\"name\": \"Import Scan\", \"parses\": [\"multipart/form-data\"], \"actions\": {"
+                + "\"PUT\": {\"auto_create_context\": {\"type\": \"boolean\"}}, "
+                + "\"POST\": {\"scan_type\": {\"type\": \"choice\", \"choices\": [{\"value\": \"ZAP Scan\"}]}, "
+                + "\"auto_create_context\": {\"type\": \"boolean\"}}}}";
+        assertThat(JsonResponseParser.hasActionField(json(metadata), "POST", "auto_create_context"))
+                .isTrue();
+        assertThat(JsonResponseParser.hasActionField(json(metadata), "POST", "choices"))
+                .isFalse();
+        assertThat(JsonResponseParser.hasActionField(json(metadata), "PATCH", "auto_create_context"))
+                .isFalse();
+        assertThat(JsonResponseParser.hasActionField(json("{\"name\": \"Import Scan\"}"), "POST", "scan_type"))
+                .isFalse();
+    }
+
+    @Test
+    void readImportStatisticsTest() throws IOException {
+        final var reimported = JsonResponseParser.readImportStatistics(json("{\"scan_type\": \"ZAP Scan\", "
+                + "\"statistics\": {"
+                + "\"before\": {\"high\": {\"active\": 9, \"total\": 9}}, "
+                + "\"delta\": {\"created\": {\"high\": {\"active\": 2, \"total\": 2}, \"total\": {\"total\": 2}}, "
+                + "\"closed\": {\"low\": {\"total\": 3}}, \"reactivated\": {\"critical\": {\"total\": 1}}, "
+                + "\"untouched\": {\"high\": {\"total\": 7}}}, "
+                + "\"after\": {\"critical\": {\"active\": 1, \"verified\": 0, \"total\": 1}, "
+                + "\"high\": {\"active\": 4, \"total\": 11}, \"total\": {\"active\": 5, \"total\": 12}}}, "
+                + "\"test\": 2, \"test_id\": 2, \"engagement_id\": 5}"));
+        assertThat(reimported.getTest()).isEqualTo("2");
+        assertThat(reimported.getEngagement()).isEqualTo("5");
+        assertThat(reimported.getActive(ImportStatistics.Severity.CRITICAL)).isEqualTo(1);
+        assertThat(reimported.getActive(ImportStatistics.Severity.HIGH)).isEqualTo(4);
+        assertThat(reimported.getActive()).isEqualTo(5);
+        assertThat(reimported.getCreated(ImportStatistics.Severity.HIGH)).isEqualTo(2);
+        assertThat(reimported.getCreated()).isEqualTo(2);
+        assertThat(reimported.getClosed(ImportStatistics.Severity.LOW)).isEqualTo(3);
+        assertThat(reimported.getReactivated(ImportStatistics.Severity.CRITICAL)).isEqualTo(1);
+
+        // without a delta, all findings are new
+        final var imported = JsonResponseParser.readImportStatistics(json("{\"test\": 3, \"statistics\": "
+                + "{\"after\": {\"medium\": {\"active\": 1, \"total\": 2}}}}"));
+        assertThat(imported.getTest()).isEqualTo("3");
+        assertThat(imported.getEngagement()).isNull();
+        assertThat(imported.getActive()).isEqualTo(1);
+        assertThat(imported.getCreated(ImportStatistics.Severity.MEDIUM)).isEqualTo(2);
+        assertThat(imported.getClosed()).isZero();
+
+        final var withoutStatistics = JsonResponseParser.readImportStatistics(json("{\"test\": null}"));
+        assertThat(withoutStatistics.getTest()).isNull();
+        assertThat(withoutStatistics.getActive()).isZero();
+        assertThat(JsonResponseParser.readImportStatistics(json("[]")).getTest())
+                .isNull();
+    }
+
+    @Test
+    void readIdNamePageTest() throws IOException {
+        final var page = JsonResponseParser.readIdNamePage(
+                json("{\"count\": 3, \"next\": \"http://host.tld/api/v2/products/?limit=2&offset=2\", "
+                        + "\"previous\": null, \"results\": ["
+                        + "{\"id\": 7, \"tags\": [\"a\", \"b\"], \"name\": \"seven\", "
+                        + "\"prod_type\": {\"name\": \"x\"}},"
+                        + "{\"name\": \"eight\", \"id\": 8, \"description\": null}]}"),
+                0);
+
+        assertThat(page.getCount()).isEqualTo(3);
+        assertThat(page.isNextAvailable()).isTrue();
+        assertThat(page.getResults().size()).isEqualTo(2);
+        assertThat(page.getResults().getId(0)).isEqualTo(7);
+        assertThat(page.getResults().getName(0)).isEqualTo("seven");
+        assertThat(page.getResults().getId(1)).isEqualTo(8);
+        assertThat(page.getResults().getName(1)).isEqualTo("eight");
+    }
+
+    @Test
+    void readIdNamePageLastPageTest() throws IOException {
+        final var lastPage = JsonResponseParser.readIdNamePage(
+                json("{\"count\": 3, \"next\": null, \"results\": [{\"id\": 9, \"name\": \"nine\"}]}"), 2);
+        assertThat(lastPage.isNextAvailable()).isFalse();
+
+        // without a next link the count decides
+        final var pageWithoutLink =
+                JsonResponseParser.readIdNamePage(json("{\"count\": 3, \"results\": [{\"id\": 9}]}"), 0);
+        assertThat(pageWithoutLink.isNextAvailable()).isTrue();
+    }
+
+    @Test
+    void readIdNamePageWithNameFieldTest() throws IOException {
+        final var page = JsonResponseParser.readIdNamePage(
+                json("{\"count\": 1, \"next\": null, \"results\": ["
+                        + "{\"id\": 4, \"name\": null, \"title\": \"zap\", \"scan_type\": \"ZAP Scan\"}]}"),
+                0,
+                "scan_type");
+        assertThat(page.getResults().getId(0)).isEqualTo(4);
+        assertThat(page.getResults().getName(0)).isEqualTo("ZAP Scan");
+    }
+
+    @Test
+    void sortedByNameTest() {
+        final var list = new IdNameList.Builder(0)
+                .add(1, "b")
+                .add(2, "a")
+                .add(3, null)
+                .build()
+                .sortedByName();
+
+        assertThat(list.getId(0)).isEqualTo(3);
+        assertThat(list.getName(1)).isEqualTo("a");
+        assertThat(list.getId(2)).isEqualTo(1);
+    }
+}
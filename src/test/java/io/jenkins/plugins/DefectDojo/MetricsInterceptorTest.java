@@ -0,0 +1,104 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.Map;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+class MetricsInterceptorTest {
+
+    private final ApiMetrics metrics = new ApiMetrics();
+
+    private DisposableServer server;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            server.disposeNow();
+        }
+    }
+
+    private String url(final String path) {
+        return String.format("http://%s:%d%s", server.host(), server.port(), path);
+    }
+
+    @Test
+    void testCallIsRecorded() throws IOException {
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.post(ApiClient.UPLOAD_URL, (request, response) -> request.receive()
+                        .then(response.status(201).sendString(Mono.just("{\"test\": 1}")).then())))
+                .bindNow();
+        final var client = new OkHttpClient.Builder().addInterceptor(new MetricsInterceptor(metrics)).build();
+        final var request = new Request.Builder()
+                .url(url(ApiClient.UPLOAD_URL))
+                .post(RequestBody.create(new byte[100]))
+                .build();
+
+        try (var response = client.newCall(request).execute()) {
+            assertThat(response.body().string()).isEqualTo("{\"test\": 1}");
+        }
+
+        final var recorded = metrics.of(ApiMetrics.Endpoint.IMPORT_SCAN);
+        assertThat(recorded.getRequests()).isEqualTo(1);
+        assertThat(recorded.getRequestBytes()).isEqualTo(100);
+        assertThat(recorded.getResponseBytes()).isEqualTo(11);
+        assertThat(recorded.getUploadBytes()).isEqualTo(100);
+        assertThat(recorded.getErrors()).isEmpty();
+    }
+
+    @Test
+    void testErrorStatusIsRecorded() throws IOException {
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.get(ApiClient.PRODUCT_URL, (request, response) -> response.status(503).send()))
+                .bindNow();
+        final var client = new OkHttpClient.Builder().addInterceptor(new MetricsInterceptor(metrics)).build();
+
+        final var request = new Request.Builder().url(url(ApiClient.PRODUCT_URL)).build();
+        client.newCall(request).execute().close();
+
+        assertThat(metrics.of(ApiMetrics.Endpoint.PRODUCTS).getErrors()).isEqualTo(Map.of("503", 1L));
+    }
+
+    @Test
+    void testFailureIsRecorded() {
+        server = HttpServer.create().host("localhost").port(0).bindNow();
+        final var client = new OkHttpClient.Builder()
+                .addInterceptor(new MetricsInterceptor(metrics))
+                .addInterceptor(chain -> {
+                    throw new ConnectException("oops");
+                })
+                .build();
+
+        final var request = new Request.Builder().url(url(ApiClient.TESTS_URL)).build();
+        assertThatThrownBy(() -> client.newCall(request).execute()).isInstanceOf(ConnectException.class);
+
+        assertThat(metrics.of(ApiMetrics.Endpoint.TESTS).getErrors()).isEqualTo(Map.of(ApiMetrics.NO_RESPONSE, 1L));
+    }
+}
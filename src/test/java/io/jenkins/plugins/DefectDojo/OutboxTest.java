@@ -0,0 +1,324 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.cloudbees.plugins.credentials.CredentialsProvider;
+import com.cloudbees.plugins.credentials.CredentialsScope;
+import com.cloudbees.plugins.credentials.domains.Domain;
+import hudson.FilePath;
+import hudson.util.Secret;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import org.jenkinsci.plugins.plaincredentials.impl.StringCredentialsImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+@WithJenkins
+class OutboxTest {
+
+    private static final String API_KEY_ID = "outbox-api-key";
+
+    private static final long MAX_SIZE = 1024;
+
+    private DisposableServer server;
+
+    @TempDir
+    private Path tmp;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            server.disposeNow();
+        }
+    }
+
+    private static void addApiKey(final JenkinsRule r) throws IOException {
+        CredentialsProvider.lookupStores(r.jenkins)
+                .iterator()
+                .next()
+                .addCredentials(
+                        Domain.global(),
+                        new StringCredentialsImpl(
+                                CredentialsScope.GLOBAL, API_KEY_ID, "OutboxTest", Secret.fromString("api-key")));
+    }
+
+    private static ImportScanRequest reimport(final String test) {
+        return new ImportScanRequest(
+                ApiClient.REUPLOAD_URL, Map.of("engagement", "eid-1", "scan_type", "ZAP Scan", "test", test));
+    }
+
+    private OutboxItem spool(
+            final Outbox uut, final String baseUrl, final ImportScanRequest request, final String content)
+            throws IOException, InterruptedException {
+        final Path report = Files.createTempFile(tmp, "report", ".xml");
+        Files.writeString(report, content);
+        return uut.spool(
+                "job#1",
+                baseUrl,
+                API_KEY_ID,
+                "zap.xml",
+                "ZAP Scan",
+                new FilePath(report.toFile()),
+                content.length(),
+                request,
+                "digest",
+                MAX_SIZE);
+    }
+
+    @Test
+    void itemsArePersisted(JenkinsRule r) throws Exception {
+        final Outbox uut = new Outbox(tmp.resolve("outbox").toFile());
+        final OutboxItem first = spool(uut, "http://host.tld", reimport("tid-1"), "<report/>");
+        final OutboxItem second = spool(uut, "http://host.tld", reimport("tid-2"), "<report><finding/></report>");
+        assertThat(first.getId()).isLessThan(second.getId());
+
+        final Outbox reloaded = new Outbox(tmp.resolve("outbox").toFile());
+        reloaded.load();
+        assertThat(reloaded.list())
+                .extracting(OutboxItem::getId, OutboxItem::getRequest)
+                .containsExactly(
+                        tuple(first.getId(), reimport("tid-1")),
+                        tuple(second.getId(), reimport("tid-2")));
+        assertThat(reloaded.list().get(0).getCredentialsId()).isEqualTo(API_KEY_ID);
+        assertThat(reloaded.totalLength()).isEqualTo(first.getLength() + second.getLength());
+
+        // ids keep increasing after a restart
+        assertThat(spool(reloaded, "http://host.tld", reimport("tid-3"), "<report/>").getId())
+                .isGreaterThan(second.getId());
+    }
+
+    @Test
+    void newerReimportSupersedesSpooledOne(JenkinsRule r) throws Exception {
+        final Outbox uut = new Outbox(tmp.resolve("outbox").toFile());
+        spool(uut, "http://host.tld", reimport("tid-1"), "<report/>");
+        final OutboxItem newer = spool(uut, "http://host.tld", reimport("tid-1"), "<report><finding/></report>");
+        assertThat(uut.list()).containsExactly(newer);
+
+        uut.supersede(newer.destination());
+        assertThat(uut.size()).isZero();
+        try (var files = Files.list(tmp.resolve("outbox"))) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void oldestItemsAreEvicted(JenkinsRule r) throws Exception {
+        final Outbox uut = new Outbox(tmp.resolve("outbox").toFile());
+        final String content = "x".repeat((int) MAX_SIZE / 2);
+        spool(uut, "http://host.tld", reimport("tid-1"), content);
+        final OutboxItem second = spool(uut, "http://host.tld", reimport("tid-2"), content);
+        final OutboxItem third = spool(uut, "http://host.tld", reimport("tid-3"), content);
+        assertThat(uut.list()).containsExactly(second, third);
+
+        assertThat(spool(uut, "http://host.tld", reimport("tid-4"), content + content + "x")).isNull();
+        assertThat(uut.size()).isEqualTo(2);
+    }
+
+    @Test
+    void onlyUnavailabilityIsSpooled() {
+        assertThat(Outbox.isUnavailable(new ApiClientException("oops", new ConnectException("refused")))).isTrue();
+        assertThat(Outbox.isUnavailable(new RetryableStatusException(503, -1))).isTrue();
+        assertThat(Outbox.isUnavailable(new CircuitBreaker.OpenException("suspended"))).isTrue();
+        assertThat(Outbox.isUnavailable(new ApiClientException("rejected"))).isFalse();
+        // an import DefectDojo might have processed is not replayed
+        assertThat(Outbox.isUnavailable(
+                        new ApiClient.UnconfirmedCreationException("502", new RetryableStatusException(502, -1))))
+                .isFalse();
+        assertThat(Outbox.isUnavailable(null)).isFalse();
+    }
+
+    @Test
+    void drainReplaysInOrder(JenkinsRule r) throws Exception {
+        final var imports = new AtomicInteger();
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.get(ApiClient.PRODUCT_URL, (request, response) -> response.status(200)
+                                .sendString(Mono.just("{\"results\": []}")))
+                        .post(ApiClient.REUPLOAD_URL, (request, response) -> imports.incrementAndGet() == 1
+                                ? response.status(HttpResponseStatus.CREATED).sendString(Mono.just("{}"))
+                                : response.status(HttpResponseStatus.BAD_REQUEST)
+                                        .sendString(Mono.just("{\"detail\": \"invalid\"}"))))
+                .bindNow();
+        final String baseUrl = String.format("http://%s:%d", server.host(), server.port());
+        addApiKey(r);
+        final Outbox uut = new Outbox(tmp.resolve("outbox").toFile());
+        final OutboxItem accepted = spool(uut, baseUrl, reimport("tid-1"), "<report/>");
+        spool(uut, baseUrl, reimport("tid-2"), "<report/>");
+        r.jenkins.getDescriptorByType(DescriptorImpl.class).setDefectDojoUploadParallelism(1);
+        UploadIndex.get().clear();
+
+        uut.drain(new ConsoleLogger());
+
+        // the accepted one is recorded, the rejected one dropped
+        assertThat(imports).hasValue(2);
+        assertThat(uut.size()).isZero();
+        assertThat(UploadIndex.get().lookup(accepted.destination())).isEqualTo("digest");
+    }
+
+    @Test
+    void drainReplaysOneAtATime(JenkinsRule r) throws Exception {
+        final List<String> replayed = Collections.synchronizedList(new ArrayList<>());
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.get(ApiClient.PRODUCT_URL, (request, response) -> response.status(200)
+                                .sendString(Mono.just("{\"results\": []}")))
+                        .post(ApiClient.REUPLOAD_URL, (request, response) -> request.receive()
+                                .aggregate()
+                                .asString()
+                                .flatMap(body -> {
+                                    final String test = Stream.of("tid-1", "tid-2", "tid-3")
+                                            .filter(body::contains)
+                                            .findFirst()
+                                            .orElseThrow();
+                                    replayed.add(test);
+                                    // the first one is the slowest, so any other one would overtake it
+                                    return Mono.delay(Duration.ofMillis("tid-1".equals(test) ? 500 : 0))
+                                            .then(response.status(HttpResponseStatus.CREATED)
+                                                    .sendString(Mono.just("{}"))
+                                                    .then());
+                                })))
+                .bindNow();
+        final String baseUrl = String.format("http://%s:%d", server.host(), server.port());
+        addApiKey(r);
+        final Outbox uut = new Outbox(tmp.resolve("outbox").toFile());
+        spool(uut, baseUrl, reimport("tid-1"), "<report/>");
+        spool(uut, baseUrl, reimport("tid-2"), "<report/>");
+        spool(uut, baseUrl, reimport("tid-3"), "<report/>");
+        r.jenkins.getDescriptorByType(DescriptorImpl.class).setDefectDojoUploadParallelism(4);
+
+        uut.drain(new ConsoleLogger());
+
+        assertThat(replayed).containsExactly("tid-1", "tid-2", "tid-3");
+        assertThat(uut.size()).isZero();
+    }
+
+    @Test
+    void drainStopsAtFirstKeptItem(JenkinsRule r) throws Exception {
+        final var imports = new AtomicInteger();
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.get(ApiClient.PRODUCT_URL, (request, response) -> response.status(200)
+                                .sendString(Mono.just("{\"results\": []}")))
+                        .post(ApiClient.REUPLOAD_URL, (request, response) -> {
+                            imports.incrementAndGet();
+                            return request.receive()
+                                    .then()
+                                    .then(response.status(HttpResponseStatus.SERVICE_UNAVAILABLE).send().then());
+                        }))
+                .bindNow();
+        final String baseUrl = String.format("http://%s:%d", server.host(), server.port());
+        addApiKey(r);
+        final Outbox uut = new Outbox(tmp.resolve("outbox").toFile());
+        spool(uut, baseUrl, reimport("tid-1"), "<report/>");
+        spool(uut, baseUrl, reimport("tid-2"), "<report/>");
+        r.jenkins.getDescriptorByType(DescriptorImpl.class).setDefectDojoRetryAttempts(1);
+
+        uut.drain(new ConsoleLogger());
+
+        // the second one must not overtake the first one
+        assertThat(imports).hasValue(1);
+        assertThat(uut.size()).isEqualTo(2);
+        CircuitBreaker.forInstance(baseUrl).reset();
+    }
+
+    @Test
+    void drainSkipsUnavailableInstances(JenkinsRule r) throws Exception {
+        server = HttpServer.create().host("localhost").port(0).bindNow();
+        final String baseUrl = String.format("http://%s:%d", server.host(), server.port());
+        server.disposeNow();
+        server = null;
+        addApiKey(r);
+        final Outbox uut = new Outbox(tmp.resolve("outbox").toFile());
+        spool(uut, baseUrl, reimport("tid-1"), "<report/>");
+
+        uut.drain(new ConsoleLogger());
+
+        assertThat(uut.size()).isOne();
+        CircuitBreaker.forInstance(baseUrl).reset();
+    }
+
+    @Test
+    void drainSkipsItemsSupersededMeanwhile(JenkinsRule r) throws Exception {
+        final var imports = new AtomicInteger();
+        final var superseded = new AtomicReference<OutboxItem>();
+        final Outbox uut = new Outbox(tmp.resolve("outbox").toFile());
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.get(ApiClient.PRODUCT_URL, (request, response) -> response.status(200)
+                                .sendString(Mono.just("{\"results\": []}")))
+                        .post(ApiClient.REUPLOAD_URL, (request, response) -> {
+                            imports.incrementAndGet();
+                            // a newer report is uploaded while the drain is running
+                            uut.supersede(superseded.get().destination());
+                            return response.status(HttpResponseStatus.CREATED).sendString(Mono.just("{}"));
+                        }))
+                .bindNow();
+        final String baseUrl = String.format("http://%s:%d", server.host(), server.port());
+        addApiKey(r);
+        spool(uut, baseUrl, reimport("tid-1"), "<report/>");
+        superseded.set(spool(uut, baseUrl, reimport("tid-2"), "<report/>"));
+        r.jenkins.getDescriptorByType(DescriptorImpl.class).setDefectDojoUploadParallelism(1);
+
+        uut.drain(new ConsoleLogger());
+
+        assertThat(imports).hasValue(1);
+        assertThat(uut.size()).isZero();
+    }
+
+    @Test
+    void drainKeepsItemsWithoutCredentials(JenkinsRule r) throws Exception {
+        final var imports = new AtomicInteger();
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.post(ApiClient.REUPLOAD_URL, (request, response) -> {
+                    imports.incrementAndGet();
+                    return response.status(HttpResponseStatus.CREATED).sendString(Mono.just("{}"));
+                }))
+                .bindNow();
+        final String baseUrl = String.format("http://%s:%d", server.host(), server.port());
+        final Outbox uut = new Outbox(tmp.resolve("outbox").toFile());
+        final OutboxItem item = spool(uut, baseUrl, reimport("tid-1"), "<report/>");
+
+        uut.drain(new ConsoleLogger());
+
+        assertThat(imports).hasValue(0);
+        assertThat(uut.list()).containsExactly(item);
+        assertThat(item.getAttempts()).isOne();
+    }
+}
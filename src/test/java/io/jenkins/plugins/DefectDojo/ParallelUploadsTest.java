@@ -0,0 +1,77 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class ParallelUploadsTest {
+
+    @Test
+    void inFlightUploadsAreBounded() throws InterruptedException, IOException {
+        final List<Integer> uploads = IntStream.range(0, 20).boxed().collect(Collectors.toList());
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final List<Integer> started = new CopyOnWriteArrayList<>();
+
+        final int failures = ParallelUploads.runAll(uploads, 3, upload -> CompletableFuture.supplyAsync(
+                () -> {
+                    started.add(upload);
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    try {
+                        TimeUnit.MILLISECONDS.sleep(5);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    inFlight.decrementAndGet();
+                    // every fifth upload fails
+                    return upload % 5 != 0;
+                },
+                PluginExecutors.io()));
+
+        assertThat(failures).isEqualTo(4);
+        assertThat(started).containsExactlyInAnyOrderElementsOf(uploads);
+        assertThat(maxInFlight.get()).isBetween(1, 3);
+    }
+
+    @Test
+    void uploadsStartInOrder() throws InterruptedException, IOException {
+        final List<String> started = new CopyOnWriteArrayList<>();
+
+        final int failures = ParallelUploads.runAll(List.of("large", "medium", "small"), 1, upload -> {
+            started.add(upload);
+            return CompletableFuture.completedFuture(true);
+        });
+
+        assertThat(failures).isZero();
+        assertThat(started).containsExactly("large", "medium", "small");
+    }
+
+    @Test
+    void exceptionalCompletionCountsAsFailure() throws InterruptedException, IOException {
+        final int failures = ParallelUploads.runAll(
+                List.of(1, 2), 2, upload -> CompletableFuture.failedFuture(new IOException("oops")));
+
+        assertThat(failures).isEqualTo(2);
+    }
+}
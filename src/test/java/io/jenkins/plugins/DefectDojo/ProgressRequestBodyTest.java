@@ -0,0 +1,125 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import org.junit.jupiter.api.Test;
+
+class ProgressRequestBodyTest {
+
+    private static final int CHUNK = 64 * 1024;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final ByteArrayOutputStream console = new ByteArrayOutputStream();
+
+    private final ConsoleLogger logger = new ConsoleLogger(new PrintStream(console, true, StandardCharsets.UTF_8));
+
+    @Test
+    void reportsProgress() throws IOException {
+        final RequestBody uut = progressOf(10, 5, new ProgressRequestBody.Settings(10, 0, 0));
+        final Buffer sink = new Buffer();
+
+        uut.writeTo(sink);
+
+        assertThat(sink.size()).isEqualTo(10L * CHUNK);
+        assertThat(console.toString(StandardCharsets.UTF_8).lines())
+                .hasSize(5)
+                .first()
+                .isEqualTo("[DefectDojo] "
+                        + Messages.ApiClient_Upload_Progress("ZAP Scan", 2L * CHUNK, 10L * CHUNK, 20L, 12L));
+    }
+
+    @Test
+    void reportsNothingWithoutInterval() throws IOException {
+        progressOf(10, 5, new ProgressRequestBody.Settings(0, 0, 0)).writeTo(new Buffer());
+
+        assertThat(console.size()).isZero();
+    }
+
+    @Test
+    void abortsStalledUpload() {
+        final RequestBody uut = progressOf(100, 10, new ProgressRequestBody.Settings(0, 60, 16));
+
+        assertThatThrownBy(() -> uut.writeTo(new Buffer()))
+                .isInstanceOf(ProgressRequestBody.StalledException.class)
+                .hasMessage(Messages.ApiClient_Upload_Stalled("ZAP Scan", 6L * CHUNK, 60L));
+    }
+
+    @Test
+    void keepsUploadAboveMinimumThroughput() throws IOException {
+        final RequestBody uut = progressOf(100, 1, new ProgressRequestBody.Settings(0, 60, 16));
+        final Buffer sink = new Buffer();
+
+        uut.writeTo(sink);
+
+        assertThat(sink.size()).isEqualTo(100L * CHUNK);
+    }
+
+    @Test
+    void retransmissionStartsAnew() throws IOException {
+        final RequestBody uut = progressOf(5, 10, new ProgressRequestBody.Settings(0, 60, 16));
+
+        // 320 KiB within 50 s are too slow, but never measured over 60 s
+        uut.writeTo(new Buffer());
+        uut.writeTo(new Buffer());
+    }
+
+    @Test
+    void delegatesContentTypeAndLength() throws IOException {
+        final RequestBody uut = progressOf(3, 1, new ProgressRequestBody.Settings(0, 0, 0));
+
+        assertThat(uut.contentType()).isEqualTo(ApiClient.OCTET_STREAM);
+        assertThat(uut.contentLength()).isEqualTo(3L * CHUNK);
+    }
+
+    /**
+     * @return a body of the chunks, each written the given seconds after the
+     * previous one
+     */
+    private RequestBody progressOf(final int chunks, final int seconds, final ProgressRequestBody.Settings settings) {
+        final RequestBody report = new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return ApiClient.OCTET_STREAM;
+            }
+
+            @Override
+            public long contentLength() {
+                return (long) chunks * CHUNK;
+            }
+
+            @Override
+            public void writeTo(final BufferedSink sink) throws IOException {
+                for (int i = 0; i < chunks; i++) {
+                    clock.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+                    sink.write(new byte[CHUNK]);
+                }
+            }
+        };
+        return new ProgressRequestBody(report, "ZAP Scan", logger, settings, clock::get);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import hudson.model.FreeStyleBuild;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class PublicationTimingIndexTest {
+
+    @Test
+    void buildsArePersisted(JenkinsRule r, @TempDir Path tmp) {
+        final var file = tmp.resolve("index.xml").toFile();
+        final PublicationTimingIndex uut = new PublicationTimingIndex(file);
+        assertThat(uut.exists()).isFalse();
+
+        uut.record(1, Map.of(PublicationTimingAction.Phase.UPLOAD, 100L));
+        uut.record(2, Map.of(PublicationTimingAction.Phase.UPLOAD, 200L));
+        uut.record(1, Map.of(PublicationTimingAction.Phase.UPLOAD, 150L));
+
+        final var builds = new PublicationTimingIndex(file).getBuilds();
+        assertThat(builds).containsOnlyKeys(1, 2);
+        assertThat(builds.get(1)).containsEntry(PublicationTimingAction.Phase.UPLOAD, 150L);
+    }
+
+    @Test
+    void oldestBuildsAreDropped(JenkinsRule r, @TempDir Path tmp) {
+        final PublicationTimingIndex uut = new PublicationTimingIndex(tmp.resolve("index.xml").toFile());
+        for (int i = 1; i <= PublicationTimingIndex.MAX_BUILDS + 1; i++) {
+            uut.record(i, Map.of(PublicationTimingAction.Phase.TEST_LOOKUP, 10L));
+        }
+
+        final var builds = uut.getBuilds();
+        assertThat(builds).hasSize(PublicationTimingIndex.MAX_BUILDS);
+        assertThat(builds.firstKey()).isEqualTo(2);
+    }
+
+    @Test
+    void timingsOfCompletedBuildsArePersisted(JenkinsRule r) throws Exception {
+        final FreeStyleBuild build = r.buildAndAssertSuccess(r.createFreeStyleProject());
+
+        // as a publication in the background does after the build completed
+        PublicationTimingAction.of(build)
+                .record(PublicationTimingAction.Phase.UPLOAD, TimeUnit.MILLISECONDS.toNanos(300), 1024);
+        build.reload();
+
+        assertThat(build.getAction(PublicationTimingAction.class).getMillis())
+                .containsEntry(PublicationTimingAction.Phase.UPLOAD, 300L);
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.cloudbees.plugins.credentials.CredentialsProvider;
+import com.cloudbees.plugins.credentials.CredentialsScope;
+import com.cloudbees.plugins.credentials.domains.Domain;
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.util.Secret;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.jenkinsci.plugins.plaincredentials.impl.StringCredentialsImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+/**
+ * Publishes concurrently against a {@link DefectDojoStub} and reports
+ * throughput, publish latency, requests and peak heap. Only runs with
+ * {@code -Ddefectdojo.loadTest=true}, further system properties shape the
+ * load:
+ * <ul>
+ * <li>{@code defectdojo.loadTest.publications}: the number of publications
+ * <li>{@code defectdojo.loadTest.concurrency}: how many run at the same time
+ * <li>{@code defectdojo.loadTest.reportSize}: the size of each report in bytes
+ * <li>{@code defectdojo.loadTest.products}: products, each with 10
+ * engagements, the publications are spread over
+ * <li>{@code defectdojo.loadTest.latency}: the latency of DefectDojo in ms
+ * <li>{@code defectdojo.loadTest.errorEvery}: answer every n-th request with
+ * 503
+ * <li>{@code defectdojo.loadTest.uploadRate}: the bytes per second DefectDojo
+ * reads an upload at
+ * </ul>
+ */
+@EnabledIfSystemProperty(named = "defectdojo.loadTest", matches = "true")
+@WithJenkins
+class PublisherLoadTest {
+
+    private static final String PREFIX = "defectdojo.loadTest.";
+
+    private static final int ENGAGEMENTS_PER_PRODUCT = 10;
+
+    private static final String API_KEY_ID = "load-test-api-key";
+
+    private final int publications = Integer.getInteger(PREFIX + "publications", 200);
+    private final int concurrency = Integer.getInteger(PREFIX + "concurrency", 20);
+    private final long reportSize = Long.getLong(PREFIX + "reportSize", 1024 * 1024);
+    private final int products = Integer.getInteger(PREFIX + "products", 10);
+    private final long latency = Long.getLong(PREFIX + "latency", 20);
+    private final int errorEvery = Integer.getInteger(PREFIX + "errorEvery", 0);
+    private final long uploadRate = Long.getLong(PREFIX + "uploadRate", 0);
+
+    private DefectDojoStub stub;
+
+    @AfterEach
+    void tearDown() {
+        if (stub != null) {
+            stub.close();
+        }
+        ResolutionCache.get().clear();
+        CircuitBreaker.all().forEach(CircuitBreaker::reset);
+    }
+
+    @Test
+    void concurrentPublications(JenkinsRule r, @TempDir Path tmp) throws Exception {
+        stub = new DefectDojoStub()
+                .withProducts(products, ENGAGEMENTS_PER_PRODUCT)
+                .withLatency(Duration.ofMillis(latency))
+                .withErrors(errorEvery, 503)
+                .withUploadBytesPerSecond(uploadRate);
+        CredentialsProvider.lookupStores(r.jenkins)
+                .iterator()
+                .next()
+                .addCredentials(
+                        Domain.global(),
+                        new StringCredentialsImpl(
+                                CredentialsScope.GLOBAL, API_KEY_ID, "PublisherLoadTest", Secret.fromString("key")));
+        final Job<?, ?> job = mock(Job.class);
+        when(job.getParent()).thenReturn(r.jenkins);
+        when(job.getName()).thenReturn("load-test");
+        when(job.getFullName()).thenReturn("load-test");
+        when(job.getRootDir()).thenReturn(tmp.toFile());
+        final Launcher launcher = r.createLocalLauncher();
+        final Path report = tmp.resolve("report.json");
+        try (RandomAccessFile file = new RandomAccessFile(report.toFile(), "rw")) {
+            file.setLength(reportSize);
+        }
+
+        final List<MemoryPoolMXBean> heap = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                heap.add(pool);
+            }
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        final List<Future<Long>> latencies = new ArrayList<>(publications);
+        final long start = System.nanoTime();
+        for (int i = 0; i < publications; i++) {
+            final int n = i;
+            latencies.add(executor.submit(() -> publish(n, job, launcher, tmp, report)));
+        }
+        int failures = 0;
+        final long[] millis = new long[publications];
+        for (int i = 0; i < publications; i++) {
+            final long nanos = latencies.get(i).get();
+            failures += nanos < 0 ? 1 : 0;
+            millis[i] = TimeUnit.NANOSECONDS.toMillis(Math.abs(nanos));
+        }
+        final long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        final long peakHeap = heap.stream()
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+
+        Arrays.sort(millis);
+        System.out.printf(
+                "DefectDojo load test: %d publications of %d bytes, %d concurrent, %d ms latency%n"
+                        + "  throughput: %.1f publications/s, %d failed%n"
+                        + "  publish latency: p50 %d ms, p99 %d ms, max %d ms%n"
+                        + "  requests: %d, %d injected errors, %s%n"
+                        + "  uploaded: %d bytes%n"
+                        + "  peak heap: %d MiB%n",
+                publications,
+                reportSize,
+                concurrency,
+                latency,
+                publications * 1e9 / elapsed,
+                failures,
+                percentile(millis, 50),
+                percentile(millis, 99),
+                millis[millis.length - 1],
+                stub.getRequestCount(),
+                stub.getInjectedErrors(),
+                stub.getRequestCounts(),
+                stub.getUploadedBytes(),
+                peakHeap / (1024 * 1024));
+
+        if (errorEvery == 0) {
+            assertThat(failures).isZero();
+        }
+    }
+
+    /**
+     * @return the duration of the publication in nanoseconds, negative if it
+     * failed
+     */
+    private long publish(
+            final int n, final Job<?, ?> job, final Launcher launcher, final Path tmp, final Path report)
+            throws IOException, InterruptedException {
+        final Path workspace = Files.createDirectories(tmp.resolve("workspace-" + n));
+        Files.copy(report, workspace.resolve("report.json"));
+        final Run<?, ?> run = mock(Run.class);
+        when(run.getParent()).thenAnswer(i -> job);
+        when(run.getNumber()).thenReturn(n + 1);
+        when(run.getExternalizableId()).thenReturn("load-test#" + (n + 1));
+        final DefectDojoPublisher publisher = new DefectDojoPublisher("report.json", "ZAP Scan");
+        publisher.setDefectDojoUrl(stub.getUrl());
+        publisher.setDefectDojoCredentialsId(API_KEY_ID);
+        publisher.setProductName("product-" + (n % products));
+        publisher.setEngagementName("engagement-" + (n / products % ENGAGEMENTS_PER_PRODUCT));
+        final long start = System.nanoTime();
+        try {
+            publisher.perform(run, new FilePath(workspace.toFile()), new EnvVars(), launcher, TaskListener.NULL);
+            return System.nanoTime() - start;
+        } catch (IOException e) {
+            return start - System.nanoTime();
+        } finally {
+            Files.delete(workspace.resolve("report.json"));
+        }
+    }
+
+    private static long percentile(final long[] sorted, final int percentile) {
+        return sorted[Math.max((int) Math.ceil(sorted.length * percentile / 100.0) - 1, 0)];
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final RateLimiter uut = new RateLimiter("http://host.tld", clock::get);
+
+    private long reserveMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(uut.reserve());
+    }
+
+    @Test
+    void unlimitedNeverWaits() {
+        for (int i = 0; i < 100; i++) {
+            assertThat(uut.reserve()).isZero();
+        }
+        assertThat(uut.getQueueDepth()).isZero();
+        assertThat(uut.getAcquired()).isEqualTo(100);
+        assertThat(uut.getDelayed()).isZero();
+    }
+
+    @Test
+    void requestsBeyondBurstWait() {
+        uut.setLimit(10);
+        for (int i = 0; i < 10; i++) {
+            assertThat(uut.reserve()).isZero();
+        }
+        assertThat(reserveMillis()).isEqualTo(100);
+        assertThat(reserveMillis()).isEqualTo(200);
+        assertThat(uut.getQueueDepth()).isEqualTo(2);
+        assertThat(uut.getDelayed()).isEqualTo(2);
+        assertThat(uut.getAverageWait()).isEqualTo(150);
+        assertThat(uut.getMaxWait()).isEqualTo(200);
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(300));
+        assertThat(uut.getQueueDepth()).isZero();
+        assertThat(uut.reserve()).isZero();
+    }
+
+    @Test
+    void throttlingHalvesRate() {
+        uut.setLimit(10);
+        uut.recordThrottled();
+        assertThat(uut.getRate()).isEqualTo(5);
+        // requests throttled together lower the rate once
+        uut.recordThrottled();
+        assertThat(uut.getRate()).isEqualTo(5);
+
+        for (int i = 0; i < 3; i++) {
+            clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+            uut.recordThrottled();
+        }
+        assertThat(uut.getRate()).isEqualTo(10 * RateLimiter.MIN_RATE_FACTOR);
+    }
+
+    @Test
+    void successRaisesRate() {
+        uut.setLimit(10);
+        uut.recordThrottled();
+        uut.recordSuccess();
+        assertThat(uut.getRate()).isEqualTo(5.5);
+        for (int i = 0; i < 20; i++) {
+            uut.recordSuccess();
+        }
+        assertThat(uut.getRate()).isEqualTo(10);
+    }
+
+    @Test
+    void changedLimitKeepsWaitingRequests() {
+        uut.setLimit(1);
+        uut.reserve();
+        uut.reserve();
+        assertThat(uut.getQueueDepth()).isEqualTo(1);
+
+        uut.setLimit(2);
+        assertThat(uut.getRate()).isEqualTo(2);
+        assertThat(uut.getQueueDepth()).isEqualTo(1);
+        assertThat(reserveMillis()).isEqualTo(1000);
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ReportDigestCallableTest {
+
+    private final ReportDigestCallable uut = new ReportDigestCallable();
+
+    @Test
+    void smallReportIsStreamed(@TempDir Path tmp) throws IOException {
+        final File report = Files.writeString(tmp.resolve("report.xml"), "<report/>").toFile();
+        assertThat(uut.invoke(report, null)).isEqualTo(DigestUtils.sha256Hex("<report/>"));
+    }
+
+    @Test
+    void largeReportSpansSeveralBuffers(@TempDir Path tmp) throws IOException {
+        // the last buffer is filled partially
+        final byte[] content = new byte[ReportDigestCallable.BUFFER_SIZE * 3 + 1234];
+        new Random(42).nextBytes(content);
+        final File report = Files.write(tmp.resolve("report.json"), content).toFile();
+        assertThat(uut.invoke(report, null)).isEqualTo(DigestUtils.sha256Hex(content));
+        // the reused buffer does not carry over anything
+        assertThat(uut.invoke(report, null)).isEqualTo(DigestUtils.sha256Hex(content));
+    }
+
+    @Test
+    void emptyReport(@TempDir Path tmp) throws IOException {
+        final File report = Files.createFile(tmp.resolve("empty.json")).toFile();
+        assertThat(uut.invoke(report, null)).isEqualTo(DigestUtils.sha256Hex(new byte[0]));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class ResolutionCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final ResolutionCache uut = new ResolutionCache(clock::get);
+
+    private static ResolutionCache.Key product(final String name) {
+        return new ResolutionCache.Key("http://host.tld", "digest", ResolutionCache.Kind.PRODUCT, null, name);
+    }
+
+    @Test
+    void entriesExpire() {
+        uut.put(product("a"), "1", 10, 10);
+        assertThat(uut.lookup(product("a"))).isEqualTo("1");
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertThat(uut.lookup(product("a"))).isNull();
+        assertThat(uut.size()).isZero();
+        assertThat(uut.getHits()).isEqualTo(1);
+        assertThat(uut.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesAreEvicted() {
+        uut.put(product("a"), "1", 10, 2);
+        uut.put(product("b"), "2", 10, 2);
+        uut.lookup(product("a"));
+        uut.put(product("c"), "3", 10, 2);
+
+        assertThat(uut.lookup(product("b"))).isNull();
+        assertThat(uut.lookup(product("a"))).isEqualTo("1");
+        assertThat(uut.lookup(product("c"))).isEqualTo("3");
+        assertThat(uut.getEvictions()).isEqualTo(1);
+    }
+
+    @Test
+    void nothingIsCachedWithoutTtl() {
+        uut.put(product("a"), "1", 0, 10);
+        assertThat(uut.lookup(product("a"))).isNull();
+    }
+
+    @Test
+    void invalidateIdsOnlyAffectsMatchingScope() {
+        final var otherInstance =
+                new ResolutionCache.Key("http://other.tld", "digest", ResolutionCache.Kind.PRODUCT, null, "a");
+        uut.put(product("a"), "1", 10, 10);
+        uut.put(product("b"), "2", 10, 10);
+        uut.put(otherInstance, "1", 10, 10);
+
+        uut.invalidateIds("http://host.tld", "digest", List.of("1"));
+
+        assertThat(uut.lookup(product("a"))).isNull();
+        assertThat(uut.lookup(product("b"))).isEqualTo("2");
+        assertThat(uut.lookup(otherInstance)).isEqualTo("1");
+    }
+}
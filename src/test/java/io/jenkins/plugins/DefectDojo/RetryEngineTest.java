@@ -0,0 +1,115 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class RetryEngineTest {
+
+    private final List<Long> sleeps = new ArrayList<>();
+
+    private final RetryEngine uut = new RetryEngine(new RetryEngine.Settings(3, 5, 30), sleeps::add);
+
+    @Test
+    void backOffGrowsExponentially() {
+        for (int i = 0; i < 100; i++) {
+            assertThat(uut.backOff(1, null)).isBetween(RetryEngine.MIN_BACK_OFF, RetryEngine.INITIAL_BACK_OFF);
+            assertThat(uut.backOff(3, null)).isBetween(RetryEngine.MIN_BACK_OFF, RetryEngine.INITIAL_BACK_OFF * 4);
+            assertThat(uut.backOff(30, null)).isBetween(RetryEngine.MIN_BACK_OFF, RetryEngine.MAX_BACK_OFF);
+        }
+    }
+
+    @Test
+    void retryAfterTakesPrecedence() {
+        assertThat(uut.backOff(1, new RetryableStatusException(503, 2000))).isEqualTo(2000);
+        assertThat(uut.backOff(1, new ApiClientException("wrapped", new RetryableStatusException(429, 0))))
+                .isZero();
+        assertThat(uut.backOff(1, new RetryableStatusException(429, 3_600_000)))
+                .isEqualTo(RetryEngine.MAX_RETRY_AFTER);
+    }
+
+    @Test
+    void retryAfterIsParsed() {
+        final Instant now = Instant.parse("2024-05-01T10:00:00Z");
+        assertThat(RetryableStatusException.parseRetryAfter("7", now)).isEqualTo(7000);
+        assertThat(RetryableStatusException.parseRetryAfter("Wed, 01 May 2024 10:00:30 GMT", now))
+                .isEqualTo(30_000);
+        assertThat(RetryableStatusException.parseRetryAfter("Wed, 01 May 2024 09:00:00 GMT", now))
+                .isZero();
+        assertThat(RetryableStatusException.parseRetryAfter("soon", now)).isEqualTo(-1);
+        assertThat(RetryableStatusException.parseRetryAfter(null, now)).isEqualTo(-1);
+    }
+
+    @Test
+    void retryableFailuresAreRetried() throws IOException {
+        final var attempts = new AtomicInteger();
+        final List<Boolean> lastAttempts = new ArrayList<>();
+        final String result = uut.execute(lastAttempt -> {
+            lastAttempts.add(lastAttempt);
+            if (attempts.incrementAndGet() == 1) {
+                throw new RetryableStatusException(503, 1000);
+            }
+            if (attempts.get() == 2) {
+                throw new ConnectException("oops");
+            }
+            return "ok";
+        });
+
+        assertThat(result).isEqualTo("ok");
+        assertThat(lastAttempts).containsExactly(false, false, true);
+        assertThat(sleeps).hasSize(2).first().isEqualTo(1000L);
+    }
+
+    @Test
+    void otherFailuresAreNotRetried() {
+        final var attempts = new AtomicInteger();
+        assertThatThrownBy(() -> uut.execute(lastAttempt -> {
+                    attempts.incrementAndGet();
+                    throw new ApiClientException("rejected");
+                }))
+                .isInstanceOf(ApiClientException.class)
+                .hasMessage("rejected");
+        assertThat(attempts).hasValue(1);
+
+        assertThatThrownBy(() -> uut.execute(lastAttempt -> {
+                    attempts.incrementAndGet();
+                    throw new CircuitBreaker.OpenException("suspended");
+                }))
+                .isInstanceOf(CircuitBreaker.OpenException.class);
+        assertThat(attempts).hasValue(2);
+        assertThat(sleeps).isEmpty();
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() {
+        final var attempts = new AtomicInteger();
+        assertThatThrownBy(() -> uut.execute(lastAttempt -> {
+                    attempts.incrementAndGet();
+                    throw new ConnectException("oops");
+                }))
+                .isInstanceOf(ConnectException.class);
+        assertThat(attempts).hasValue(3);
+        assertThat(uut.shouldRetry(2, new ConnectException("oops"))).isTrue();
+        assertThat(uut.shouldRetry(3, new ConnectException("oops"))).isFalse();
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ServerCapabilitiesTest {
+
+    @AfterEach
+    void tearDown() {
+        ServerCapabilities.clear();
+    }
+
+    @Test
+    void answersExpire() {
+        ServerCapabilities.recordAutoCreateContext("http://host.tld", "digest", false);
+        final long now = System.nanoTime();
+
+        assertThat(ServerCapabilities.lookupAutoCreateContext("http://host.tld", "digest", now)).isFalse();
+        assertThat(ServerCapabilities.lookupAutoCreateContext("http://host.tld", "other", now)).isNull();
+        final long expired = now + TimeUnit.SECONDS.toNanos(ResolutionCache.DEFAULT_TTL);
+        assertThat(ServerCapabilities.lookupAutoCreateContext("http://host.tld", "digest", expired)).isNull();
+        // the expired answer is dropped
+        assertThat(ServerCapabilities.lookupAutoCreateContext("http://host.tld", "digest", now)).isNull();
+    }
+}
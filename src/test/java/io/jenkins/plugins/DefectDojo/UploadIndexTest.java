@@ -0,0 +1,74 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.jenkins.plugins.DefectDojo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import hudson.BulkChange;
+import java.nio.file.Path;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class UploadIndexTest {
+
+    private static ImportScanRequest reimport(final String test) {
+        return new ImportScanRequest(
+                ApiClient.REUPLOAD_URL, Map.of("engagement", "eid-1", "scan_type", "ZAP Scan", "test", test));
+    }
+
+    @Test
+    void onlyReimportsHaveKeys(JenkinsRule r) {
+        assertThat(UploadIndex.keyOf("http://host.tld", reimport("tid-1")))
+                .isEqualTo("http://host.tld|eid-1|ZAP Scan|tid-1");
+        assertThat(UploadIndex.keyOf(
+                        "http://host.tld",
+                        new ImportScanRequest(ApiClient.UPLOAD_URL, Map.of("engagement", "eid-1", "scan_type", "ZAP"))))
+                .isNull();
+    }
+
+    @Test
+    void digestsArePersisted(JenkinsRule r, @TempDir Path tmp) {
+        final UploadIndex uut = new UploadIndex(tmp.resolve("index.xml").toFile());
+        uut.record("a", "digest-a");
+        uut.record("a", "digest-b");
+
+        // saved in a batch
+        final UploadIndex reloaded = new UploadIndex(tmp.resolve("index.xml").toFile());
+        reloaded.load();
+        assertThat(reloaded.lookup("a")).isNull();
+
+        uut.flush();
+        reloaded.load();
+        assertThat(reloaded.lookup("a")).isEqualTo("digest-b");
+        assertThat(reloaded.size()).isOne();
+    }
+
+    @Test
+    void leastRecentlyUploadedEntriesAreDropped(JenkinsRule r, @TempDir Path tmp) throws Exception {
+        final UploadIndex uut = new UploadIndex(tmp.resolve("index.xml").toFile());
+        try (BulkChange bc = new BulkChange(uut)) {
+            for (int i = 0; i <= UploadIndex.MAX_ENTRIES; i++) {
+                uut.record(String.valueOf(i), "digest");
+            }
+            bc.commit();
+        }
+        assertThat(uut.size()).isEqualTo(UploadIndex.MAX_ENTRIES);
+        assertThat(uut.lookup("0")).isNull();
+        assertThat(uut.lookup(String.valueOf(UploadIndex.MAX_ENTRIES))).isEqualTo("digest");
+    }
+}
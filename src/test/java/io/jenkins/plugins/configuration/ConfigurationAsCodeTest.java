@@ -27,9 +27,32 @@ public class ConfigurationAsCodeTest {
                 .returns("R4nD0m", DescriptorImpl::getDefectDojoCredentialsId)
                 .returns(false, DescriptorImpl::isDefectDojoAutoCreateProducts)
                 .returns(false, DescriptorImpl::isDefectDojoAutoCreateEngagements)
+                .returns(true, DescriptorImpl::isDefectDojoAutoCreateContext)
                 .returns(false, DescriptorImpl::isDefectDojoReuploadScan)
+                .returns(true, DescriptorImpl::isDefectDojoSkipUnchanged)
+                .returns(true, DescriptorImpl::isDefectDojoOutbox)
+                .returns(256, DescriptorImpl::getDefectDojoOutboxSize)
+                .returns(true, DescriptorImpl::isDefectDojoUploadFromAgent)
+                .returns(3, DescriptorImpl::getDefectDojoUploadParallelism)
+                .returns(900, DescriptorImpl::getDefectDojoBackgroundTimeout)
                 .returns(1, DescriptorImpl::getDefectDojoConnectionTimeout)
-                .returns(3, DescriptorImpl::getDefectDojoReadTimeout);
+                .returns(3, DescriptorImpl::getDefectDojoReadTimeout)
+                .returns(4, DescriptorImpl::getDefectDojoRetryAttempts)
+                .returns(10, DescriptorImpl::getDefectDojoCircuitBreakerThreshold)
+                .returns(60, DescriptorImpl::getDefectDojoCircuitBreakerOpenDuration)
+                .returns(20, DescriptorImpl::getDefectDojoRateLimit)
+                .returns(10, DescriptorImpl::getDefectDojoUploadProgressInterval)
+                .returns(300, DescriptorImpl::getDefectDojoUploadStallTimeout)
+                .returns(32, DescriptorImpl::getDefectDojoUploadMinThroughput)
+                .returns(250, DescriptorImpl::getDefectDojoPageSize)
+                .returns(2, DescriptorImpl::getDefectDojoPageParallelism)
+                .returns(10, DescriptorImpl::getDefectDojoMaxIdleConnections)
+                .returns(60, DescriptorImpl::getDefectDojoKeepAliveDuration)
+                .returns(16, DescriptorImpl::getDefectDojoMaxRequestsPerHost)
+                .returns(48, DescriptorImpl::getDefectDojoMaxRequests)
+                .returns(120, DescriptorImpl::getDefectDojoCacheTtl)
+                .returns(50, DescriptorImpl::getDefectDojoCacheSize)
+                .returns(30, DescriptorImpl::getDefectDojoCatalogMaxAge);
     }
 
     @Test